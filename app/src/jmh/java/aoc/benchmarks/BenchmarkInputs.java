@@ -0,0 +1,58 @@
+package aoc.benchmarks;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import aoc.Solvers;
+import aoc.generator.InputGenerator;
+import aoc.input.Input;
+
+// Resolves the "input" parameter of the benchmarks:
+// - "bundled" is the /NN.txt resource of the day
+// - "synthetic-<scale>" or "synthetic-<scale>-<seed>" is generated by InputGenerator, e.g. synthetic-100 is a hundred
+//   times the size of the bundled input. Generated files are kept in the temp directory and reused by later runs.
+// - everything else is read as a path
+final class BenchmarkInputs {
+
+    static final String BUNDLED = "bundled";
+    static final String SYNTHETIC = "synthetic-";
+
+    private static final long DEFAULT_SEED = 1;
+
+    private BenchmarkInputs() {
+    }
+
+    static Input load(int day, String input) {
+        if (input.equals(BUNDLED)) {
+            return Solvers.bundledInput(day);
+        }
+        if (input.startsWith(SYNTHETIC)) {
+            return Input.map(synthetic(day, input.substring(SYNTHETIC.length())));
+        }
+        return Input.map(Path.of(input));
+    }
+
+    private static Path synthetic(int day, String spec) {
+        var parts = spec.split("-");
+        if (parts.length > 2) {
+            throw new IllegalArgumentException("Expected synthetic-<scale>[-<seed>], got " + SYNTHETIC + spec);
+        }
+        var scale = Double.parseDouble(parts[0]);
+        var seed = parts.length == 2 ? Long.parseLong(parts[1]) : DEFAULT_SEED;
+        var file = Path.of(System.getProperty("java.io.tmpdir"), "aoc-inputs", day + "-" + parts[0] + "-" + seed + ".txt");
+        if (!Files.exists(file)) {
+            // Forks may race to generate the same file, so only ever move complete files into place.
+            var partial = file.resolveSibling(file.getFileName() + "." + ProcessHandle.current().pid());
+            InputGenerator.write(day, scale, seed, partial);
+            try {
+                Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot move " + partial + " to " + file, e);
+            }
+        }
+        return file;
+    }
+}
@@ -0,0 +1,88 @@
+package aoc.benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import aoc.Solver;
+import aoc.Solvers;
+import aoc.input.Input;
+
+// The phases of every day, on the bundled input unless -Pjmh.input names others for all days. The parts of days 16
+// and 23 take seconds, then an iteration is a single invocation.
+//
+// Part 2 of day 17 simulates 1_000_000_000_000 rocks and never finishes, so its part2 is the simulation of SIMULATED
+// rocks instead. The days that do not solve part 2 return null from part2, which measures nothing.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DayBenchmark {
+
+    private static final long SIMULATED = 1_000_000;
+
+    @Param({"12", "13", "14", "15", "16", "17", "18", "21", "22", "23"})
+    public int day;
+
+    @Param({BenchmarkInputs.BUNDLED})
+    public String input;
+
+    private Solver<Object> solver;
+    private boolean solvesPart2;
+    private MethodHandle simulate;
+
+    private Input text;
+    private Object parsed;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        solver = Solvers.forDay(day);
+        solvesPart2 = solver.getClass().getMethod("part2", Object.class).getDeclaringClass() != Solver.class;
+        if (day == 17) {
+            simulate = DayMethods.bind(17, "simulate", 2);
+        }
+        text = BenchmarkInputs.load(day, input);
+        parsed = solver.parse(text);
+    }
+
+    @TearDown
+    public void tearDown() {
+        solver.release(parsed);
+        text.close();
+    }
+
+    // Releasing is part of the cost, an off-heap grid would be lost otherwise.
+    @Benchmark
+    public Object parse() {
+        var result = solver.parse(text);
+        solver.release(result);
+        return result;
+    }
+
+    @Benchmark
+    public Object part1() {
+        return solver.part1(parsed);
+    }
+
+    @Benchmark
+    public Object part2() {
+        if (simulate != null) {
+            return DayMethods.invoke(simulate, parsed, SIMULATED);
+        }
+        return solvesPart2 ? solver.part2(parsed) : null;
+    }
+}
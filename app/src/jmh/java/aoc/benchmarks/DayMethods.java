@@ -0,0 +1,37 @@
+package aoc.benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+// The DayNN classes live in the default package, which cannot be imported from a named package (and JMH refuses
+// benchmarks in the default package). Methods outside of the Solver interface are therefore bound reflectively.
+final class DayMethods {
+
+    private DayMethods() {
+    }
+
+    static MethodHandle bind(int day, String name, int parameterCount) {
+        try {
+            Method method = Arrays.stream(Class.forName("Day" + day).getDeclaredMethods())
+                    .filter(m -> m.getName().equals(name) && m.getParameterCount() == parameterCount)
+                    .findFirst()
+                    .orElseThrow(() -> new NoSuchMethodException("Day" + day + "." + name));
+            method.setAccessible(true);
+            return MethodHandles.lookup().unreflect(method);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot bind Day" + day + "." + name, e);
+        }
+    }
+
+    static Object invoke(MethodHandle handle, Object... arguments) {
+        try {
+            return handle.invokeWithArguments(arguments);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
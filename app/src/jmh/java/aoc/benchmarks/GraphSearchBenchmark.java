@@ -0,0 +1,112 @@
+package aoc.benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import aoc.search.GraphSearch;
+import aoc.search.IntGraph;
+
+// The search engine on its own: corner to corner searches over a square grid with random walls. BFS and 0-1 BFS see
+// weights 0 or 1, Dijkstra and A* the same grid with weights 1 or 2, so that Manhattan distance is a valid estimate.
+// The engine is reused across invocations, so the allocation profiler (-prof gc) should show close to nothing.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GraphSearchBenchmark {
+
+    @Param({"100", "1000"})
+    public int size;
+
+    private final GraphSearch search = new GraphSearch();
+    private Grid zeroOne;
+    private Grid weighted;
+    private int target;
+
+    @Setup
+    public void setUp() {
+        zeroOne = new Grid(size, 0, new SplittableRandom(1));
+        weighted = new Grid(size, 1, new SplittableRandom(1));
+        target = size * size - 1;
+    }
+
+    @Benchmark
+    public int bfs() {
+        return search.bfs(zeroOne, 0, target);
+    }
+
+    @Benchmark
+    public int zeroOneBfs() {
+        return search.zeroOneBfs(zeroOne, 0, target);
+    }
+
+    @Benchmark
+    public int dijkstra() {
+        return search.dijkstra(weighted, 0, target);
+    }
+
+    @Benchmark
+    public int aStar() {
+        return search.aStar(weighted, 0, target, weighted::distanceToCorner);
+    }
+
+    // About a fifth of the cells are walls, the corners never are. Entering a cell costs its weight, minWeight or one
+    // more.
+    private static final class Grid implements IntGraph {
+
+        private static final int[] DX = {1, 0, -1, 0};
+        private static final int[] DY = {0, 1, 0, -1};
+
+        private final int size;
+        private final boolean[] wall;
+        private final int[] weight;
+
+        Grid(int size, int minWeight, SplittableRandom random) {
+            this.size = size;
+            this.wall = new boolean[size * size];
+            this.weight = new int[size * size];
+            for (int i = 0; i < wall.length; i++) {
+                wall[i] = random.nextInt(5) == 0;
+                weight[i] = minWeight + random.nextInt(2);
+            }
+            wall[0] = false;
+            wall[wall.length - 1] = false;
+        }
+
+        int distanceToCorner(int node) {
+            return 2 * (size - 1) - node % size - node / size;
+        }
+
+        @Override
+        public int nodeCount() {
+            return size * size;
+        }
+
+        @Override
+        public void forEachEdge(int node, EdgeConsumer edges) {
+            var x = node % size;
+            var y = node / size;
+            for (int d = 0; d < DX.length; d++) {
+                var nx = x + DX[d];
+                var ny = y + DY[d];
+                if (nx >= 0 && nx < size && ny >= 0 && ny < size && !wall[ny * size + nx]) {
+                    edges.edge(ny * size + nx, weight[ny * size + nx]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package aoc.benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import aoc.search.GraphSearch;
+import aoc.search.Heightmap;
+import aoc.search.HeightmapSearch;
+import aoc.search.ParallelHeightmapSearch;
+
+// A search from a corner that reaches every cell it can, over square heightmaps of up to 16 million cells, with
+// HeightmapSearch, with ParallelHeightmapSearch on the common pool and with GraphSearch on the same map as an
+// IntGraph. The elevations are random from 0 to 3, so about a fifth of the steps is too steep. For the scaling of the
+// parallel search, run it with -jvmArgsAppend -Djava.util.concurrent.ForkJoinPool.common.parallelism=<n>.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class HeightmapSearchBenchmark {
+
+    @Param({"1000", "4000"})
+    public int size;
+
+    private final HeightmapSearch search = new HeightmapSearch();
+    private final ParallelHeightmapSearch parallelSearch = new ParallelHeightmapSearch();
+    private final GraphSearch graphSearch = new GraphSearch();
+    private Heightmap map;
+
+    @Setup
+    public void setUp() {
+        var random = new SplittableRandom(1);
+        var elevations = new byte[size * size];
+        for (int i = 0; i < elevations.length; i++) {
+            elevations[i] = (byte) random.nextInt(4);
+        }
+        map = new Heightmap(elevations, size);
+    }
+
+    @Benchmark
+    public int heightmapSearch() {
+        return search.bfs(map, 0, HeightmapSearch.NO_TARGET);
+    }
+
+    @Benchmark
+    public int parallelSearch() {
+        return parallelSearch.bfs(map, HeightmapSearch.Direction.FORWARD, 0, ParallelHeightmapSearch.NO_TARGET);
+    }
+
+    @Benchmark
+    public int graphSearch() {
+        return graphSearch.bfs(map, 0, GraphSearch.NO_TARGET);
+    }
+}
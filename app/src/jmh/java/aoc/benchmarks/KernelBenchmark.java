@@ -0,0 +1,86 @@
+package aoc.benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import aoc.simd.ScalarKernels;
+import aoc.simd.VectorKernels;
+
+// Every kernel of aoc.simd in its scalar and its vector form over arrays of increasing length, to find the length from
+// which the vectors win. anyWithinManhattan gets diamonds that do not contain the point, so that it has to check all of
+// them like most calls in day 15 do.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KernelBenchmark {
+
+    @Param({"4", "8", "16", "32", "64", "256", "4096"})
+    public int length;
+
+    private int[] xs;
+    private int[] ys;
+    private int[] radii;
+    private long[] bits;
+
+    @Setup
+    public void setUp() {
+        var random = new SplittableRandom(1);
+        xs = new int[length];
+        ys = new int[length];
+        radii = new int[length];
+        bits = new long[length + 1];
+        for (int i = 0; i < length; i++) {
+            xs[i] = random.nextInt(1_000_000, 4_000_000);
+            ys[i] = random.nextInt(1_000_000, 4_000_000);
+            radii[i] = random.nextInt(0, 1_000_000);
+        }
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] = random.nextLong();
+        }
+    }
+
+    @Benchmark
+    public boolean anyWithinManhattanScalar() {
+        return ScalarKernels.anyWithinManhattan(xs, ys, radii, 0, 0);
+    }
+
+    @Benchmark
+    public boolean anyWithinManhattanVector() {
+        return VectorKernels.anyWithinManhattan(xs, ys, radii, 0, 0);
+    }
+
+    @Benchmark
+    public long countAndNotScalar() {
+        return ScalarKernels.countAndNot(bits, 0, bits, 1, length);
+    }
+
+    @Benchmark
+    public long countAndNotVector() {
+        return VectorKernels.countAndNot(bits, 0, bits, 1, length);
+    }
+
+    @Benchmark
+    public long countAndNotShiftedScalar() {
+        return ScalarKernels.countAndNotShifted(bits, 0, length, 1);
+    }
+
+    @Benchmark
+    public long countAndNotShiftedVector() {
+        return VectorKernels.countAndNotShifted(bits, 0, length, 1);
+    }
+}
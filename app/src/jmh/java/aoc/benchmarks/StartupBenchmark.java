@@ -0,0 +1,100 @@
+package aoc.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Time to first answer: starts the installed launcher (build/install/app, see the cdsArchive task) for one day and
+// stops the clock when it prints the answers. Unlike the other benchmarks this measures a cold JVM every time.
+// - "off" runs without class data sharing
+// - "jdk" with the default CDS archive of the JDK only
+// - "app" with the AppCDS archive that the start scripts use
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 10)
+@Fork(1)
+public class StartupBenchmark {
+
+    @Param({"off", "jdk", "app"})
+    public String share;
+
+    @Param({"13", "18"})
+    public String day;
+
+    private Path script;
+    private String javaOptions;
+    private Process process;
+
+    @Setup
+    public void setUp() {
+        var installDirectory = Path.of(System.getProperty("aoc.installDir", "build/install/app"));
+        var windows = System.getProperty("os.name").startsWith("Windows");
+        script = installDirectory.resolve(windows ? "bin/app.bat" : "bin/app");
+        var archive = installDirectory.resolve("lib/app.jsa");
+        if (!Files.exists(script) || !Files.exists(archive)) {
+            throw new IllegalStateException("No installation with an AppCDS archive in " + installDirectory
+                    + ", run the cdsArchive task first");
+        }
+        var options = new ArrayList<String>();
+        // The launcher needs the same preview setting as the classes it was compiled with.
+        if (ManagementFactory.getRuntimeMXBean().getInputArguments().contains("--enable-preview")) {
+            options.add("--enable-preview");
+        }
+        // Later options win over the ones of the start script, and the benchmark must not write the archive itself.
+        options.add("-XX:-AutoCreateSharedArchive");
+        switch (share) {
+            case "off" -> options.add("-Xshare:off");
+            case "jdk" -> options.add("-XX:SharedArchiveFile="
+                    + Path.of(System.getProperty("java.home"), "lib", "server", "classes.jsa"));
+            case "app" -> options.add("-XX:SharedArchiveFile=" + archive);
+            default -> throw new IllegalArgumentException("Unknown share mode " + share);
+        }
+        javaOptions = String.join(" ", options);
+    }
+
+    @TearDown(Level.Invocation)
+    public void stop() throws InterruptedException {
+        if (process != null) {
+            process.destroy();
+            process.waitFor();
+            process = null;
+        }
+    }
+
+    @Benchmark
+    public String firstAnswer() throws IOException {
+        var builder = new ProcessBuilder(script.toString(), "--output", "quiet", day)
+                .redirectError(ProcessBuilder.Redirect.DISCARD);
+        builder.environment().put("JAVA_HOME", System.getProperty("java.home"));
+        builder.environment().put("JAVA_OPTS", javaOptions);
+        process = builder.start();
+        var reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        var line = reader.readLine();
+        if (line == null) {
+            throw new IllegalStateException("The launcher exited without an answer");
+        }
+        return line;
+    }
+}
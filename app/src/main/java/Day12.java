@@ -1,18 +1,25 @@
 
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
-import java.util.PriorityQueue;
+import java.util.function.IntPredicate;
 
-record Position(int line, int column) {
-
-}
+import aoc.Launcher;
+import aoc.Solver;
+import aoc.cache.BinaryCodec;
+import aoc.instrument.Counter;
+import aoc.input.Input;
+import aoc.input.InputCursor;
+import aoc.search.Heightmap;
+import aoc.search.HeightmapRouter;
+import aoc.search.HeightmapSearch;
+import aoc.search.ParallelHeightmapSearch;
 
-record ShortestPath(int distance, Node previous) {
+record Position(int line, int column) {
 
 }
 
@@ -71,31 +78,73 @@ class Node {
 
 }
 
+// The heightmap of the input with its start and end. Searches run on the Heightmap, two bytes per cell. The Node
+// objects are a view for code that wants to walk the map by positions, at creates them as they are asked for and
+// grid builds all of them once it is first called.
 class Graph {
 
-    private Position start;
-    private Position end;
-    public final List<List<Node>> grid = new ArrayList<>();
-
-    public Graph(List<String> lines) {
-
-        for (int lineNumber = 1; lineNumber <= lines.size(); lineNumber++) {
-            var line = lines.get(lineNumber - 1).split("");
-            var gridLine = new ArrayList<Node>();
-            for (int columnNumber = 1; columnNumber <= line.length; columnNumber++) {
-                var value = line[columnNumber - 1];
-                if (value.equals("S")) {
-                    value = "a";
-                    this.start = new Position(lineNumber, columnNumber);
-                } else if (value.equals("E")) {
-                    value = "z";
-                    this.end = new Position(lineNumber, columnNumber);
+    private final Position start;
+    private final Position end;
+    public final Heightmap heightmap;
+    private List<List<Node>> grid;
+
+    public Graph(InputCursor cursor) {
+        Position start = null;
+        Position end = null;
+        var elevations = new byte[0];
+        var cells = 0;
+        var width = -1;
+        for (int lineNumber = 1; cursor.hasRemaining() && !cursor.atLineEnd(); lineNumber++) {
+            var lineLength = cursor.lineLength();
+            if (width == -1) {
+                width = lineLength;
+            } else if (lineLength != width) {
+                throw cursor.error("Line " + lineNumber + " has " + lineLength + " cells, expected " + width);
+            }
+            if (cells + lineLength > elevations.length) {
+                elevations = Arrays.copyOf(elevations, Math.max(2 * elevations.length, cells + lineLength));
+            }
+            for (int columnNumber = 1; columnNumber <= lineLength; columnNumber++) {
+                var value = (char) cursor.next();
+                if (value == 'S') {
+                    value = 'a';
+                    start = new Position(lineNumber, columnNumber);
+                } else if (value == 'E') {
+                    value = 'z';
+                    end = new Position(lineNumber, columnNumber);
                 }
-                var elevation = value.charAt(0) - 'a';
-                gridLine.add(new Node(elevation, new Position(lineNumber, columnNumber), this));
+                elevations[cells++] = (byte) (value - 'a');
             }
-            this.grid.add(gridLine);
+            cursor.nextLine();
         }
+        this.start = start;
+        this.end = end;
+        this.heightmap = new Heightmap(elevations, cells, Math.max(width, 1));
+    }
+
+    // A graph that was written by Day12.Codec.
+    Graph(Heightmap heightmap, Position start, Position end) {
+        this.heightmap = heightmap;
+        this.start = start;
+        this.end = end;
+    }
+
+    public int startCell() {
+        return cell(start);
+    }
+
+    public int endCell() {
+        return cell(end);
+    }
+
+    // The cell of the heightmap at a position, which counts lines and columns from 1.
+    public int cell(Position position) {
+        return heightmap.index(position.line() - 1, position.column() - 1);
+    }
+
+    // For many questions about this map, which keeps the distance fields of the ends it was asked about.
+    public HeightmapRouter router(long budgetBytes) {
+        return new HeightmapRouter(heightmap, budgetBytes);
     }
 
     public Node getStart() {
@@ -106,25 +155,93 @@ class Graph {
         return at(this.end).get();
     }
 
-    public Optional<Node> at(Position pos) {
-        if (pos.line() < 1 || pos.line() > grid.size()) {
-            return Optional.empty();
+    // Every cell as a Node, line by line. Built on the first call, which costs far more than the heightmap itself.
+    public synchronized List<List<Node>> grid() {
+        if (grid == null) {
+            var lines = new ArrayList<List<Node>>(heightmap.height());
+            for (int lineNumber = 1; lineNumber <= heightmap.height(); lineNumber++) {
+                var line = new ArrayList<Node>(heightmap.width());
+                for (int columnNumber = 1; columnNumber <= heightmap.width(); columnNumber++) {
+                    line.add(node(new Position(lineNumber, columnNumber)));
+                }
+                lines.add(line);
+            }
+            grid = lines;
         }
-        var line = grid.get(pos.line() - 1);
-        if (pos.column() < 1 || pos.column() > line.size()) {
+        return grid;
+    }
+
+    public Optional<Node> at(Position pos) {
+        if (pos.line() < 1 || pos.line() > heightmap.height() || pos.column() < 1 || pos.column() > heightmap.width()) {
             return Optional.empty();
         }
-        return Optional.of(line.get(pos.column() - 1));
+        return Optional.of(node(pos));
+    }
+
+    private Node node(Position position) {
+        return new Node(heightmap.elevation(cell(position)), position, this);
     }
 }
 
-public class Day12 {
+public class Day12 implements Solver<Graph> {
 
     public static void main(String[] args) throws Exception {
-        List<String> lines = Files.readAllLines(Path.of(Day12.class.getResource("/12.txt").toURI()));
-        var graph = new Graph(lines);
-        part1(graph);
-        part2(graph);
+        Launcher.main(new String[] {"12"});
+    }
+
+    @Override
+    public Graph parse(Input input) {
+        return new Graph(input.cursor());
+    }
+
+    @Override
+    public BinaryCodec<Graph> codec() {
+        return new Codec();
+    }
+
+    @Override
+    public void release(Graph graph) {
+        graph.heightmap.close();
+    }
+
+    // The height and width, the elevations row by row with one byte each, then the positions of start and end.
+    private static final class Codec implements BinaryCodec<Graph> {
+
+        @Override
+        public void write(Graph graph, DataOutput out) throws IOException {
+            var heightmap = graph.heightmap;
+            out.writeInt(heightmap.height());
+            out.writeInt(heightmap.width());
+            var elevations = new byte[heightmap.nodeCount()];
+            for (int cell = 0; cell < elevations.length; cell++) {
+                elevations[cell] = (byte) heightmap.elevation(cell);
+            }
+            out.write(elevations);
+            for (var position : new Position[] {graph.getStart().position, graph.getEnd().position}) {
+                out.writeInt(position.line());
+                out.writeInt(position.column());
+            }
+        }
+
+        @Override
+        public Graph read(ByteBuffer in) {
+            var lines = in.getInt();
+            var width = in.getInt();
+            if (lines < 0 || width < 0 || (long) lines * width > in.remaining()) {
+                throw new IllegalArgumentException("Invalid heightmap of " + lines + " lines of " + width + " cells");
+            }
+            var elevations = new byte[lines * width];
+            in.get(elevations);
+            var start = new Position(in.getInt(), in.getInt());
+            var end = new Position(in.getInt(), in.getInt());
+            return new Graph(new Heightmap(elevations, Math.max(width, 1)), start, end);
+        }
+
+        // 1 wrote the width before every line.
+        @Override
+        public int version() {
+            return 2;
+        }
     }
 
     // As you walk up the hill, you suspect that the Elves will want to turn this into a hiking trail. The beginning isn't very scenic, though; perhaps you can find a better starting point.
@@ -150,22 +267,28 @@ public class Day12 {
     // This path reaches the goal in only 29 steps, the fewest possible.
     // 
     // What is the fewest steps required to move starting from any square with elevation a to the location that should get the best signal?
-    private static void part2(Graph graph) {
-        var absoluteShortestPath = new ShortestPath(Integer.MAX_VALUE, null);
-
-        for (List<Node> line : graph.grid) {
-            for (Node node : line) {
-                if (node.elevation == 0) {
-                    var shortestPath = findShortestPath(graph, node);
-                    if (shortestPath != null) {
-                        if (shortestPath.distance() < absoluteShortestPath.distance()) {
-                            absoluteShortestPath = shortestPath;
-                        }
-                    }
-                }
-            }
+    @Override
+    public Integer part2(Graph graph) {
+        // One search from E with the steps reversed, which reaches the a closest to E first.
+        var heightmap = graph.heightmap;
+        IntPredicate lowest = cell -> heightmap.elevation(cell) == 0;
+        int distance;
+        if (ParallelHeightmapSearch.enabledFor(heightmap)) {
+            var search = new ParallelHeightmapSearch();
+            var start = search.nearest(heightmap, HeightmapSearch.Direction.REVERSE, graph.endCell(), lowest);
+            EXPANDED.add(search.settledCount());
+            distance = start == ParallelHeightmapSearch.NONE ? HeightmapSearch.UNREACHED : search.distance(start);
+        } else {
+            var search = new HeightmapSearch();
+            var start = search.nearest(heightmap, HeightmapSearch.Direction.REVERSE, graph.endCell(), lowest);
+            EXPANDED.add(search.settledCount());
+            distance = start == HeightmapSearch.NONE ? HeightmapSearch.UNREACHED : search.distance(start);
+        }
+        // Like part 1, an input without an answer is invalid.
+        if (distance == HeightmapSearch.UNREACHED) {
+            throw new IllegalArgumentException("E cannot be reached from any square of elevation a");
         }
-        System.out.println(absoluteShortestPath.distance());
+        return distance;
     }
 
     // You try contacting the Elves using your handheld device, but the river you're following must be too low to get a decent signal.
@@ -197,42 +320,24 @@ public class Day12 {
     // This path reaches the goal in 31 steps, the fewest possible.
     // 
     // What is the fewest steps required to move from your current position to the location that should get the best signal?
-    private static void part1(Graph graph) {
-        var shortestPath = findShortestPath(graph, graph.getStart());
-        System.out.println(shortestPath.distance());
-    }
-
-    private static ShortestPath findShortestPath(Graph graph, Node start) {
-        Map<Node, ShortestPath> state = new HashMap<>();
-        state.put(start, new ShortestPath(0, null));
-        var queue = new PriorityQueue<Node>((a, b) -> {
-            var stateA = state.get(a);
-            var stateB = state.get(b);
-            return stateA.distance() - stateB.distance();
-        });
-        queue.add(start);
-        var end = graph.getEnd();
-
-        while (!queue.isEmpty()) {
-            var node = queue.poll();
-            if (node.equals(end)) {
-                break;
-            }
-            var path = state.get(node);
-            if (path == null) {
-                throw new IllegalStateException("No path defined for " + node);
-            }
-            for (Node neighbor : node.getNeighbors()) {
-                boolean isReachable = (neighbor.elevation - node.elevation) <= 1;
-                var neighborPath = state.getOrDefault(neighbor, new ShortestPath(Integer.MAX_VALUE, null));
-                boolean isShorterPath = (path.distance() + 1) < neighborPath.distance();
-                if (isReachable && isShorterPath) {
-                    state.put(neighbor, new ShortestPath(path.distance() + 1, node));
-                    queue.add(neighbor);
-                }
-            }
+    @Override
+    public Integer part1(Graph graph) {
+        int distance;
+        if (ParallelHeightmapSearch.enabledFor(graph.heightmap)) {
+            var search = new ParallelHeightmapSearch();
+            distance = search.bfs(graph.heightmap, HeightmapSearch.Direction.FORWARD, graph.startCell(),
+                    graph.endCell());
+            EXPANDED.add(search.settledCount());
+        } else {
+            var search = new HeightmapSearch();
+            distance = search.bfs(graph.heightmap, graph.startCell(), graph.endCell());
+            EXPANDED.add(search.settledCount());
+        }
+        if (distance == HeightmapSearch.UNREACHED) {
+            throw new IllegalArgumentException("E cannot be reached from S");
         }
-        var node = graph.getEnd();
-        return state.get(node);
+        return distance;
     }
+
+    private static final Counter EXPANDED = Counter.register("day12.expanded", "Cells expanded by the search");
 }
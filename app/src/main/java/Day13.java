@@ -1,6 +1,4 @@
 
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -8,6 +6,13 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import aoc.Launcher;
+import aoc.Solver;
+import aoc.instrument.Counter;
+import aoc.input.Input;
+import aoc.report.Trace;
+import aoc.input.InputCursor;
+
 sealed interface PacketData extends Comparable<PacketData> {
 
 }
@@ -95,6 +100,7 @@ final class ListPacketData implements PacketData {
 record PairOfPackets(ListPacketData left, ListPacketData right) {
 
     public boolean isInCorrectOrder() {
+        Day13.COMPARISONS.increment();
         var comparison = left.compareTo(right);
         if (comparison == 0) {
             throw new IllegalStateException("The instruction don't cover this case");
@@ -103,7 +109,10 @@ record PairOfPackets(ListPacketData left, ListPacketData right) {
     }
 };
 
-public class Day13 {
+public class Day13 implements Solver<List<ListPacketData>> {
+
+    // Top level packet comparisons, by the pair checks and by the sort.
+    static final Counter COMPARISONS = Counter.register("day13.comparisons", "Packet comparisons");
 
     private static String input = """
 [1,1,3,1,1]
@@ -130,58 +139,55 @@ public class Day13 {
 [1,[2,[3,[4,[5,6,7]]]],8,9]
 [1,[2,[3,[4,[5,6,0]]]],8,9]""";
 
-    private static ListPacketData parseLine(String line) {
+    private static ListPacketData parsePacket(InputCursor cursor) {
 
-        if (line.charAt(0) != '[') {
-            throw new IllegalArgumentException("Line should start with [, but didn't: " + line);
+        if (cursor.peek() != '[') {
+            throw cursor.error("Packet should start with [");
         }
+        cursor.next();
         var stack = new ArrayDeque<ListPacketData>();
         stack.push(new ListPacketData());
-        var tokens = Arrays.stream(line.split(","))
-                .flatMap(segment -> {
-                    return Arrays.stream(segment.split("(?<=\\[)|(?=\\[)|(?<=\\])|(?=\\])"));
-                })
-                .toList();
-        for (var i = 1; i < (tokens.size() - 1); i++) {
+        while (true) {
             var currentList = stack.peek();
-            var token = String.valueOf(tokens.get(i));
-            if (token.equals(",")) {
-                throw new IllegalStateException("Commas should not be here.");
-            }
-            switch (token) {
-                case "[" -> {
+            switch (cursor.peek()) {
+                case '[' -> {
+                    cursor.next();
                     ListPacketData newList = new ListPacketData();
                     currentList.add(newList);
                     stack.push(newList);
                 }
-                case "]" -> {
-                    stack.pop();
+                case ']' -> {
+                    cursor.next();
+                    var closedList = stack.pop();
+                    if (stack.isEmpty()) {
+                        return closedList;
+                    }
+                }
+                case ',' -> {
+                    cursor.next();
                 }
                 default -> {
-                    currentList.add(new PrimitivePacketData(Integer.valueOf(token)));
+                    currentList.add(new PrimitivePacketData(cursor.nextInt()));
                 }
-
             }
         }
-
-        if (line.charAt(line.length() - 1) != ']') {
-            throw new IllegalArgumentException("Line should end with ], but didn't: " + line);
-        }
-        return stack.peek();
     }
 
     public static void main(String[] args) throws Exception {
-        var lines = Files.readAllLines(Path.of(Day13.class.getResource("/13.txt").toURI())).stream();
-        // var lines = Arrays.stream(input.split("\n"));
-        var data = lines
-                .filter(l -> l.trim().length() > 0)
-                .map(Day13::parseLine)
-                .collect(Collectors.toCollection(ArrayList::new));
-        print(data);
-        part1(data);
-
-        part2(data);
+        Launcher.main(new String[] {"13"});
+    }
 
+    @Override
+    public List<ListPacketData> parse(Input input) {
+        var cursor = input.cursor();
+        var packets = new ArrayList<ListPacketData>();
+        cursor.skipBlankLines();
+        while (cursor.hasRemaining()) {
+            packets.add(parsePacket(cursor));
+            cursor.expectLineEnd();
+            cursor.skipBlankLines();
+        }
+        return packets;
     }
 
     // Now, you just need to put all of the packets in the right order. Disregard the blank lines in your list of received packets.
@@ -217,28 +223,34 @@ public class Day13 {
     // Afterward, locate the divider packets. To find the decoder key for this distress signal, you need to determine the indices of the two divider packets and multiply them together. (The first packet is at index 1, the second packet is at index 2, and so on.) In this example, the divider packets are 10th and 14th, and so the decoder key is 140.
     // 
     // Organize all of the packets into the correct order. What is the decoder key for the distress signal?
-    private static void part2(ArrayList<ListPacketData> data) {
+    @Override
+    public Integer part2(List<ListPacketData> packets) {
+        var data = new ArrayList<>(packets);
         ListPacketData decoderPacket1 = new ListPacketData(new ListPacketData(new PrimitivePacketData(2)));
         ListPacketData decoderPacket2 = new ListPacketData(new ListPacketData(new PrimitivePacketData(6)));
         data.add(decoderPacket1);
         data.add(decoderPacket2);
-        Comparator<ListPacketData> comparator = (a, b) -> a.compareTo(b);
+        Comparator<ListPacketData> comparator = (a, b) -> {
+            COMPARISONS.increment();
+            return a.compareTo(b);
+        };
 
         data.sort(comparator);
-        print(data);
+        Trace.event("day13.sorted", () -> render(data));
 
         int indexDecoderPacket1 = Arrays.binarySearch(data.toArray(new ListPacketData[0]), decoderPacket1, comparator);
         int indexDecoderPacket2 = Arrays.binarySearch(data.toArray(new ListPacketData[0]), decoderPacket2, comparator);
 
-        System.out.println(indexDecoderPacket1);
-        System.out.println(indexDecoderPacket2);
-        System.out.println((indexDecoderPacket1 + 1) * (indexDecoderPacket2 + 1));
+        Trace.event("day13.decoders", () -> indexDecoderPacket1 + " " + indexDecoderPacket2);
+        return (indexDecoderPacket1 + 1) * (indexDecoderPacket2 + 1);
     }
 
-    private static void print(List<ListPacketData> data) {
+    private static String render(List<ListPacketData> data) {
+        var sb = new StringBuilder();
         for (PacketData line : data) {
-            System.out.println(line);
+            sb.append('\n').append(line);
         }
+        return sb.toString();
     }
 
     // You climb the hill and again try contacting the Elves. However, you instead receive a signal you weren't expecting: a distress signal.
@@ -351,17 +363,19 @@ public class Day13 {
     // What are the indices of the pairs that are already in the right order? (The first pair has index 1, the second pair has index 2, and so on.) In the above example, the pairs in the right order are 1, 2, 4, and 6; the sum of these indices is 13.
     // 
     // Determine which pairs of packets are already in the right order. What is the sum of the indices of those pairs?
-    private static void part1(List<ListPacketData> lines) {
+    @Override
+    public Integer part1(List<ListPacketData> lines) {
         var sum = 0;
         for (int pairIndex = 1; pairIndex <= (lines.size() / 2); pairIndex += 1) {
             var pair = new PairOfPackets((ListPacketData) lines.get((pairIndex * 2) - 2), (ListPacketData) lines.get((pairIndex * 2) - 1));
+            var index = pairIndex;
             if (!pair.isInCorrectOrder()) {
-                System.out.println("Pair " + pairIndex + " are not in the correct order: " + pair);
+                Trace.event("day13.pair", () -> "Pair " + index + " are not in the correct order: " + pair);
             } else {
-                System.out.println("Pair " + pairIndex + " is in the correct order");
+                Trace.event("day13.pair", () -> "Pair " + index + " is in the correct order");
                 sum += pairIndex;
             }
         }
-        System.out.println(sum);
+        return sum;
     }
 }
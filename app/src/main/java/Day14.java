@@ -1,11 +1,24 @@
 
-import java.nio.file.Files;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 
-class Day14 {
+import aoc.Launcher;
+import aoc.Solver;
+import aoc.cache.BinaryCodec;
+import aoc.grid.ByteGrid;
+import aoc.input.Input;
+import aoc.input.InputCursor;
+import aoc.instrument.Counter;
+import aoc.report.Trace;
+
+public class Day14 implements Solver<List<Day14.StonePath>> {
+
+    private static final Counter SAND_UNITS = Counter.register("day14.sand", "Units of sand that came to rest");
+    private static final Counter FALL_STEPS = Counter.register("day14.fallSteps", "Steps of falling sand");
 
     static String input = """
 498,4 -> 498,6 -> 496,6
@@ -54,43 +67,39 @@ class Day14 {
         }
     }
 
-    static class Cave {
+    // The scanned cave as a dense grid of CaveObject ordinals. It has one row more than the scan, where sand can come to
+    // rest on the floor of part 2, and is wide enough for the pile that forms around x=500 on that floor.
+    static class Cave implements AutoCloseable {
 
-        private final ArrayList<ArrayList<CaveObject>> grid = new ArrayList<>();
+        private static final byte AIR = (byte) CaveObject.AIR.ordinal();
+        private static final byte STONE = (byte) CaveObject.STONE.ordinal();
+        private static final byte SAND = (byte) CaveObject.SAND.ordinal();
+        // Returned by at() below the scan of part 1.
+        private static final byte ABYSS = -1;
+
+        private final ByteGrid grid;
         private final int originalGridSize;
 
-        // final int minX;
         public Cave(List<StonePath> paths) {
-            var minX = paths.stream()
-                    .flatMap(path -> path.coordinates().stream())
-                    .reduce(
-                            Integer.MAX_VALUE,
-                            (mins, coord) -> Math.min(mins, coord.x()),
-                            (a, b) -> Math.min(a, b)
-                    );
-            // this.minX = minX < 5 ? 0 : minX - 5;
+            var maxX = 0;
+            var maxY = 0;
+            for (var path : paths) {
+                for (var coordinate : path.coordinates()) {
+                    maxX = Math.max(maxX, coordinate.x());
+                    maxY = Math.max(maxY, coordinate.y());
+                }
+            }
+            this.originalGridSize = maxY + 1;
+            this.grid = new ByteGrid(Math.max(maxX + 2, 500 + originalGridSize + 3), originalGridSize + 1);
+            grid.fill(AIR);
 
             for (var path : paths) {
                 this.addPath(path);
             }
-            this.originalGridSize = grid.size();
         }
 
         public void addCaveObject(int x, int y, CaveObject caveObject) {
-            while (grid.size() < (y + 1)) {
-                grid.add(new ArrayList<>());
-            }
-            var line = grid.get(y);
-            for (var i = 0; i < x; i++) {
-                if (line.size() < x + 1) {
-                    line.add(CaveObject.AIR);
-                }
-            }
-            if (line.size() >= x + 1) {
-                line.set(x, caveObject);
-            } else {
-                line.add(caveObject);
-            }
+            grid.set(x, y, (byte) caveObject.ordinal());
         }
 
         private void addPath(StonePath path) {
@@ -127,107 +136,89 @@ class Day14 {
             }
         }
 
-        private CaveObject at(int x1, int y1) {
-            var line = this.grid.get(y1);
-            if (line.size() < (x1 + 1)) {
-                return CaveObject.AIR;
+        private byte at(int x, int y, boolean simulateFloor) {
+            if (y >= originalGridSize || x < 0) {
+                if (!simulateFloor) {
+                    return ABYSS;
+                }
+                if (y == originalGridSize) {
+                    return x < 0 ? AIR : grid.get(x, y);
+                } else if (y == originalGridSize + 1) {
+                    return STONE;
+                } else {
+                    throw new IllegalStateException("Should not happen");
+                }
             }
-            return line.get(x1);
+            // Right of the scan there is only air.
+            return x < grid.width() ? grid.get(x, y) : AIR;
         }
 
         public Coordinate simulateSand(boolean simulateFloor) {
             int x = 500;
             int y = 0;
+            var steps = 0;
 
-            BiFunction<Integer, Integer, CaveObject> get = (x1, y1) -> {
-                if (y1 >= grid.size() || x1 < 0) {
-                    if (simulateFloor) {
-                        if (y1 == originalGridSize) {
-                            return CaveObject.AIR;
-                        } else if (y1 == originalGridSize + 1) {
-                            return CaveObject.STONE;
-                        } else {
-                            throw new IllegalStateException("Should not happen");
-                        }
-                    } else {
-                        return null;
-                    }
-                }
-
-                return this.at(x1, y1);
-            };
-
-            if (get.apply(x, y) == CaveObject.SAND) {
+            if (at(x, y, simulateFloor) == SAND) {
                 // Cave is full
                 return null;
             }
             while (true) {
-                if (get.apply(x, y + 1) == null) {
+                var below = at(x, y + 1, simulateFloor);
+                if (below == ABYSS) {
                     // Falls into the depth
+                    FALL_STEPS.add(steps);
                     return null;
-                } else if (get.apply(x, y + 1) == CaveObject.AIR) {
+                } else if (below == AIR) {
                     // Sand falls down
                     y += 1;
-                } else if (get.apply(x - 1, y + 1) == CaveObject.AIR) {
+                } else if (at(x - 1, y + 1, simulateFloor) == AIR) {
                     // Sand falls down to the left
                     y += 1;
                     x -= 1;
-                } else if (get.apply(x + 1, y + 1) == CaveObject.AIR) {
+                } else if (at(x + 1, y + 1, simulateFloor) == AIR) {
                     // Sand falls down to the right
                     y += 1;
                     x += 1;
                 } else {
                     // Sand comes to rest
+                    FALL_STEPS.add(steps);
                     return new Coordinate(x, y);
                 }
+                steps++;
             }
         }
 
-        public void print() {
-            var minX = this.grid.stream()
-                    .reduce(
-                            Integer.MAX_VALUE,
-                            (mins, line) -> {
-                                for (int i = 0; i < Math.min(line.size(), mins); i++) {
-                                    CaveObject object = line.get(i);
-                                    if (object == CaveObject.STONE || object == CaveObject.SAND) {
-                                        return Math.min(mins, i);
-                                    }
-                                }
-                                // Ignore lines with only null values.
-                                return mins;
-                            },
-                            (a, b) -> Math.min(a, b)
-                    );
-            minX = minX < 5 ? 0 : minX - 5;
-            for (var line : grid) {
-                for (int i = minX; i < line.size(); i++) {
-                    var object = line.get(i);
-                    if (object != null) {
-                        System.out.print(object.symbol);
-                    } else {
-                        System.out.print(".");
+        public String render() {
+            var objects = CaveObject.values();
+            var minX = grid.width();
+            var maxX = -1;
+            for (int y = 0; y < grid.height(); y++) {
+                for (int x = 0; x < grid.width(); x++) {
+                    if (grid.get(x, y) != AIR) {
+                        minX = Math.min(minX, x);
+                        maxX = Math.max(maxX, x);
                     }
                 }
-                System.out.print("\n");
             }
+            minX = minX < 5 ? 0 : minX - 5;
+            var sb = new StringBuilder();
+            for (int y = 0; y < grid.height(); y++) {
+                sb.append('\n');
+                for (int x = minX; x <= maxX; x++) {
+                    sb.append(objects[grid.get(x, y)].symbol);
+                }
+            }
+            return sb.toString();
         }
-    }
-
-    public static void main(String[] args) throws Exception {
-        List<StonePath> paths = parsePaths();
-
-        System.out.println("Original input:");
-        System.out.println(input);
 
-        System.out.println("\nReconstructed input from parsed data:");
-        for (StonePath path : paths) {
-            System.out.println(path);
+        @Override
+        public void close() {
+            grid.close();
         }
+    }
 
-        part1(paths);
-
-        part2(paths);
+    public static void main(String[] args) throws Exception {
+        Launcher.main(new String[] {"14"});
     }
 
     // You realize you misread the scan. There isn't an endless void at the bottom of the scan - there's floor, and you're standing on it!
@@ -265,21 +256,23 @@ class Day14 {
     // #########################
     // 
     // Using your scan, simulate the falling sand until the source of the sand becomes blocked. How many units of sand come to rest?
-    private static void part2(List<StonePath> paths) {
-        Cave cave = new Cave(paths);
-        cave.print();
-
-        int sandCount = 0;
-        Coordinate sandPosition;
-        while ((sandPosition = cave.simulateSand(true)) != null) {
-            cave.addCaveObject(sandPosition.x(), sandPosition.y(), CaveObject.SAND);
-            // cave.print();
-            sandCount++;
+    @Override
+    public Integer part2(List<StonePath> paths) {
+        try (var cave = new Cave(paths)) {
+            Trace.event("day14.cave", cave::render);
+
+            int sandCount = 0;
+            Coordinate sandPosition;
+            while ((sandPosition = cave.simulateSand(true)) != null) {
+                cave.addCaveObject(sandPosition.x(), sandPosition.y(), CaveObject.SAND);
+                // cave.print();
+                sandCount++;
+            }
+            SAND_UNITS.add(sandCount);
+            var units = sandCount;
+            Trace.event("day14.cave", () -> "Cave representation after " + units + " units of sand:" + cave.render());
+            return sandCount;
         }
-        // Display the cave
-        System.out.println("\nCave representation after " + sandCount + " units of sand:");
-        cave.print();
-        System.out.println("Total sand units: " + sandCount);
     }
 
     // The distress signal leads you to a giant waterfall! Actually, hang on - the signal seems like it's coming from the waterfall itself, and that doesn't make any sense. However, you do notice a little path that leads behind the waterfall.
@@ -402,58 +395,92 @@ class Day14 {
     // ~..........
     // 
     // Using your scan, simulate the falling sand. How many units of sand come to rest before sand starts flowing into the abyss below?
-    private static void part1(List<StonePath> paths) {
-        Cave cave = new Cave(paths);
-        cave.print();
-        int sandCount = 0;
-        Coordinate sandPosition;
-        while ((sandPosition = cave.simulateSand(false)) != null) {
-            cave.addCaveObject(sandPosition.x(), sandPosition.y(), CaveObject.SAND);
-            // cave.print();
-            sandCount++;
+    @Override
+    public Integer part1(List<StonePath> paths) {
+        try (var cave = new Cave(paths)) {
+            Trace.event("day14.cave", cave::render);
+            int sandCount = 0;
+            Coordinate sandPosition;
+            while ((sandPosition = cave.simulateSand(false)) != null) {
+                cave.addCaveObject(sandPosition.x(), sandPosition.y(), CaveObject.SAND);
+                // cave.print();
+                sandCount++;
+            }
+            SAND_UNITS.add(sandCount);
+            var units = sandCount;
+            Trace.event("day14.cave", () -> "Cave representation after " + units + " units of sand:" + cave.render());
+            return sandCount;
         }
-        // Display the cave
-        System.out.println("\nCave representation after " + sandCount + " units of sand:");
-        cave.print();
-        System.out.println("Total sand units: " + sandCount);
     }
 
-    private static List<StonePath> parsePaths() throws Exception {
+    @Override
+    public List<StonePath> parse(Input input) {
         List<StonePath> paths = new ArrayList<>();
 
-        // List<String> lines = Arrays.asList(input.trim().split("\n"));
-        List<String> lines = Files.readAllLines(java.nio.file.Path.of(Day14.class.getResource("/14.txt").toURI()));
-
-        for (String line : lines) {
-            paths.add(parseLine(line));
+        var cursor = input.cursor();
+        cursor.skipBlankLines();
+        while (cursor.hasRemaining()) {
+            paths.add(parsePath(cursor));
+            cursor.expectLineEnd();
+            cursor.skipBlankLines();
         }
 
         return paths;
     }
 
-    private static StonePath parseLine(String line) {
-        String[] coordinatePairs = line.split(" -> ");
-
+    private static StonePath parsePath(InputCursor cursor) {
         List<Coordinate> coordinates = new ArrayList<>();
 
-        for (String pair : coordinatePairs) {
-            String[] values = pair.split(",");
+        do {
+            int x = cursor.nextInt();
+            cursor.expect(',');
+            int y = cursor.nextInt();
 
-            if (values.length != 2) {
-                throw new IllegalArgumentException("Invalid coordinate pair: " + pair);
-            }
+            coordinates.add(new Coordinate(x, y));
+        } while (cursor.skip(" -> "));
+
+        return new StonePath(coordinates);
+    }
 
-            try {
-                int x = Integer.parseInt(values[0]);
-                int y = Integer.parseInt(values[1]);
+    @Override
+    public BinaryCodec<List<StonePath>> codec() {
+        return new Codec();
+    }
 
-                coordinates.add(new Coordinate(x, y));
-            } catch (NumberFormatException e) {
-                throw new IllegalArgumentException("Invalid coordinate value in pair: " + pair, e);
+    // The number of coordinates of every path, followed by x and y of all coordinates.
+    private static final class Codec implements BinaryCodec<List<StonePath>> {
+
+        @Override
+        public void write(List<StonePath> paths, DataOutput out) throws IOException {
+            out.writeInt(paths.size());
+            for (var path : paths) {
+                out.writeInt(path.coordinates().size());
+            }
+            for (var path : paths) {
+                for (var coordinate : path.coordinates()) {
+                    out.writeInt(coordinate.x());
+                    out.writeInt(coordinate.y());
+                }
             }
         }
 
-        return new StonePath(coordinates);
+        @Override
+        public List<StonePath> read(ByteBuffer in) {
+            var lengths = new int[in.getInt()];
+            in.asIntBuffer().get(lengths);
+            in.position(in.position() + lengths.length * Integer.BYTES);
+            var values = new int[in.remaining() / Integer.BYTES];
+            in.asIntBuffer().get(values);
+            var paths = new ArrayList<StonePath>(lengths.length);
+            var i = 0;
+            for (var length : lengths) {
+                var coordinates = new ArrayList<Coordinate>(length);
+                for (int c = 0; c < length; c++, i += 2) {
+                    coordinates.add(new Coordinate(values[i], values[i + 1]));
+                }
+                paths.add(new StonePath(coordinates));
+            }
+            return paths;
+        }
     }
-
 }
@@ -1,15 +1,22 @@
 
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
-class Day15 {
+import aoc.Launcher;
+import aoc.Solver;
+import aoc.cache.BinaryCodec;
+import aoc.input.Input;
+import aoc.report.Trace;
+import aoc.simd.Kernels;
+
+public class Day15 implements Solver<List<Day15.Sensor>> {
 
     private static final String input = """
 Sensor at x=2, y=18: closest beacon is at x=-2, y=15
@@ -46,23 +53,29 @@ Sensor at x=20, y=1: closest beacon is at x=15, y=3""";
 
     }
 
-    private static boolean isInOtherSensorRange(List<Sensor> sensors, Sensor currentSensor, Position position) {
-        for (Sensor sensor : sensors) {
-            if (sensor.equals(currentSensor)) {
-                continue;
-            }
-            int distance = sensor.position().manhattanDistance(position);
-            if (distance <= sensor.distanceToSensor) {
-                return true;
+    // The sensors as a structure of arrays for Kernels.anyWithinManhattan, which checks all of them at once.
+    private record SensorRanges(int[] xs, int[] ys, int[] radii) {
+
+        static SensorRanges of(List<Sensor> sensors) {
+            var ranges = new SensorRanges(new int[sensors.size()], new int[sensors.size()], new int[sensors.size()]);
+            for (int i = 0; i < sensors.size(); i++) {
+                var sensor = sensors.get(i);
+                ranges.xs[i] = sensor.position().x();
+                ranges.ys[i] = sensor.position().y();
+                ranges.radii[i] = sensor.distanceToSensor();
             }
+            return ranges;
+        }
+
+        // The points that scanOutsideOfSensorRange checks are just outside of the range of the sensor it scans, so
+        // that sensor does not need to be left out.
+        boolean contains(int x, int y) {
+            return Kernels.anyWithinManhattan(xs, ys, radii, x, y);
         }
-        return false;
     }
 
     public static void main(String[] args) throws Exception {
-        var sensors = parse();
-        part1(sensors);
-        part2(sensors);
+        Launcher.main(new String[] {"15"});
     }
 
     // Your handheld device indicates that the distress signal is coming from a beacon nearby. The distress beacon is not detected by any sensor, but the distress beacon must have x and y coordinates each no lower than 0 and no larger than 4000000.
@@ -72,29 +85,32 @@ Sensor at x=20, y=1: closest beacon is at x=15, y=3""";
     // In the example above, the search space is smaller: instead, the x and y coordinates can each be at most 20. With this reduced search area, there is only a single position that could have a beacon: x=14, y=11. The tuning frequency for this distress beacon is 56000011.
     // 
     // Find the only possible position for the distress beacon. What is its tuning frequency?
-    private static void part2(List<Sensor> sensors) throws IllegalStateException {
+    @Override
+    public Long part2(List<Sensor> sensors) throws IllegalStateException {
         var maxY = 4_000_000;
+        var ranges = SensorRanges.of(sensors);
         for (var sensor : sensors) {
-            System.out.println("Checking sensor " + sensor.position());
+            Trace.event("day15.sensor", () -> "Checking sensor " + sensor.position());
             if (sensor.position().y() < 0) {
                 throw new IllegalStateException("Can only handle sensor below search area");
             }
             var minY = sensor.position.y() + -1 * sensor.distanceToSensor;
             if (minY > maxY) {
-                System.out.println("Sensor doesn't cover search area");
+                Trace.event("day15.sensor", () -> "Sensor doesn't cover search area");
                 // Sensor doesn't cover search area
                 continue;
             }
-            var ret = scanOutsideOfSensorRange(Math.max(0, minY), maxY, sensor, sensors);
+            var ret = scanOutsideOfSensorRange(Math.max(0, minY), maxY, sensor, ranges);
             if (ret != null) {
-                System.out.println("Found solution at " + ret);
-                System.out.println("Tuning frequency: " + ((long) ret.x() * 4_000_000 + ret.y()));
-                break;
+                Trace.event("day15.solution", () -> "Found solution at " + ret);
+                return (long) ret.x() * 4_000_000 + ret.y();
             }
         }
+        return -1L;
     }
 
-    private static Position scanOutsideOfSensorRange(int rangeStart, int rangeEnd, Sensor sensor, List<Sensor> sensors) throws IllegalStateException {
+    private static Position scanOutsideOfSensorRange(int rangeStart, int rangeEnd, Sensor sensor, SensorRanges ranges)
+            throws IllegalStateException {
         if (rangeStart > rangeEnd) {
             throw new IllegalArgumentException("minY must not be greater than maxY");
         }
@@ -107,10 +123,10 @@ Sensor at x=20, y=1: closest beacon is at x=15, y=3""";
             var right = (sensor.position.x() + (diff + 1));
             var left = (sensor.position.x() - (diff + 1));
 
-            if (right >= 0 && right <= rangeEnd && !isInOtherSensorRange(sensors, sensor, new Position(right, y))) {
+            if (right >= 0 && right <= rangeEnd && !ranges.contains(right, y)) {
                 return new Position(right, y);
             }
-            if (left >= 0 && left <= rangeEnd && !isInOtherSensorRange(sensors, sensor, new Position(left, y))) {
+            if (left >= 0 && left <= rangeEnd && !ranges.contains(left, y)) {
                 return new Position(left, y);
             }
         }
@@ -215,11 +231,61 @@ Sensor at x=20, y=1: closest beacon is at x=15, y=3""";
     // In this example, in the row where y=10, there are 26 positions where a beacon cannot be present.
     // 
     // Consult the report from the sensors you just deployed. In the row where y=2000000, how many positions cannot contain a beacon?
-    private static void part1(List<Sensor> sensors) {
+    @Override
+    public Integer part1(List<Sensor> sensors) {
         var yTarget = 10;
         Set<Integer> positions = getCoverage(sensors, yTarget);
         positions.removeAll(sensors.stream().map(s -> s.closestBeacon().position().x()).collect(Collectors.toSet()));
-        System.out.println(positions.size());
+        return positions.size();
+    }
+
+    // Part 1 as a sweep over the intervals that the sensors cover on the row, instead of a set of every covered
+    // position. aoc.check.Engine registers it, so that DifferentialChecker compares it with part1 above.
+    static final class IntervalSweep implements Solver<List<Sensor>> {
+
+        @Override
+        public List<Sensor> parse(Input input) {
+            return new Day15().parse(input);
+        }
+
+        @Override
+        public Integer part1(List<Sensor> sensors) {
+            var yTarget = 10;
+            // start << 32 | end, which sorts by start
+            var intervals = new long[sensors.size()];
+            var count = 0;
+            for (var sensor : sensors) {
+                var diff = sensor.distanceToSensor() - Math.abs(sensor.position().y() - yTarget);
+                if (diff >= 0) {
+                    var x = sensor.position().x();
+                    intervals[count++] = (long) (x - diff) << 32 | ((x + diff) & 0xFFFFFFFFL);
+                }
+            }
+            Arrays.sort(intervals, 0, count);
+            // Like part1, the positions of all beacons are excluded, not only of those on the row.
+            var beacons = sensors.stream().mapToInt(s -> s.closestBeacon().position().x())
+                    .distinct()
+                    .sorted()
+                    .toArray();
+            long covered = 0;
+            var beacon = 0;
+            for (int i = 0; i < count; ) {
+                var start = (int) (intervals[i] >> 32);
+                var end = (int) intervals[i];
+                for (i++; i < count && (int) (intervals[i] >> 32) <= end + 1; i++) {
+                    end = Math.max(end, (int) intervals[i]);
+                }
+                covered += (long) end - start + 1;
+                while (beacon < beacons.length && beacons[beacon] < start) {
+                    beacon++;
+                }
+                while (beacon < beacons.length && beacons[beacon] <= end) {
+                    covered--;
+                    beacon++;
+                }
+            }
+            return (int) covered;
+        }
     }
 
     private static Set<Integer> getCoverage(List<Sensor> sensors, int yTarget) {
@@ -242,31 +308,63 @@ Sensor at x=20, y=1: closest beacon is at x=15, y=3""";
         return positions;
     }
 
-    public static List<Sensor> parse() throws Exception {
+    @Override
+    public List<Sensor> parse(Input input) {
         List<Sensor> sensors = new ArrayList<>();
-        Pattern pattern = Pattern.compile(
-                "Sensor at x=(-?\\d+), y=(-?\\d+): closest beacon is at x=(-?\\d+), y=(-?\\d+)"
-        );
-
-        // var lines = input.split("\n");
-        var lines = Files.readAllLines(Path.of(Day15.class.getResource("/15.txt").toURI()));
-
-        for (String line : lines) {
-            Matcher matcher = pattern.matcher(line);
-            if (matcher.find()) {
-                int sensorX = Integer.parseInt(matcher.group(1));
-                int sensorY = Integer.parseInt(matcher.group(2));
-                int beaconX = Integer.parseInt(matcher.group(3));
-                int beaconY = Integer.parseInt(matcher.group(4));
-
-                Position sensorPos = new Position(sensorX, sensorY);
-                Position beaconPos = new Position(beaconX, beaconY);
-                Beacon beacon = new Beacon(beaconPos);
-
-                sensors.add(Sensor.of(sensorPos, beacon));
-            }
+
+        var cursor = input.cursor();
+        cursor.skipBlankLines();
+        while (cursor.hasRemaining()) {
+            cursor.expect("Sensor at x=");
+            int sensorX = cursor.nextInt();
+            cursor.expect(", y=");
+            int sensorY = cursor.nextInt();
+            cursor.expect(": closest beacon is at x=");
+            int beaconX = cursor.nextInt();
+            cursor.expect(", y=");
+            int beaconY = cursor.nextInt();
+            cursor.expectLineEnd();
+            cursor.skipBlankLines();
+
+            Position sensorPos = new Position(sensorX, sensorY);
+            Position beaconPos = new Position(beaconX, beaconY);
+            Beacon beacon = new Beacon(beaconPos);
+
+            sensors.add(Sensor.of(sensorPos, beacon));
         }
 
         return sensors;
     }
+
+    @Override
+    public BinaryCodec<List<Sensor>> codec() {
+        return new Codec();
+    }
+
+    // x and y of every sensor and its beacon. The distance between them is computed again when reading.
+    private static final class Codec implements BinaryCodec<List<Sensor>> {
+
+        @Override
+        public void write(List<Sensor> sensors, DataOutput out) throws IOException {
+            out.writeInt(sensors.size());
+            for (var sensor : sensors) {
+                out.writeInt(sensor.position().x());
+                out.writeInt(sensor.position().y());
+                out.writeInt(sensor.closestBeacon().position().x());
+                out.writeInt(sensor.closestBeacon().position().y());
+            }
+        }
+
+        @Override
+        public List<Sensor> read(ByteBuffer in) {
+            var values = new int[in.getInt() * 4];
+            in.asIntBuffer().get(values);
+            var sensors = new ArrayList<Sensor>(values.length / 4);
+            for (int i = 0; i < values.length; i += 4) {
+                var beacon = new Beacon(new Position(values[i + 2], values[i + 3]));
+                sensors.add(Sensor.of(new Position(values[i], values[i + 1]), beacon));
+            }
+            return sensors;
+        }
+    }
 }
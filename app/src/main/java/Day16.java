@@ -1,21 +1,28 @@
 
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.util.AbstractMap;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
-class Day16 {
+import aoc.Launcher;
+import aoc.Solver;
+import aoc.cache.BinaryCodec;
+import aoc.input.Input;
+import aoc.instrument.Counter;
+import aoc.report.Trace;
+import aoc.search.AdjacencyGraph;
+import aoc.search.GraphSearch;
+
+public class Day16 implements Solver<Map<String, Day16.Valve>> {
+
+    private static final Counter STATES = Counter.register("day16.states", "Search states expanded");
 
     private static String input = """
 Valve AA has flow rate=0; tunnels lead to valves DD, II, BB
@@ -30,17 +37,61 @@ Valve II has flow rate=0; tunnels lead to valves AA, JJ
 Valve JJ has flow rate=21; tunnel leads to valve II""";
 
     public static void main(String[] args) throws Exception {
-        List<Valve> valves = parseLines();
-        for (Valve valve : valves) {
-            System.out.println(valve);
-        }
+        Launcher.main(new String[] {"16"});
+    }
 
-        Map<String, Valve> labelToValve = valves.stream()
+    @Override
+    public Map<String, Valve> parse(Input input) {
+        return parseLines(input).stream()
                 .collect(Collectors.toMap(Valve::getLabel, v -> v));
+    }
 
-        part1(labelToValve);
-        part2(labelToValve);
+    @Override
+    public BinaryCodec<Map<String, Valve>> codec() {
+        return new Codec();
+    }
+
+    // The valves in input order, every one with its label, flow rate and the indices of its neighbors.
+    private static final class Codec implements BinaryCodec<Map<String, Valve>> {
 
+        @Override
+        public void write(Map<String, Valve> valves, DataOutput out) throws IOException {
+            var ordered = new Valve[valves.size()];
+            for (var valve : valves.values()) {
+                ordered[valve.index] = valve;
+            }
+            out.writeInt(ordered.length);
+            for (var valve : ordered) {
+                BinaryCodec.writeString(out, valve.label);
+                out.writeInt(valve.flowRate);
+                out.writeInt(valve.neighbors.size());
+                for (var neighbor : valve.neighbors) {
+                    out.writeInt(neighbor.index);
+                }
+            }
+        }
+
+        @Override
+        public Map<String, Valve> read(ByteBuffer in) {
+            var count = in.getInt();
+            var valves = new Valve[count];
+            var neighbors = new int[count][];
+            for (int i = 0; i < count; i++) {
+                var label = BinaryCodec.readString(in);
+                valves[i] = new Valve(i, in.getInt(), label);
+                neighbors[i] = new int[in.getInt()];
+                in.asIntBuffer().get(neighbors[i]);
+                in.position(in.position() + neighbors[i].length * Integer.BYTES);
+            }
+            var labelToValve = new HashMap<String, Valve>(count * 2);
+            for (int i = 0; i < count; i++) {
+                for (var neighbor : neighbors[i]) {
+                    valves[i].addNeighbor(valves[neighbor]);
+                }
+                labelToValve.put(valves[i].label, valves[i]);
+            }
+            return labelToValve;
+        }
     }
 
     // The sensors have led you to the origin of the distress signal: yet another handheld device, just like the one the Elves gave you. However, you don't see any Elves around; instead, the device is surrounded by elephants! They must have gotten lost in these tunnels, and one of the elephants apparently figured out how to turn on the distress signal.
@@ -187,8 +238,10 @@ Valve JJ has flow rate=21; tunnel leads to valve II""";
     // This approach lets you release the most pressure possible in 30 minutes with this valve layout, 1651.
     // 
     // Work out the steps to release the most pressure in 30 minutes. What is the most pressure you can release?
-    private static void part1(Map<String, Valve> labelToValve) {
-        ActorState root = new ActorState(30, labelToValve.get("AA"), null);
+    @Override
+    public Integer part1(Map<String, Valve> labelToValve) {
+        var distances = new Distances(labelToValve.values());
+        ActorState root = new ActorState(30, labelToValve.get("AA"), null, 0);
 
         var queue = new ArrayDeque<ActorState>();
         queue.add(root);
@@ -197,31 +250,16 @@ Valve JJ has flow rate=21; tunnel leads to valve II""";
 
         while (!queue.isEmpty()) {
             var node = queue.poll();
+            STATES.increment();
             var valve = node.valve;
             var openedValves = node.openedValves;
             var remainingMinutes = node.remainingMinutes;
-            var candidateQueue = new ArrayDeque<Map.Entry<Valve, Integer>>();
-            candidateQueue.add(new AbstractMap.SimpleEntry<>(valve, 0));
-            var visitedValves = new HashSet<Valve>();
-            var valveToDistance = new HashMap<Valve, Integer>();
-            while (!candidateQueue.isEmpty()) {
-                var currentEntry = candidateQueue.poll();
-                var currentValve = currentEntry.getKey();
-                var distance = currentEntry.getValue();
-                if (!openedValves.contains(currentValve) && currentValve.flowRate > 0 && (remainingMinutes - distance) > 0) {
-                    valveToDistance.put(currentValve, distance);
-                }
-                visitedValves.add(currentValve);
-                for (Valve neighbor : currentValve.neighbors) {
-                    if (!visitedValves.contains(neighbor)) {
-                        candidateQueue.add(new AbstractMap.SimpleEntry<>(neighbor, distance + 1));
-                    }
-                }
-            }
+            var valveToDistance = distances.candidates(valve, openedValves, remainingMinutes);
 
             for (Valve nextValveCandidates : valveToDistance.keySet()) {
                 var distanceToValve = valveToDistance.get(nextValveCandidates);
-                ActorState newNode = new ActorState((remainingMinutes - (distanceToValve + 1)), nextValveCandidates, node);
+                ActorState newNode = new ActorState((remainingMinutes - (distanceToValve + 1)), nextValveCandidates, node,
+                        distances.bit(nextValveCandidates));
                 if (newNode.totalPressureRelease > maxPressure.totalPressureRelease) {
                     maxPressure = newNode;
                 }
@@ -230,29 +268,67 @@ Valve JJ has flow rate=21; tunnel leads to valve II""";
             }
         }
 
-        System.out.println(maxPressure + ": " + maxPressure.totalPressureRelease + ", remainingMinutes" + maxPressure.remainingMinutes);
+        var best = maxPressure;
+        Trace.event("day16.best", () -> best + ": " + best.totalPressureRelease + ", remainingMinutes" + best.remainingMinutes);
+        return maxPressure.totalPressureRelease;
     }
 
-    private static Map<Valve, Integer> calculateDistance(Valve valve, Set<Valve> openedValves, int remainingMinutes) {
-        var candidateQueue = new ArrayDeque<Map.Entry<Valve, Integer>>();
-        candidateQueue.add(new AbstractMap.SimpleEntry<>(valve, 0));
-        var visitedValves = new HashSet<Valve>();
-        var valveToDistance = new HashMap<Valve, Integer>();
-        while (!candidateQueue.isEmpty()) {
-            var currentEntry = candidateQueue.poll();
-            var currentValve = currentEntry.getKey();
-            var distance = currentEntry.getValue();
-            if (!openedValves.contains(currentValve) && currentValve.flowRate > 0 && (remainingMinutes - distance) > 0) {
-                valveToDistance.put(currentValve, distance);
+    // The length of the shortest tunnel path between every pair of valves, one BFS per valve. Also numbers the valves
+    // with a flow rate, so that a search state keeps the valves it opened in one long.
+    private static final class Distances {
+
+        private final Valve[] valves;
+        private final int[][] distance;
+        private final long[] bits;
+
+        Distances(Collection<Valve> all) {
+            valves = new Valve[all.size()];
+            for (var valve : all) {
+                valves[valve.index] = valve;
+            }
+            var neighbors = new int[valves.length][];
+            for (var valve : valves) {
+                neighbors[valve.index] = valve.neighbors.stream().mapToInt(neighbor -> neighbor.index).toArray();
+            }
+            var tunnels = AdjacencyGraph.of(neighbors);
+            var search = new GraphSearch(valves.length);
+            distance = new int[valves.length][valves.length];
+            for (var valve : valves) {
+                search.bfs(tunnels, valve.index, GraphSearch.NO_TARGET);
+                for (int other = 0; other < valves.length; other++) {
+                    distance[valve.index][other] = search.distance(other);
+                }
+            }
+            bits = new long[valves.length];
+            var flowing = 0;
+            for (var valve : valves) {
+                if (valve.flowRate > 0) {
+                    if (flowing == Long.SIZE) {
+                        throw new IllegalArgumentException("More than " + Long.SIZE + " valves have a flow rate");
+                    }
+                    bits[valve.index] = 1L << flowing++;
+                }
             }
-            visitedValves.add(currentValve);
-            for (Valve neighbor : currentValve.neighbors) {
-                if (!visitedValves.contains(neighbor)) {
-                    candidateQueue.add(new AbstractMap.SimpleEntry<>(neighbor, distance + 1));
+        }
+
+        long bit(Valve valve) {
+            return bits[valve.index];
+        }
+
+        // The closed valves with a flow rate that can be reached and opened in the remaining time, with their distance.
+        Map<Valve, Integer> candidates(Valve valve, long openedValves, int remainingMinutes) {
+            var valveToDistance = new HashMap<Valve, Integer>();
+            var row = distance[valve.index];
+            for (var candidate : valves) {
+                var steps = row[candidate.index];
+                if (steps != GraphSearch.UNREACHED && (openedValves & bits[candidate.index]) == 0
+                        && candidate.flowRate > 0
+                        && (remainingMinutes - steps) > 0) {
+                    valveToDistance.put(candidate, steps);
                 }
             }
+            return valveToDistance;
         }
-        return valveToDistance;
     }
 
     // You're worried that even with an optimal approach, the pressure released won't be enough. What if you got one of the elephants to help you?
@@ -332,10 +408,12 @@ Valve JJ has flow rate=21; tunnel leads to valve II""";
     // With the elephant helping, after 26 minutes, the best you could do would release a total of 1707 pressure.
     // 
     // With you and an elephant working together for 26 minutes, what is the most pressure you could release?
-    private static void part2(Map<String, Valve> labelToValve) {
+    @Override
+    public Integer part2(Map<String, Valve> labelToValve) {
+        var distances = new Distances(labelToValve.values());
         TeamState root = new TeamState(
-                new ActorState(26, labelToValve.get("AA"), null),
-                new ActorState(26, labelToValve.get("AA"), null),
+                new ActorState(26, labelToValve.get("AA"), null, 0),
+                new ActorState(26, labelToValve.get("AA"), null, 0),
                 null
         );
 
@@ -346,16 +424,18 @@ Valve JJ has flow rate=21; tunnel leads to valve II""";
 
         while (!queue.isEmpty()) {
             var node = queue.poll();
+            STATES.increment();
             if (node.totalPressureRelease > maxPressure.totalPressureRelease) {
                 maxPressure = node;
             }
             var valve = node.nextActor.valve;
             var remainingMinutes = node.nextActor.remainingMinutes;
-            var valveToDistance = calculateDistance(valve, node.openedValves, remainingMinutes);
+            var valveToDistance = distances.candidates(valve, node.openedValves, remainingMinutes);
 
             for (var nextValve : valveToDistance.keySet()) {
                 var distance = valveToDistance.get(nextValve);
-                var newNode = new ActorState((remainingMinutes - (distance + 1)), nextValve, node.nextActor);
+                var newNode = new ActorState((remainingMinutes - (distance + 1)), nextValve, node.nextActor,
+                        distances.bit(nextValve));
                 TeamState decisionTreePart2 = new TeamState(node.nextActor == node.self ? newNode : node.self, node.nextActor == node.elephant ? newNode : node.elephant, node);
                 if (decisionTreePart2.totalPressureRelease + 500 > maxPressure.totalPressureRelease) {
                     // Prune trees that lack to far behind
@@ -364,7 +444,9 @@ Valve JJ has flow rate=21; tunnel leads to valve II""";
             }
 
         }
-        System.out.println(maxPressure + ": " + maxPressure.totalPressureRelease);
+        var best = maxPressure;
+        Trace.event("day16.best", () -> best + ": " + best.totalPressureRelease);
+        return maxPressure.totalPressureRelease;
     }
 
     private static class TeamState {
@@ -373,15 +455,13 @@ Valve JJ has flow rate=21; tunnel leads to valve II""";
         private int totalPressureRelease = 0;
         private final ActorState self;
         private final ActorState elephant;
-        private final Set<Valve> openedValves;
+        private final long openedValves;
 
         public TeamState(ActorState self, ActorState elephant, TeamState parent) {
             this.self = self;
             this.elephant = elephant;
 
-            this.openedValves = new HashSet<>();
-            this.openedValves.addAll(self.openedValves);
-            this.openedValves.addAll(elephant.openedValves);
+            this.openedValves = self.openedValves | elephant.openedValves;
 
             // Find the next actor
             this.nextActor = this.self.remainingMinutes > this.elephant.remainingMinutes ? this.self : this.elephant;
@@ -403,24 +483,24 @@ Valve JJ has flow rate=21; tunnel leads to valve II""";
         private final Valve valve;
         private int totalPressureRelease = 0;
         private final ActorState parent;
-        private final Set<Valve> openedValves;
+        // The bits of Distances for the valves opened so far.
+        private final long openedValves;
 
-        public ActorState(int remainingMinutes, Valve valve, ActorState parent) {
+        public ActorState(int remainingMinutes, Valve valve, ActorState parent, long valveBit) {
             this.remainingMinutes = remainingMinutes;
             this.valve = valve;
             this.parent = parent;
 
             if (parent != null) {
-                this.openedValves = new HashSet<>(parent.openedValves);
-                if (this.openedValves.contains(valve)) {
+                if ((parent.openedValves & valveBit) != 0) {
                     throw new IllegalStateException("Cannot not open valve " + valve + " again.");
                 }
-                this.openedValves.add(valve);
+                this.openedValves = parent.openedValves | valveBit;
                 var pressureRelease = parent.totalPressureRelease;
                 pressureRelease += this.remainingMinutes * valve.flowRate;
                 this.totalPressureRelease = pressureRelease;
             } else {
-                this.openedValves = new HashSet<>();
+                this.openedValves = 0;
             }
 
         }
@@ -439,31 +519,46 @@ Valve JJ has flow rate=21; tunnel leads to valve II""";
 
     }
 
-    private static List<Valve> parseLines() throws Exception {
+    private static List<Valve> parseLines(Input input) {
         List<Valve> valves = new ArrayList<>();
+        Map<String, Valve> labelToValve = new HashMap<>();
         Map<Valve, List<String>> neighborMap = new HashMap<>();
 
-        Pattern pattern = Pattern.compile("Valve (\\w+) has flow rate=(\\d+); tunnels? leads? to valves? (.+)");
-        // String[] lines = input.split("\n");
-        var lines = Files.readAllLines(Path.of(Day16.class.getResource("/16.txt").toURI()));
-
-        for (String line : lines) {
-            Matcher matcher = pattern.matcher(line);
-            if (matcher.find()) {
-                String label = matcher.group(1);
-                int flowRate = Integer.parseInt(matcher.group(2));
-                String[] neighborLabels = matcher.group(3).split(", ");
-
-                Valve valve = new Valve(flowRate, label);
-                valves.add(valve);
-                neighborMap.put(valve, Arrays.asList(neighborLabels));
-            }
+        var cursor = input.cursor();
+        cursor.skipBlankLines();
+        while (cursor.hasRemaining()) {
+            cursor.expect("Valve ");
+            String label = cursor.nextWord();
+            cursor.expect(" has flow rate=");
+            int flowRate = cursor.nextInt();
+            // "tunnel leads to valve" for a single neighbor, "tunnels lead to valves" otherwise.
+            cursor.expect("; tunnel");
+            cursor.skip('s');
+            cursor.expect(" lead");
+            cursor.skip('s');
+            cursor.expect(" to valve");
+            cursor.skip('s');
+            cursor.expect(' ');
+            List<String> neighborLabels = new ArrayList<>();
+            do {
+                neighborLabels.add(cursor.nextWord());
+            } while (cursor.skip(", "));
+            cursor.expectLineEnd();
+            cursor.skipBlankLines();
+
+            Valve valve = new Valve(valves.size(), flowRate, label);
+            valves.add(valve);
+            labelToValve.put(label, valve);
+            neighborMap.put(valve, neighborLabels);
         }
 
         // Link neighbors
         for (Valve valve : valves) {
             for (String neighborLabel : neighborMap.get(valve)) {
-                var neighbor = valves.stream().filter(v -> v.label.equals(neighborLabel)).findFirst().get();
+                var neighbor = labelToValve.get(neighborLabel);
+                if (neighbor == null) {
+                    throw new IllegalArgumentException("Valve " + valve.label + " leads to unknown valve " + neighborLabel);
+                }
                 valve.addNeighbor(neighbor);
             }
         }
@@ -473,11 +568,14 @@ Valve JJ has flow rate=21; tunnel leads to valve II""";
 
     static class Valve {
 
+        // Position in the input, the node id in the tunnel graph
+        private final int index;
         private final String label;
         private final int flowRate;
         private final List<Valve> neighbors;
 
-        public Valve(int flowRate, String label) {
+        public Valve(int index, int flowRate, String label) {
+            this.index = index;
             this.flowRate = flowRate;
             this.label = label;
             this.neighbors = new ArrayList<>();
@@ -1,13 +1,26 @@
 
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.util.Arrays;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
 
-class Day17 {
+import aoc.Launcher;
+import aoc.Solver;
+import aoc.cache.BinaryCodec;
+import aoc.checkpoint.Checkpoint;
+import aoc.grid.ByteGrid;
+import aoc.input.Input;
+import aoc.instrument.Counter;
+import aoc.instrument.Gauge;
+import aoc.report.Trace;
 
-    private static enum Direction {
+public class Day17 implements Solver<List<Day17.Direction>> {
+
+    static enum Direction {
         LEFT,
         RIGHT,
         DOWN;
@@ -26,10 +39,43 @@ class Day17 {
         }
     }
 
-    public static List<Direction> parseJetPattern() throws Exception {
-        // var line = ">>><<><>><<<>><>>><<<>>><<<><<<>><>><<>>";
-        var line = Files.readString(Path.of(Day17.class.getResource("/17.txt").toURI())).trim();
-        return line.chars().mapToObj(Direction::of).toList();
+    @Override
+    public List<Direction> parse(Input input) {
+        // var input = Input.of(">>><<><>><<<>><>>><<<>>><<<><<<>><>><<>>");
+        var cursor = input.cursor();
+        cursor.skipBlankLines();
+        var jets = new ArrayList<Direction>(cursor.lineLength());
+        while (!cursor.atLineEnd()) {
+            jets.add(Direction.of(cursor.next()));
+        }
+        return jets;
+    }
+
+    @Override
+    public BinaryCodec<List<Direction>> codec() {
+        return new Codec();
+    }
+
+    // One byte per jet, the ordinal of its direction.
+    private static final class Codec implements BinaryCodec<List<Direction>> {
+
+        @Override
+        public void write(List<Direction> jets, DataOutput out) throws IOException {
+            out.writeInt(jets.size());
+            for (var jet : jets) {
+                out.writeByte(jet.ordinal());
+            }
+        }
+
+        @Override
+        public List<Direction> read(ByteBuffer in) {
+            var directions = Direction.values();
+            var jets = new ArrayList<Direction>(in.getInt());
+            while (in.hasRemaining()) {
+                jets.add(directions[in.get()]);
+            }
+            return jets;
+        }
     }
 
     private static class Position {
@@ -70,25 +116,28 @@ class Day17 {
         WEST;
     }
 
-    private static class Tower {
+    // The top of the tower, one byte per cell in a ByteGrid, so that the view is one block of memory instead of a
+    // million row arrays and compacting it is a single copy.
+    private static class Tower implements AutoCloseable {
 
         private static final int VIEW_SIZE = 1_000_000;
-        private final boolean[][] view = new boolean[VIEW_SIZE][7];
+        private static final byte ROCK = 1;
+        private final ByteGrid view = new ByteGrid(7, VIEW_SIZE);
         private long reductions = 0;
         private int maxY = 0;
 
         public Tower() {
-            Arrays.fill(view[0], true);
+            view.fillRows(0, 1, ROCK);
         }
 
         public void addPositions(Position[] newPositions) {
             for (int i = 0; i < newPositions.length; i++) {
                 var pos = newPositions[i];
                 maxY = Math.max(pos.y, maxY);
-                if (view[pos.y][pos.x]) {
+                if (contains(pos.x, pos.y)) {
                     throw new IllegalArgumentException("Should not happen");
                 }
-                view[pos.y][pos.x] = true;
+                view.set(pos.x, pos.y, ROCK);
             }
             if (maxY >= (VIEW_SIZE - 100)) {
                 this.compact();
@@ -96,7 +145,7 @@ class Day17 {
         }
 
         public boolean contains(int x, int y) {
-            return view[y][x];
+            return view.get(x, y) != 0;
         }
 
         private void compact() {
@@ -114,8 +163,8 @@ class Day17 {
                         if (pos.x == 6) {
                             throw new IllegalStateException("Should not happen");
                         }
-                        var wall = view[pos.y + 1][pos.x];
-                        var gap = !view[pos.y + 1][pos.x + 1];
+                        var wall = contains(pos.x, pos.y + 1);
+                        var gap = !contains(pos.x + 1, pos.y + 1);
                         if (wall) {
                             orientation = Orientation.WEST;
                         } else if (gap) {
@@ -132,8 +181,8 @@ class Day17 {
                         if (pos.x == 6) {
                             throw new IllegalStateException("Should not happen");
                         }
-                        var wall = view[pos.y][pos.x + 1];
-                        var gap = !view[pos.y - 1][pos.x + 1];
+                        var wall = contains(pos.x + 1, pos.y);
+                        var gap = !contains(pos.x + 1, pos.y - 1);
                         if (wall) {
                             orientation = Orientation.NORTH;
                         } else if (gap) {
@@ -147,9 +196,9 @@ class Day17 {
                         }
                     }
                     case SOUTH -> {
-                        var wall = view[pos.y - 1][pos.x];
+                        var wall = contains(pos.x, pos.y - 1);
                         // Walking along left wall. Don't check for gaps
-                        var gap = pos.x >= 1 && !view[pos.y - 1][pos.x - 1];
+                        var gap = pos.x >= 1 && !contains(pos.x - 1, pos.y - 1);
                         if (wall) {
                             orientation = Orientation.EAST;
                         } else if (gap) {
@@ -162,8 +211,8 @@ class Day17 {
                     }
                     case WEST -> {
                         // Facing left wall or stone
-                        var wall = pos.x == 0 || view[pos.y][pos.x - 1];
-                        var gap = !view[pos.y + 1][pos.x - 1];
+                        var wall = pos.x == 0 || contains(pos.x - 1, pos.y);
+                        var gap = !contains(pos.x - 1, pos.y + 1);
                         if (wall) {
                             orientation = Orientation.SOUTH;
                         } else if (gap) {
@@ -181,37 +230,65 @@ class Day17 {
             minY -= 1;
 
             if (minY > 0) {
-                // print();
+                // The tower as it is before the rows below the surface are dropped.
+                Trace.event("day17.tower", this::render);
                 var numberOfRowsToKeep = (maxY + 1) - minY;
-                // System.out.println("Compacting " + minY);
-                for (int i = 0; i < view.length; i++) {
-                    if (i <= numberOfRowsToKeep) {
-                        System.arraycopy(view[i + minY], 0, view[i], 0, view[i + minY].length);
-                    } else {
-                        Arrays.fill(view[i], false);
-                    }
-                }
+                var dropped = minY;
+                Trace.event("day17.compact", () -> "Compacting " + dropped);
+                view.copyRows(minY, 0, numberOfRowsToKeep + 1);
+                view.fillRows(numberOfRowsToKeep + 1, VIEW_SIZE - numberOfRowsToKeep - 1, (byte) 0);
 
                 this.maxY = maxY - minY;
                 reductions += minY;
+                COMPACTIONS.increment();
             }
         }
 
-        private void print() {
-            System.out.println("""
+        private String render() {
+            var sb = new StringBuilder("""
+
                                            ----------------------------------------------
                                            ----------------------------------------------
                                            """);
             for (var y = maxY + 20; y >= 0; y--) {
-                var row = view[y];
-                System.out.print("|");
-                for (int i = 0; i < row.length; i++) {
-                    System.out.print(row[i] ? (String) "#" : ".");
+                sb.append('|');
+                for (int x = 0; x < view.width(); x++) {
+                    sb.append(contains(x, y) ? '#' : '.');
                 }
-                System.out.print("|\n");
+                sb.append("|\n");
             }
+            return sb.toString();
         }
 
+        // The rows up to maxY, one byte per row with a bit per column. The rows above are empty.
+        void write(DataOutput out) throws IOException {
+            out.writeLong(reductions);
+            out.writeInt(maxY);
+            for (int y = 0; y <= maxY; y++) {
+                var row = 0;
+                for (int x = 0; x < view.width(); x++) {
+                    row |= view.get(x, y) << x;
+                }
+                out.writeByte(row);
+            }
+        }
+
+        void read(DataInput in) throws IOException {
+            reductions = in.readLong();
+            maxY = in.readInt();
+            view.fill((byte) 0);
+            for (int y = 0; y <= maxY; y++) {
+                var row = in.readUnsignedByte();
+                for (int x = 0; x < view.width(); x++) {
+                    view.set(x, y, (byte) (row >>> x & 1));
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            view.close();
+        }
     }
 
     private static abstract class Rock {
@@ -820,10 +897,59 @@ class Day17 {
     // 
     // How tall will the tower be after 1000000000000 rocks have stopped?
     public static void main(String[] args) throws Exception {
-        var tower = new Tower();
-        var numberOfRocks = 0l;
-        var jetDirections = parseJetPattern();
-        var numberOfJets = 0;
+        Launcher.main(new String[] {"17"});
+    }
+
+    @Override
+    public Long part1(List<Direction> jetDirections) {
+        return simulate(jetDirections, 2022);
+    }
+
+    @Override
+    public Long part2(List<Direction> jetDirections) {
+        return simulate(jetDirections, 1_000_000_000_000L);
+    }
+
+    private static final long PROGRESS_EVERY = 10_000_000L;
+    // Every this many rocks the counters and the progress gauge are updated and a checkpoint is saved if one is due.
+    private static final long SAMPLE_MASK = (1 << 16) - 1;
+    private static final int CHECKPOINT_VERSION = 1;
+
+    private record Progress(long rocks, int jets) {
+    }
+
+    private static final Counter ROCKS = Counter.register("day17.rocks", "Rocks dropped");
+    private static final Counter JETS = Counter.register("day17.jets", "Jet pushes");
+    private static final Counter COMPACTIONS = Counter.register("day17.compactions", "Tower view compactions");
+    private static final Gauge PROGRESS = Gauge.register("day17.progress", "Fraction of the rocks dropped");
+
+    static long simulate(List<Direction> jetDirections, long totalNumberOfRocks) {
+        try (var tower = new Tower()) {
+            return simulate(tower, jetDirections, totalNumberOfRocks);
+        }
+    }
+
+    // Checkpoints are taken between two rocks, when the tower, the number of rocks and the next jet are the whole
+    // state.
+    private static long simulate(Tower tower, List<Direction> jetDirections, long totalNumberOfRocks) {
+        var checkpoint = Checkpoint.open("day17", CHECKPOINT_VERSION, out -> {
+            out.writeLong(totalNumberOfRocks);
+            for (var jet : jetDirections) {
+                out.writeByte(jet.ordinal());
+            }
+        });
+        var resumed = checkpoint.resume(in -> {
+            var progress = new Progress(in.readLong(), in.readInt());
+            tower.read(in);
+            return progress;
+        });
+        var numberOfRocks = resumed == null ? 0L : resumed.rocks();
+        var numberOfJets = resumed == null ? 0 : resumed.jets();
+        // Cheaper than numberOfRocks % PROGRESS_EVERY for every rock.
+        var nextProgress = (numberOfRocks + PROGRESS_EVERY - 1) / PROGRESS_EVERY * PROGRESS_EVERY;
+        // Added to the counters at every sample, part 2 does not end.
+        var countedRocks = numberOfRocks;
+        var jets = 0L;
 
         Rock[] rockShapes = new Rock[]{
             new HorizontalRock(tower),
@@ -834,21 +960,47 @@ class Day17 {
         };
 
         // Unfortunately too slow for 1_000_000_000 iterations. This requires a different solution
-        while (numberOfRocks < 1_000_000_000_000f) {
+        while (numberOfRocks < totalNumberOfRocks) {
             var rock = rockShapes[(int) (numberOfRocks % 5)];
             rock.reset();
             var atRest = false;
-            if (numberOfRocks % 10_000_000L == 0) {
-                System.out.println("Progress: " + (numberOfRocks / 1_000_000_000_000f) * 100 + " %");
+            if (numberOfRocks == nextProgress) {
+                nextProgress += PROGRESS_EVERY;
+                var rocks = numberOfRocks;
+                Trace.event("day17.progress", () -> "Progress: " + ((float) rocks / totalNumberOfRocks) * 100 + " %");
+            }
+            if ((numberOfRocks & SAMPLE_MASK) == 0) {
+                ROCKS.add(numberOfRocks - countedRocks);
+                countedRocks = numberOfRocks;
+                JETS.add(jets);
+                jets = 0;
+                PROGRESS.set((double) numberOfRocks / totalNumberOfRocks);
+                // The SolverDaemon interrupts the jobs it gave up on, part 2 would not end otherwise.
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new CancellationException("Interrupted after " + numberOfRocks + " rocks");
+                }
+                if (checkpoint.due()) {
+                    var progress = new Progress(numberOfRocks, numberOfJets);
+                    checkpoint.save(out -> {
+                        out.writeLong(progress.rocks());
+                        out.writeInt(progress.jets());
+                        tower.write(out);
+                    });
+                }
             }
             while (!atRest) {
                 var jetDirection = jetDirections.get(numberOfJets);
                 numberOfJets = (numberOfJets + 1) % jetDirections.size();
                 rock.move(jetDirection);
+                jets++;
                 atRest = rock.move(Direction.DOWN);
             }
             numberOfRocks += 1;
         }
-        System.out.println(tower.maxY + tower.reductions);
+        ROCKS.add(numberOfRocks - countedRocks);
+        JETS.add(jets);
+        PROGRESS.set(1);
+        checkpoint.finish();
+        return tower.maxY + tower.reductions;
     }
 }
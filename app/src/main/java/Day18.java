@@ -1,35 +1,42 @@
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.util.ArrayDeque;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
-public class Day18 {
+import aoc.Launcher;
+import aoc.Solver;
+import aoc.cache.BinaryCodec;
+import aoc.grid.BitGrid3;
+import aoc.grid.Neighbors;
+import aoc.input.Input;
+import aoc.instrument.Counter;
+import aoc.search.GraphSearch;
+import aoc.search.IntGraph;
+import aoc.simd.Kernels;
 
-    public record Coordinate(int x, int y, int z) {
-        public static List<Coordinate> parseInput(String input) {
-            return input.lines()
-                    .map(line -> {
-                        String[] parts = line.trim().split(",");
-                        return new Coordinate(
-                                Integer.parseInt(parts[0]),
-                                Integer.parseInt(parts[1]),
-                                Integer.parseInt(parts[2]));
-                    })
-                    .collect(Collectors.toList());
-        }
+public class Day18 implements Solver<List<Day18.Coordinate>> {
 
-        public List<Coordinate> getAdjacent() {
-            return List.of(
-                    new Coordinate(x + 1, y, z),
-                    new Coordinate(x - 1, y, z),
-                    new Coordinate(x, y + 1, z),
-                    new Coordinate(x, y - 1, z),
-                    new Coordinate(x, y, z + 1),
-                    new Coordinate(x, y, z - 1));
+    private static final Counter STEAM_CELLS = Counter.register("day18.steamCells", "Cells reached by the flood fill");
+
+    public record Coordinate(int x, int y, int z) {
+        public static List<Coordinate> parseInput(Input input) {
+            var coordinates = new ArrayList<Coordinate>();
+            var cursor = input.cursor();
+            cursor.skipBlankLines();
+            while (cursor.hasRemaining()) {
+                cursor.skipSpaces();
+                int x = cursor.nextInt();
+                cursor.expect(',');
+                int y = cursor.nextInt();
+                cursor.expect(',');
+                int z = cursor.nextInt();
+                cursor.skipSpaces();
+                cursor.expectLineEnd();
+                cursor.skipBlankLines();
+                coordinates.add(new Coordinate(x, y, z));
+            }
+            return coordinates;
         }
     }
 
@@ -113,82 +120,214 @@ public class Day18 {
     // What is the exterior surface area of your scanned lava droplet?
 
     public static void main(String[] args) throws Exception {
-        // var coords = Coordinate.parseInput(input);
-        var coords = Coordinate.parseInput(Files.readString(Path.of(Day18.class.getResource("/18.txt").toURI())));
-        Map<Coordinate, Integer> openSides = new HashMap<>();
+        Launcher.main(new String[] {"18"});
+    }
 
-        for (Coordinate coord : coords) {
-            if (openSides.containsKey(coord)) {
-                throw new IllegalArgumentException("Should not happen");
+    @Override
+    public List<Coordinate> parse(Input input) {
+        return Coordinate.parseInput(input);
+    }
+
+    @Override
+    public BinaryCodec<List<Coordinate>> codec() {
+        return new Codec();
+    }
+
+    // x, y and z of every cube.
+    private static final class Codec implements BinaryCodec<List<Coordinate>> {
+
+        @Override
+        public void write(List<Coordinate> coords, DataOutput out) throws IOException {
+            out.writeInt(coords.size());
+            for (var c : coords) {
+                out.writeInt(c.x);
+                out.writeInt(c.y);
+                out.writeInt(c.z);
+            }
+        }
+
+        @Override
+        public List<Coordinate> read(ByteBuffer in) {
+            var values = new int[in.getInt() * 3];
+            in.asIntBuffer().get(values);
+            var coords = new ArrayList<Coordinate>(values.length / 3);
+            for (int i = 0; i < values.length; i += 3) {
+                coords.add(new Coordinate(values[i], values[i + 1], values[i + 2]));
             }
-            openSides.put(coord, 6);
-            for (var neighbor : coord.getAdjacent()) {
-                if (openSides.containsKey(neighbor)) {
-                    openSides.computeIfPresent(coord, (_, i) -> i - 1);
-                    openSides.computeIfPresent(neighbor, (_, i) -> i - 1);
+            return coords;
+        }
+    }
+
+    @Override
+    public Integer part1(List<Coordinate> coords) {
+        var columns = Columns.of(coords);
+        if (columns != null) {
+            return (int) columns.openSides();
+        }
+        try (var droplet = droplet(coords)) {
+            var openSides = 0;
+            for (var c : coords) {
+                for (int d = 0; d < Neighbors.DX6.length; d++) {
+                    if (!droplet.get(c.x + Neighbors.DX6[d], c.y + Neighbors.DY6[d], c.z + Neighbors.DZ6[d])) {
+                        openSides++;
+                    }
                 }
             }
+            return openSides;
         }
+    }
 
-        var totalSurfaceArea = openSides.values().stream().mapToInt(i -> i).sum();
-        System.out.println(totalSurfaceArea);
+    @Override
+    public Integer part2(List<Coordinate> coords) {
+        try (var droplet = droplet(coords)) {
+            // Find the bounds of the space
+            int minX = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE;
+            int minY = Integer.MAX_VALUE, maxY = Integer.MIN_VALUE;
+            int minZ = Integer.MAX_VALUE, maxZ = Integer.MIN_VALUE;
 
-        // Find the bounds of the space
-        int minX = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE;
-        int minY = Integer.MAX_VALUE, maxY = Integer.MIN_VALUE;
-        int minZ = Integer.MAX_VALUE, maxZ = Integer.MIN_VALUE;
+            for (Coordinate c : coords) {
+                minX = Math.min(minX, c.x);
+                maxX = Math.max(maxX, c.x);
+                minY = Math.min(minY, c.y);
+                maxY = Math.max(maxY, c.y);
+                minZ = Math.min(minZ, c.z);
+                maxZ = Math.max(maxZ, c.z);
+            }
 
-        for (Coordinate c : openSides.keySet()) {
-            minX = Math.min(minX, c.x);
-            maxX = Math.max(maxX, c.x);
-            minY = Math.min(minY, c.y);
-            maxY = Math.max(maxY, c.y);
-            minZ = Math.min(minZ, c.z);
-            maxZ = Math.max(maxZ, c.z);
+            // Expand bounds by 1 to ensure we can "go around" the lava droplet
+            minX--;
+            maxX++;
+            minY--;
+            maxY++;
+            minZ--;
+            maxZ++;
+
+            // Flood fill the steam from a corner outside the lava droplet. Every side of the droplet that the steam
+            // touches is on the outside.
+            var steam = new Steam(droplet, minX, minY, minZ, maxX - minX + 1, maxY - minY + 1, maxZ - minZ + 1);
+            var search = new GraphSearch(steam.nodeCount());
+            search.bfs(steam, steam.index(minX, minY, minZ), GraphSearch.NO_TARGET);
+            STEAM_CELLS.add(search.settledCount());
+            var exteriorSides = 0;
+            for (int i = 0; i < search.settledCount(); i++) {
+                exteriorSides += steam.dropletSides(search.settledNode(i));
+            }
+
+            return exteriorSides;
+        }
+    }
+
+    // The cells of the box around the droplet that steam can be in, edges lead to the neighboring cells that are not
+    // part of the droplet. Nodes are numbered like the cells of a BitGrid3.
+    private record Steam(BitGrid3 droplet, int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ)
+            implements IntGraph {
+
+        int index(int x, int y, int z) {
+            return ((x - minX) * sizeY + (y - minY)) * sizeZ + (z - minZ);
         }
 
-        // Expand bounds by 1 to ensure we can "go around" the lava droplet
-        minX--;
-        maxX++;
-        minY--;
-        maxY++;
-        minZ--;
-        maxZ++;
-
-        // Start flood fill from a corner outside the lava droplet
-        Coordinate start = new Coordinate(minX, minY, minZ);
-        var queue = new ArrayDeque<Coordinate>();
-        queue.add(start);
-        var visited = new HashSet<Coordinate>();
-
-        while (!queue.isEmpty()) {
-            var current = queue.poll();
-
-            if (visited.contains(current)) {
-                continue;
+        int dropletSides(int node) {
+            var x = minX + node / (sizeY * sizeZ);
+            var y = minY + node / sizeZ % sizeY;
+            var z = minZ + node % sizeZ;
+            var sides = 0;
+            for (int d = 0; d < Neighbors.DX6.length; d++) {
+                if (droplet.get(x + Neighbors.DX6[d], y + Neighbors.DY6[d], z + Neighbors.DZ6[d])) {
+                    sides++;
+                }
             }
+            return sides;
+        }
 
-            visited.add(current);
+        @Override
+        public int nodeCount() {
+            return sizeX * sizeY * sizeZ;
+        }
 
-            for (var neighbor : current.getAdjacent()) {
-                // Skip if out of bounds
-                if (neighbor.x < minX || neighbor.x > maxX ||
-                        neighbor.y < minY || neighbor.y > maxY ||
-                        neighbor.z < minZ || neighbor.z > maxZ) {
-                    continue;
+        @Override
+        public void forEachEdge(int node, EdgeConsumer edges) {
+            var x = minX + node / (sizeY * sizeZ);
+            var y = minY + node / sizeZ % sizeY;
+            var z = minZ + node % sizeZ;
+            for (int d = 0; d < Neighbors.DX6.length; d++) {
+                var nx = x + Neighbors.DX6[d];
+                var ny = y + Neighbors.DY6[d];
+                var nz = z + Neighbors.DZ6[d];
+                if (nx >= minX && nx - minX < sizeX && ny >= minY && ny - minY < sizeY && nz >= minZ
+                        && nz - minZ < sizeZ && !droplet.get(nx, ny, nz)) {
+                    edges.edge(index(nx, ny, nz), 1);
                 }
+            }
+        }
+    }
 
-                if (openSides.containsKey(neighbor)) {
-                    openSides.computeIfPresent(neighbor, (_, i) -> i - 1);
-                } else if (!visited.contains(neighbor)) {
-                    queue.add(neighbor);
+    // The droplet as one long per (x, y) column with a bit per z, surrounded by empty columns and with a clear bit
+    // below and above every column. An open side is then a set bit whose neighbor bit, in the same column or in the
+    // next one along x or y, is clear, and Kernels counts those for all columns at once.
+    private record Columns(long[] bits, int stride) {
+
+        // null if the droplet is deeper than 62 cubes or there are too many columns.
+        static Columns of(List<Coordinate> coords) {
+            if (coords.isEmpty()) {
+                return null;
+            }
+            int minX = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE;
+            int minY = Integer.MAX_VALUE, maxY = Integer.MIN_VALUE;
+            int minZ = Integer.MAX_VALUE, maxZ = Integer.MIN_VALUE;
+            for (Coordinate c : coords) {
+                minX = Math.min(minX, c.x);
+                maxX = Math.max(maxX, c.x);
+                minY = Math.min(minY, c.y);
+                maxY = Math.max(maxY, c.y);
+                minZ = Math.min(minZ, c.z);
+                maxZ = Math.max(maxZ, c.z);
+            }
+            var stride = (long) maxY - minY + 3;
+            var count = ((long) maxX - minX + 3) * stride;
+            if ((long) maxZ - minZ + 3 > Long.SIZE || count > Integer.MAX_VALUE - 8) {
+                return null;
+            }
+            var bits = new long[(int) count];
+            for (Coordinate c : coords) {
+                var column = (int) ((c.x - minX + 1) * stride + (c.y - minY + 1));
+                var bit = 1L << (c.z - minZ + 1);
+                if ((bits[column] & bit) != 0) {
+                    throw new IllegalArgumentException("Should not happen");
                 }
+                bits[column] |= bit;
             }
+            return new Columns(bits, (int) stride);
+        }
 
+        long openSides() {
+            var n = bits.length;
+            return Kernels.countAndNotShifted(bits, 0, n, 1) + Kernels.countAndNotShifted(bits, 0, n, -1)
+                    + Kernels.countAndNot(bits, 0, bits, 1, n - 1) + Kernels.countAndNot(bits, 1, bits, 0, n - 1)
+                    + Kernels.countAndNot(bits, 0, bits, stride, n - stride)
+                    + Kernels.countAndNot(bits, stride, bits, 0, n - stride);
         }
+    }
 
-        var insideSurfaceArea = openSides.values().stream().mapToInt(i -> i).sum();
-        System.out.println(totalSurfaceArea - insideSurfaceArea);
+    private static BitGrid3 droplet(List<Coordinate> coords) {
+        int minX = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE;
+        int minY = Integer.MAX_VALUE, maxY = Integer.MIN_VALUE;
+        int minZ = Integer.MAX_VALUE, maxZ = Integer.MIN_VALUE;
+        for (Coordinate c : coords) {
+            minX = Math.min(minX, c.x);
+            maxX = Math.max(maxX, c.x);
+            minY = Math.min(minY, c.y);
+            maxY = Math.max(maxY, c.y);
+            minZ = Math.min(minZ, c.z);
+            maxZ = Math.max(maxZ, c.z);
+        }
+        var droplet = coords.isEmpty() ? new BitGrid3(0, 0, 0, 0, 0, 0)
+                : new BitGrid3(minX, minY, minZ, maxX - minX + 1, maxY - minY + 1, maxZ - minZ + 1);
+        for (Coordinate coord : coords) {
+            if (!droplet.set(coord.x, coord.y, coord.z)) {
+                throw new IllegalArgumentException("Should not happen");
+            }
+        }
+        return droplet;
     }
 
 }
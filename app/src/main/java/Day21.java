@@ -1,10 +1,17 @@
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.function.BiFunction;
 
-public class Day21 {
+import aoc.Launcher;
+import aoc.Solver;
+import aoc.cache.BinaryCodec;
+import aoc.input.Input;
+
+public class Day21 implements Solver<Map<String, Day21.Expression>> {
     private static String input = """
             root: pppw + sjmn
             dbpl: 5
@@ -24,39 +31,41 @@ public class Day21 {
             """;
 
     public static void main(String[] args) throws Exception {
-        var expressions = parseInput();
-        System.out.println(expressions.get("root").solve(expressions));
+        Launcher.main(new String[] {"21"});
+    }
+
+    @Override
+    public Long part1(Map<String, Expression> expressions) {
+        return expressions.get("root").solve(expressions);
     }
 
-    public static Map<String, Expression> parseInput() throws Exception {
+    @Override
+    public Map<String, Expression> parse(Input input) {
         Map<String, Expression> expressions = new HashMap<>();
 
-        // String[] lines = input.split("\n");
-        var lines = Files.readAllLines(Path.of(Day21.class.getResource("/21.txt").toURI()));
-        for (String line : lines) {
-            String[] parts = line.split(": ");
-            String label = parts[0];
-            String expressionStr = parts[1];
+        var cursor = input.cursor();
+        cursor.skipBlankLines();
+        while (cursor.hasRemaining()) {
+            cursor.skipSpaces();
+            String label = cursor.nextWord();
+            cursor.expect(": ");
 
             Expression expression;
-            if (expressionStr.matches("\\d+")) {
+            if (cursor.isDigit()) {
                 // Integer expression
-                expression = new NumberExpression(Integer.parseInt(expressionStr));
+                expression = new NumberExpression(cursor.nextInt());
             } else {
                 // Operation expression
-                String[] opParts = expressionStr.split(" ");
-                String op1 = opParts[0];
-                String operator = opParts[1];
-                String op2 = opParts[2];
-
-                expression = switch (operator) {
-                    case "+" -> OperatorExpression.plus(op1, op2);
-                    case "-" -> OperatorExpression.minus(op1, op2);
-                    case "*" -> OperatorExpression.multiply(op1, op2);
-                    case "/" -> OperatorExpression.divide(op1, op2);
-                    default -> throw new IllegalArgumentException("Unknown operator: " + operator);
-                };
+                String op1 = cursor.nextWord();
+                cursor.expect(' ');
+                var operator = (char) cursor.next();
+                cursor.expect(' ');
+                String op2 = cursor.nextWord();
+
+                expression = OperatorExpression.of(op1, operator, op2);
             }
+            cursor.expectLineEnd();
+            cursor.skipBlankLines();
 
             expressions.put(label, expression);
         }
@@ -64,6 +73,58 @@ public class Day21 {
         return expressions;
     }
 
+    @Override
+    public BinaryCodec<Map<String, Expression>> codec() {
+        return new Codec();
+    }
+
+    // The labels, then one entry per label: the opcode NUMBER and the value, or the operator and the indices of the
+    // labels of both operands.
+    private static final class Codec implements BinaryCodec<Map<String, Expression>> {
+
+        private static final byte NUMBER = 0;
+
+        @Override
+        public void write(Map<String, Expression> expressions, DataOutput out) throws IOException {
+            var labels = new ArrayList<>(expressions.keySet());
+            var indices = new HashMap<String, Integer>(labels.size() * 2);
+            out.writeInt(labels.size());
+            for (var label : labels) {
+                indices.put(label, indices.size());
+                BinaryCodec.writeString(out, label);
+            }
+            for (var label : labels) {
+                switch (expressions.get(label)) {
+                    case NumberExpression number -> {
+                        out.writeByte(NUMBER);
+                        out.writeLong(number.value);
+                    }
+                    case OperatorExpression operation -> {
+                        out.writeByte(operation.symbol);
+                        out.writeInt(indices.get(operation.op1));
+                        out.writeInt(indices.get(operation.op2));
+                    }
+                }
+            }
+        }
+
+        @Override
+        public Map<String, Expression> read(ByteBuffer in) {
+            var labels = new String[in.getInt()];
+            for (int i = 0; i < labels.length; i++) {
+                labels[i] = BinaryCodec.readString(in);
+            }
+            var expressions = new HashMap<String, Expression>(labels.length * 2);
+            for (var label : labels) {
+                var opcode = in.get();
+                expressions.put(label, opcode == NUMBER
+                        ? new NumberExpression(in.getLong())
+                        : OperatorExpression.of(labels[in.getInt()], (char) opcode, labels[in.getInt()]));
+            }
+            return expressions;
+        }
+    }
+
     public sealed interface Expression {
         long solve(Map<String, Expression> expressions);
     }
@@ -84,11 +145,13 @@ public class Day21 {
     public static final class OperatorExpression implements Expression {
         private final String op1;
         private final String op2;
+        private final char symbol;
         private final BiFunction<Long, Long, Long> operator;
 
-        public OperatorExpression(String op1, String op2, BiFunction<Long, Long, Long> operator) {
+        public OperatorExpression(String op1, String op2, char symbol, BiFunction<Long, Long, Long> operator) {
             this.op1 = op1;
             this.op2 = op2;
+            this.symbol = symbol;
             this.operator = operator;
         }
 
@@ -99,21 +162,31 @@ public class Day21 {
             return operator.apply(value1, value2);
         }
 
+        public static OperatorExpression of(String op1, char symbol, String op2) {
+            return switch (symbol) {
+                case '+' -> plus(op1, op2);
+                case '-' -> minus(op1, op2);
+                case '*' -> multiply(op1, op2);
+                case '/' -> divide(op1, op2);
+                default -> throw new IllegalArgumentException("Unknown operator: " + symbol);
+            };
+        }
+
         // Factory methods for common operations
         public static OperatorExpression plus(String op1, String op2) {
-            return new OperatorExpression(op1, op2, (a, b) -> a + b);
+            return new OperatorExpression(op1, op2, '+', (a, b) -> a + b);
         }
 
         public static OperatorExpression minus(String op1, String op2) {
-            return new OperatorExpression(op1, op2, (a, b) -> a - b);
+            return new OperatorExpression(op1, op2, '-', (a, b) -> a - b);
         }
 
         public static OperatorExpression multiply(String op1, String op2) {
-            return new OperatorExpression(op1, op2, (a, b) -> a * b);
+            return new OperatorExpression(op1, op2, '*', (a, b) -> a * b);
         }
 
         public static OperatorExpression divide(String op1, String op2) {
-            return new OperatorExpression(op1, op2, (a, b) -> a / b);
+            return new OperatorExpression(op1, op2, '/', (a, b) -> a / b);
         }
     }
 }
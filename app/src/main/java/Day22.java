@@ -1,11 +1,15 @@
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
-public class Day22 {
+import aoc.Launcher;
+import aoc.Solver;
+import aoc.grid.ByteGrid;
+import aoc.input.Input;
+import aoc.report.Trace;
+
+public class Day22 implements Solver<Day22.Game> {
 
     public static String input = """
                     ...#
@@ -35,11 +39,16 @@ public class Day22 {
     public record Movement(int numberOfSteps, Turn turn) {
     }
 
+    private static final byte VOID = (byte) GameElement.VOID.ordinal();
+    private static final byte WALL = (byte) GameElement.WALL.ordinal();
+    private static final byte OPEN = (byte) GameElement.OPEN.ordinal();
+
+    // The board is a dense grid of GameElement ordinals, x is the column and y the row. release frees it.
     public static class Game {
-        public GameElement[][] board;
+        public ByteGrid board;
         public List<Movement> movements;
 
-        public Game(GameElement[][] board, List<Movement> movements) {
+        public Game(ByteGrid board, List<Movement> movements) {
             this.board = board;
             this.movements = movements;
         }
@@ -49,9 +58,10 @@ public class Day22 {
             StringBuilder sb = new StringBuilder();
 
             // Convert board to string
-            for (GameElement[] row : board) {
-                for (GameElement element : row) {
-                    switch (element) {
+            var elements = GameElement.values();
+            for (int row = 0; row < board.height(); row++) {
+                for (int column = 0; column < board.width(); column++) {
+                    switch (elements[board.get(column, row)]) {
                         case OPEN:
                             sb.append('.');
                             break;
@@ -81,76 +91,61 @@ public class Day22 {
         }
     }
 
-    public static Game parseInput() throws Exception {
+    @Override
+    public Game parse(Input input) {
 
-        // String[] parts = input.split("\n\n");
-        String[] parts = Files.readString(Path.of(Day22.class.getResource("/22.txt").toURI())).split("\n\n");
-        String[] boardLines = parts[0].split("\n");
-        String directionsStr = parts[1].trim();
-
-        // Find the maximum width of the board
+        // Find the size of the board, which ends at the first blank line
+        var cursor = input.cursor();
+        int numberOfRows = 0;
         int maxWidth = 0;
-        for (String line : boardLines) {
-            maxWidth = Math.max(maxWidth, line.length());
+        while (!cursor.atLineEnd()) {
+            maxWidth = Math.max(maxWidth, cursor.lineLength());
+            numberOfRows++;
+            cursor.nextLine();
         }
 
-        // Initialize the board with VOID
-        GameElement[][] board = new GameElement[boardLines.length][maxWidth];
-        for (int i = 0; i < board.length; i++) {
-            for (int j = 0; j < board[i].length; j++) {
-                board[i][j] = GameElement.VOID;
-            }
-        }
-
-        // Fill the board with actual elements
-        for (int i = 0; i < boardLines.length; i++) {
-            String line = boardLines[i];
-            for (int j = 0; j < line.length(); j++) {
-                char c = line.charAt(j);
+        // Fill the board, everything beyond the end of a line is VOID
+        var board = new ByteGrid(maxWidth, numberOfRows);
+        cursor = input.cursor();
+        for (int i = 0; i < board.height(); i++) {
+            var lineLength = cursor.lineLength();
+            for (int j = 0; j < board.width(); j++) {
+                char c = j < lineLength ? (char) cursor.next() : ' ';
                 if (c == '.') {
-                    board[i][j] = GameElement.OPEN;
+                    board.set(j, i, OPEN);
                 } else if (c == '#') {
-                    board[i][j] = GameElement.WALL;
+                    board.set(j, i, WALL);
                 } else {
-                    board[i][j] = GameElement.VOID;
+                    board.set(j, i, VOID);
                 }
             }
+            cursor.nextLine();
         }
 
         // Parse directions
+        cursor.skipBlankLines();
         List<Movement> directions = new ArrayList<>();
-        StringBuilder number = new StringBuilder();
-
-        for (int i = 0; i < directionsStr.length(); i++) {
-            char c = directionsStr.charAt(i);
-            if (Character.isDigit(c)) {
-                number.append(c);
-            } else {
-                if (number.length() > 0) {
-                    int steps = Integer.parseInt(number.toString());
-                    Turn turn = null;
-                    if (c == 'R') {
-                        turn = Turn.CLOCKWISE;
-                    } else if (c == 'L') {
-                        turn = Turn.COUNTER_CLOCKWISE;
-                    } else {
-                        throw new IllegalStateException("Should not happen");
-                    }
-                    directions.add(new Movement(steps, turn));
-                    number = new StringBuilder();
-                }
+        while (cursor.isDigit()) {
+            int steps = cursor.nextInt();
+            Turn turn = null;
+            if (cursor.skip('R')) {
+                turn = Turn.CLOCKWISE;
+            } else if (cursor.skip('L')) {
+                turn = Turn.COUNTER_CLOCKWISE;
+            } else if (!cursor.atLineEnd()) {
+                throw new IllegalStateException("Should not happen");
             }
-        }
-
-        // Add the last number if there is one (without a turn)
-        if (number.length() > 0) {
-            int steps = Integer.parseInt(number.toString());
-            directions.add(new Movement(steps, null));
+            directions.add(new Movement(steps, turn));
         }
 
         return new Game(board, directions);
     }
 
+    @Override
+    public void release(Game game) {
+        game.board.close();
+    }
+
     public static enum Direction {
         RIGHT, LEFT, UP, DOWN
     }
@@ -178,11 +173,16 @@ public class Day22 {
     }
 
     public static void main(String[] args) throws Exception {
-        Game game = parseInput();
+        Launcher.main(new String[] {"22"});
+    }
+
+    @Override
+    public Integer part1(Game game) {
         var direction = Direction.RIGHT;
         var row = 0;
         var column = 0;
-        while (game.board[row][column] == GameElement.VOID) {
+        var board = game.board;
+        while (board.get(column, row) == VOID) {
             column++;
         }
 
@@ -197,19 +197,20 @@ public class Day22 {
 
                 do {
                     switch (direction) {
-                        case DOWN -> newRow = (newRow + 1) % game.board.length;
-                        case UP -> newRow = newRow == 0 ? game.board.length - 1 : newRow - 1;
-                        case RIGHT -> newColumn = (newColumn + 1) % game.board[newRow].length;
-                        case LEFT -> newColumn = newColumn == 0 ? game.board[newRow].length - 1 : newColumn - 1;
+                        case DOWN -> newRow = (newRow + 1) % board.height();
+                        case UP -> newRow = newRow == 0 ? board.height() - 1 : newRow - 1;
+                        case RIGHT -> newColumn = (newColumn + 1) % board.width();
+                        case LEFT -> newColumn = newColumn == 0 ? board.width() - 1 : newColumn - 1;
                     }
-                } while (game.board[newRow][newColumn] == GameElement.VOID);
+                } while (board.get(newColumn, newRow) == VOID);
 
-                if (game.board[newRow][newColumn] == GameElement.OPEN) {
+                var element = board.get(newColumn, newRow);
+                if (element == OPEN) {
                     column = newColumn;
                     row = newRow;
-                } else if (game.board[newRow][newColumn] == GameElement.WALL) {
+                } else if (element == WALL) {
                     break;
-                } else if (game.board[newRow][newColumn] == GameElement.VOID) {
+                } else if (element == VOID) {
                     throw new IllegalStateException("should not happen");
                 }
 
@@ -221,8 +222,8 @@ public class Day22 {
                 direction = turn(direction, movement.turn);
             }
         }
-        System.out.println((row + 1) + " " + (column + 1) + " " + direction);
-        System.out.println(((row + 1) * 1000) + (4 * (column + 1)));
-        // System.out.println(game.toString());
+        var position = (row + 1) + " " + (column + 1) + " " + direction;
+        Trace.event("day22.position", () -> position);
+        return ((row + 1) * 1000) + (4 * (column + 1));
     }
 }
@@ -1,14 +1,22 @@
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
-
-public class Day23 {
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import aoc.Launcher;
+import aoc.Solver;
+import aoc.cache.BinaryCodec;
+import aoc.checkpoint.Checkpoint;
+import aoc.grid.Coordinates;
+import aoc.grid.LongHashSet;
+import aoc.grid.LongIntMap;
+import aoc.grid.Neighbors;
+import aoc.input.Input;
+import aoc.instrument.Counter;
+import aoc.report.Trace;
+
+// The elves are their positions, packed with Coordinates.pack. The index in the array identifies the elf.
+public class Day23 implements Solver<long[]> {
     private static final String input = """
                 ..............
                 ..............
@@ -24,151 +32,212 @@ public class Day23 {
                 ..............
             """;
 
-    record Position(int x, int y) {
-    }
+    private static final int CHECKPOINT_VERSION = 1;
 
-    private static final Direction[] DIRECTION_ORDER = { Direction.NORTH, Direction.SOUTH, Direction.WEST,
-            Direction.EAST };
-
-    enum Direction {
-        NORTH {
-            @Override
-            public List<Position> getAdjacentPositions(Position position) {
-                return List.of(
-                        new Position(position.x() - 1, position.y() - 1),
-                        new Position(position.x(), position.y() - 1),
-                        new Position(position.x() + 1, position.y() - 1));
-            }
-        },
-        SOUTH {
-            @Override
-            public List<Position> getAdjacentPositions(Position position) {
-                return List.of(
-                        new Position(position.x() - 1, position.y() + 1),
-                        new Position(position.x(), position.y() + 1),
-                        new Position(position.x() + 1, position.y() + 1));
-            }
-        },
-        EAST {
-            @Override
-            public List<Position> getAdjacentPositions(Position position) {
-                return List.of(
-                        new Position(position.x() + 1, position.y() - 1),
-                        new Position(position.x() + 1, position.y()),
-                        new Position(position.x() + 1, position.y() + 1));
-            }
-        },
-        WEST {
-            @Override
-            public List<Position> getAdjacentPositions(Position position) {
-                return List.of(
-                        new Position(position.x() - 1, position.y() - 1),
-                        new Position(position.x() - 1, position.y()),
-                        new Position(position.x() - 1, position.y() + 1));
-            }
-        };
+    private static final Counter ROUNDS = Counter.register("day23.rounds", "Rounds simulated");
+    private static final Counter MOVING_ELVES = Counter.register("day23.movingElves",
+            "Elves with a neighbor, summed over the rounds");
+
+    // North, south, west and east, in the order the elves consider them in the first round. Each direction lists the
+    // three cells that must be free, the middle one is where the elf moves to.
+    private static final int[][] DIRECTION_DX = {{-1, 0, 1}, {-1, 0, 1}, {-1, -1, -1}, {1, 1, 1}};
+    private static final int[][] DIRECTION_DY = {{-1, -1, -1}, {1, 1, 1}, {-1, 0, 1}, {-1, 0, 1}};
 
-        public abstract List<Position> getAdjacentPositions(Position position);
+    public static void main(String[] args) throws Exception {
+        Launcher.main(new String[] {"23"});
     }
 
-    record Elf(int id) {
+    @Override
+    public Integer part1(long[] elves) {
+        var positions = elves.clone();
+        simulate(positions, 10);
+        return countEmptyGroundTiles(positions);
     }
 
-    public static void main(String[] args) throws Exception {
-        var elves = parseInput();
-        print(elves);
-
-        var round = 0;
-        while (true) {
-            Map<Position, List<Elf>> newPositions = new HashMap<>();
-            Map<Position, Elf> posToElf = elves.entrySet().stream()
-                    .collect(Collectors.toMap(e -> e.getValue(), e -> e.getKey()));
+    @Override
+    public Integer part2(long[] elves) {
+        var positions = elves.clone();
+        return simulate(positions, Integer.MAX_VALUE) + 1;
+    }
+
+    // Moves the elves in place until either no elf has a neighbor or maxRounds rounds were played.
+    // Returns the number of rounds in which at least one elf had to move.
+    static int simulate(long[] elves, int maxRounds) {
+        var checkpoint = checkpoint(elves, maxRounds);
+        var resumed = checkpoint.resume(in -> {
+            var round = in.readInt();
+            for (int elf = 0; elf < elves.length; elf++) {
+                elves[elf] = in.readLong();
+            }
+            return round;
+        });
+        // Reused in every round, clearing them does not allocate.
+        var occupied = new LongHashSet(elves.length);
+        var proposals = new LongIntMap(elves.length);
+        var targets = new long[elves.length];
+        var round = resumed == null ? 0 : resumed;
+        while (round < maxRounds) {
+            if (checkpoint.due()) {
+                save(checkpoint, round, elves);
+            }
+            occupied.clear();
+            for (var elf : elves) {
+                occupied.add(elf);
+            }
+            proposals.clear();
             int numberOfMovingElfs = 0;
-            for (Elf elf : elves.keySet()) {
-                Position elfPos = elves.get(elf);
-                boolean hasAnyNeighbors = Stream.of(
-                        new Position(elfPos.x() - 1, elfPos.y() - 1), new Position(elfPos.x(), elfPos.y() - 1),
-                        new Position(elfPos.x() + 1, elfPos.y() - 1),
-                        new Position(elfPos.x() - 1, elfPos.y()), new Position(elfPos.x() + 1, elfPos.y()),
-                        new Position(elfPos.x() - 1, elfPos.y() + 1), new Position(elfPos.x(), elfPos.y() + 1),
-                        new Position(elfPos.x() + 1, elfPos.y() + 1)).anyMatch(pos -> posToElf.containsKey(pos));
-
-                if (!hasAnyNeighbors) {
+            for (int elf = 0; elf < elves.length; elf++) {
+                var x = Coordinates.x(elves[elf]);
+                var y = Coordinates.y(elves[elf]);
+                targets[elf] = elves[elf];
+                if (!hasAnyNeighbor(occupied, x, y)) {
                     continue; // Skip this elf - it doesn't need to move
                 }
                 numberOfMovingElfs++;
                 for (var i = 0; i < 4; i++) {
-                    var directionIndex = (round + i) % 4;
-                    var direction = DIRECTION_ORDER[directionIndex];
-                    var positions = direction.getAdjacentPositions(elves.get(elf));
-                    boolean isMovePossible = positions.stream().allMatch(pos -> !posToElf.containsKey(pos));
-                    if (isMovePossible) {
-                        var nextPos = positions.get(1);
-                        newPositions.computeIfAbsent(nextPos, _ -> new ArrayList<>()).add(elf);
+                    var direction = (round + i) % 4;
+                    if (isFree(occupied, x, y, direction)) {
+                        var target = Coordinates.pack(x + DIRECTION_DX[direction][1], y + DIRECTION_DY[direction][1]);
+                        targets[elf] = target;
+                        proposals.addTo(target, 1);
                         break;
                     }
                 }
             }
+            ROUNDS.increment();
+            MOVING_ELVES.add(numberOfMovingElfs);
             if (numberOfMovingElfs == 0) {
                 break;
             }
-            for (var pos : newPositions.keySet()) {
-                var elfsAtPos = newPositions.get(pos);
-                if (elfsAtPos.size() == 1) {
-                    elves.put(elfsAtPos.get(0), pos);
+            for (int elf = 0; elf < elves.length; elf++) {
+                if (targets[elf] != elves[elf] && proposals.get(targets[elf], 0) == 1) {
+                    elves[elf] = targets[elf];
                 }
             }
-            System.out.println("----------------------------");
-            print(elves);
+            Trace.event("day23.round", () -> render(elves));
             round++;
         }
-        int emptyGroundTiles = countEmptyGroundTiles(elves);
-        System.out.println("Empty ground tiles: " + emptyGroundTiles);
-        System.out.println("Rounds: " + round);
+        checkpoint.finish();
+        return round;
     }
 
-    static int countEmptyGroundTiles(Map<Elf, Position> elves) {
-        Set<Position> positions = elves.values().stream().collect(Collectors.toSet());
-        int minX = elves.values().stream().mapToInt(Position::x).min().getAsInt();
-        int maxX = elves.values().stream().mapToInt(Position::x).max().getAsInt();
-        int minY = elves.values().stream().mapToInt(Position::y).min().getAsInt();
-        int maxY = elves.values().stream().mapToInt(Position::y).max().getAsInt();
+    // The checkpoint of a run from these elves. Checkpoints are taken between two rounds, when the elves and the number
+    // of the round are the whole state.
+    static Checkpoint checkpoint(long[] elves, int maxRounds) {
+        return Checkpoint.open("day23", CHECKPOINT_VERSION, out -> {
+            out.writeInt(maxRounds);
+            for (var elf : elves) {
+                out.writeLong(elf);
+            }
+        });
+    }
 
-        int totalTiles = (maxX - minX + 1) * (maxY - minY + 1);
-        int occupiedTiles = positions.size();
-        return totalTiles - occupiedTiles;
+    static void save(Checkpoint checkpoint, int round, long[] elves) {
+        checkpoint.save(out -> {
+            out.writeInt(round);
+            for (var elf : elves) {
+                out.writeLong(elf);
+            }
+        });
+    }
+
+    private static boolean hasAnyNeighbor(LongHashSet occupied, int x, int y) {
+        for (int d = 0; d < Neighbors.DX8.length; d++) {
+            if (occupied.contains(Coordinates.pack(x + Neighbors.DX8[d], y + Neighbors.DY8[d]))) {
+                return true;
+            }
+        }
+        return false;
     }
 
-    static Map<Elf, Position> parseInput() throws Exception {
-        Map<Elf, Position> elves = new HashMap<>();
-        // String[] lines = input.split("\n");
-        String[] lines = Files.readAllLines(Path.of(Day23.class.getResource("/23.txt").toURI()))
-                .toArray(new String[] {});
-        int elfId = 0;
-
-        for (int y = 0; y < lines.length; y++) {
-            String line = lines[y];
-            for (int x = 0; x < line.length(); x++) {
-                if (line.charAt(x) == '#') {
-                    elves.put(new Elf(elfId++), new Position(x, y));
+    private static boolean isFree(LongHashSet occupied, int x, int y, int direction) {
+        for (int i = 0; i < 3; i++) {
+            if (occupied.contains(Coordinates.pack(x + DIRECTION_DX[direction][i], y + DIRECTION_DY[direction][i]))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static int countEmptyGroundTiles(long[] elves) {
+        var bounds = bounds(elves);
+        int totalTiles = (bounds[1] - bounds[0] + 1) * (bounds[3] - bounds[2] + 1);
+        // No two elves share a position.
+        return totalTiles - elves.length;
+    }
+
+    // minX, maxX, minY, maxY
+    private static int[] bounds(long[] elves) {
+        int minX = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE;
+        int minY = Integer.MAX_VALUE, maxY = Integer.MIN_VALUE;
+        for (var elf : elves) {
+            minX = Math.min(minX, Coordinates.x(elf));
+            maxX = Math.max(maxX, Coordinates.x(elf));
+            minY = Math.min(minY, Coordinates.y(elf));
+            maxY = Math.max(maxY, Coordinates.y(elf));
+        }
+        return new int[] {minX, maxX, minY, maxY};
+    }
+
+    @Override
+    public long[] parse(Input input) {
+        var elves = new long[64];
+        var numberOfElves = 0;
+        var cursor = input.cursor();
+
+        for (int y = 0; cursor.hasRemaining(); y++) {
+            var lineLength = cursor.lineLength();
+            for (int x = 0; x < lineLength; x++) {
+                if (cursor.next() == '#') {
+                    if (numberOfElves == elves.length) {
+                        elves = Arrays.copyOf(elves, elves.length * 2);
+                    }
+                    elves[numberOfElves++] = Coordinates.pack(x, y);
                 }
             }
+            cursor.nextLine();
         }
-        return elves;
+        return Arrays.copyOf(elves, numberOfElves);
     }
 
-    static void print(Map<Elf, Position> elves) {
-        Set<Position> positions = elves.values().stream().collect(Collectors.toSet());
-        int minX = elves.values().stream().mapToInt(Position::x).min().getAsInt();
-        int maxX = elves.values().stream().mapToInt(Position::x).max().getAsInt();
-        int minY = elves.values().stream().mapToInt(Position::y).min().getAsInt();
-        int maxY = elves.values().stream().mapToInt(Position::y).max().getAsInt();
+    @Override
+    public BinaryCodec<long[]> codec() {
+        return new Codec();
+    }
+
+    // The packed positions of the elves.
+    private static final class Codec implements BinaryCodec<long[]> {
+
+        @Override
+        public void write(long[] elves, DataOutput out) throws IOException {
+            out.writeInt(elves.length);
+            for (var elf : elves) {
+                out.writeLong(elf);
+            }
+        }
+
+        @Override
+        public long[] read(ByteBuffer in) {
+            var elves = new long[in.getInt()];
+            in.asLongBuffer().get(elves);
+            return elves;
+        }
+    }
+
+    static String render(long[] elves) {
+        var positions = new LongHashSet(elves.length);
+        for (var elf : elves) {
+            positions.add(elf);
+        }
+        var bounds = bounds(elves);
 
-        for (int y = minY; y <= maxY; y++) {
-            for (int x = minX; x <= maxX; x++) {
-                System.out.print(positions.contains(new Position(x, y)) ? '#' : '.');
+        var sb = new StringBuilder();
+        for (int y = bounds[2]; y <= bounds[3]; y++) {
+            sb.append('\n');
+            for (int x = bounds[0]; x <= bounds[1]; x++) {
+                sb.append(positions.contains(Coordinates.pack(x, y)) ? '#' : '.');
             }
-            System.out.println();
         }
+        return sb.toString();
     }
 }
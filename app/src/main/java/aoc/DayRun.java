@@ -0,0 +1,61 @@
+package aoc;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+
+// The measured phases of one solver run. part1 and part2 are null if parsing failed, the later phases are null if a
+// phase timed out.
+public record DayRun(int day, String inputName, PhaseResult parse, PhaseResult part1, PhaseResult part2) {
+
+    private static final String[] PHASES = {"parse", "part1", "part2"};
+
+    // A run that failed before parsing, e.g. because its input could not be read.
+    public static DayRun failed(int day, String inputName, Exception failure) {
+        return new DayRun(day, inputName, new PhaseResult(PHASES[0], null, failure, 0, 0, 0), null, null);
+    }
+
+    // A run that was given up on: the phases that were done, and a TimeoutException for the phase that was running.
+    // elapsedNanos is the time since the run started.
+    public static DayRun timedOut(int day, String inputName, List<PhaseResult> done, long elapsedNanos,
+            Duration timeout) {
+        var all = new ArrayList<>(done);
+        if (all.size() < PHASES.length) {
+            for (var phase : done) {
+                elapsedNanos -= phase.wallNanos();
+            }
+            all.add(new PhaseResult(PHASES[done.size()], null, new TimeoutException("Timed out after " + timeout),
+                    elapsedNanos, 0, 0));
+        }
+        // Otherwise the last phase finished just in time.
+        while (all.size() < PHASES.length) {
+            all.add(null);
+        }
+        return new DayRun(day, inputName, all.get(0), all.get(1), all.get(2));
+    }
+
+    public List<PhaseResult> phases() {
+        return Stream.of(parse, part1, part2).filter(Objects::nonNull).toList();
+    }
+
+    public String format() {
+        var sb = new StringBuilder();
+        sb.append("Day ").append(day).append(" (").append(inputName).append(")\n");
+        for (var phase : phases()) {
+            // The answer of the parse phase is the parsed input, which is not worth printing.
+            var shown = phase == parse && phase.isSuccess()
+                    ? new PhaseResult(phase.phase(), "-", null, phase.wallNanos(), phase.allocatedBytes(), phase.gcCount(),
+                            phase.cached())
+                    : phase;
+            sb.append("  ").append(shown).append('\n');
+        }
+        return sb.toString();
+    }
+
+    public long wallNanos() {
+        return phases().stream().mapToLong(PhaseResult::wallNanos).sum();
+    }
+}
@@ -0,0 +1,294 @@
+package aoc;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import aoc.batch.BatchResults;
+import aoc.batch.BatchRunner;
+import aoc.cache.PreparsedInput;
+import aoc.cache.ResultCache;
+import aoc.daemon.SolverDaemon;
+import aoc.instrument.FlightRecording;
+import aoc.instrument.MetricsServer;
+import aoc.input.Input;
+import aoc.report.OutputFormat;
+import aoc.report.Trace;
+import aoc.report.TraceSink;
+
+// Runs the solvers of one or more days and reports the answer, wall time, allocated bytes and GC count of every phase.
+//
+// Usage: Launcher [--parallel | --threads <n>] [--timeout <seconds>] [--output text|json|quiet]
+//                 [--trace <file>|- [--trace-every <n>]] [--cache <dir> [--cache-size <MB>]]
+//                 [--jfr <file>] [--metrics <port>] [--checkpoint <dir> [--checkpoint-every <seconds>]]
+//                 [--input <path>]... [<day>...]
+//        Launcher --batch <directory>|<manifest> [--results <file>] [--parallel | --threads <n>] [--timeout <seconds>]
+//                 [--jfr <file>] [--metrics <port>] <day>
+//        Launcher --daemon [<socket>] [--threads <n>] [--timeout <seconds>] [--queue <n>] [--warm <n>] [--trace ...]
+//                 [--jfr <file>] [--metrics <port>]
+//
+// Without days all days are run on their bundled input. --input replaces the bundled input, it can be repeated to run
+// every given day on every given input. An input converted by PreparsedInput is read instead of parsed.
+//
+// Every day and input is a separate job. By default the jobs run one after the other, --threads runs up to n of them
+// at the same time and --parallel one per available processor. The results are printed in the order of the jobs
+// either way. --timeout gives up on jobs that take longer, e.g. part 2 of day 17.
+//
+// --output selects the OutputFormat. The solvers do not print anything themselves, --trace writes their diagnostic
+// output (e.g. the elf field of day 23) to a file or to stderr, with --trace-every only every n-th event of each kind.
+//
+// --cache keeps answers and parsed inputs in a ResultCache, so that a day runs on the same input only once.
+// --cache-size bounds the directory, 256 MB by default.
+//
+// --batch runs one day on every input of a directory or manifest with a BatchRunner and writes the answers and timings
+// of every input to --results, a CSV file, or JSON lines if its name ends in .json or .jsonl. By default the CSV goes
+// to stdout. A summary is printed to stderr.
+//
+// --daemon starts a SolverDaemon that reads jobs from stdin, or from the Unix domain socket if one is given, and keeps
+// running. --threads is the number of its workers, --queue bounds the jobs waiting for them (64 by default) and --warm
+// the number of parsed inputs it keeps (16 by default).
+//
+// --jfr turns the Instrumentation of the solvers on and writes a FlightRecording to the file. A summary of the phases
+// and their counters is printed to stderr at the end.
+//
+// --metrics serves the counters, progress, queue depths and heap use of the running jobs at
+// http://localhost:<port>/metrics for Prometheus, see MetricsServer. Port 0 picks a free one, which is printed to
+// stderr. Like --jfr it turns the Instrumentation on.
+//
+// --checkpoint lets the long simulations of days 17 and 23 save a Checkpoint to the directory, every 60 seconds or
+// --checkpoint-every, and resume from it when they are run on the same input again.
+public final class Launcher {
+
+    private Launcher() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        var inputs = new ArrayList<Path>();
+        var days = new ArrayList<Integer>();
+        var threads = 1;
+        Duration timeout = null;
+        var output = OutputFormat.TEXT;
+        String trace = null;
+        var traceEvery = 1L;
+        Path cacheDirectory = null;
+        var cacheMegabytes = 256L;
+        var daemon = false;
+        Path socket = null;
+        var queue = 64;
+        var warm = 16;
+        Path jfr = null;
+        Integer metricsPort = null;
+        Path batch = null;
+        var results = "-";
+        for (var i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--input" -> inputs.add(Path.of(args[++i]));
+                case "--parallel" -> threads = Runtime.getRuntime().availableProcessors();
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--timeout" -> timeout = Duration.ofMillis(Math.round(Double.parseDouble(args[++i]) * 1000));
+                case "--output" -> output = OutputFormat.valueOf(args[++i].toUpperCase());
+                case "--trace" -> trace = args[++i];
+                case "--trace-every" -> traceEvery = Long.parseLong(args[++i]);
+                case "--cache" -> cacheDirectory = Path.of(args[++i]);
+                case "--cache-size" -> cacheMegabytes = Long.parseLong(args[++i]);
+                case "--daemon" -> {
+                    daemon = true;
+                    if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                        socket = Path.of(args[++i]);
+                    }
+                }
+                case "--queue" -> queue = Integer.parseInt(args[++i]);
+                case "--warm" -> warm = Integer.parseInt(args[++i]);
+                case "--jfr" -> jfr = Path.of(args[++i]);
+                case "--metrics" -> metricsPort = Integer.parseInt(args[++i]);
+                case "--batch" -> batch = Path.of(args[++i]);
+                case "--results" -> results = args[++i];
+                case "--checkpoint" -> System.setProperty("aoc.checkpoint.dir", args[++i]);
+                case "--checkpoint-every" -> System.setProperty("aoc.checkpoint.every", args[++i]);
+                default -> days.add(Integer.parseInt(args[i]));
+            }
+        }
+        if (daemon && (!days.isEmpty() || !inputs.isEmpty())) {
+            throw new IllegalArgumentException("--daemon takes its jobs from its clients, not from the arguments");
+        }
+        if (batch != null && (daemon || !inputs.isEmpty() || days.size() != 1)) {
+            throw new IllegalArgumentException("--batch takes exactly one day and its inputs from the directory or "
+                    + "manifest");
+        }
+        if (jfr != null || metricsPort != null) {
+            // Instrumentation reads it once, when it is first used by a solver.
+            System.setProperty("aoc.instrument", "true");
+        }
+        var recording = jfr == null ? null : FlightRecording.start(jfr);
+        var metrics = metricsPort == null ? null : MetricsServer.start(metricsPort);
+        if (metrics != null) {
+            System.err.println("Metrics at http://localhost:" + metrics.port() + "/metrics");
+        }
+        try {
+            if (daemon) {
+                runDaemon(socket, threads, queue, warm, timeout, trace, traceEvery);
+            } else if (batch != null) {
+                runBatch(days.get(0), batch, results, threads, timeout);
+            } else {
+                var cache = cacheDirectory == null ? null
+                        : new ResultCache(cacheDirectory, cacheMegabytes * 1024 * 1024);
+                runJobs(days, inputs, threads, timeout, cache, output, trace, traceEvery);
+            }
+        } finally {
+            if (metrics != null) {
+                metrics.close();
+            }
+            if (recording != null) {
+                recording.close();
+                System.err.print(recording.summary());
+            }
+        }
+    }
+
+    private static void runJobs(List<Integer> days, List<Path> inputs, int threads, Duration timeout, ResultCache cache,
+            OutputFormat format, String trace, long traceEvery) throws Exception {
+        if (days.isEmpty()) {
+            if (!inputs.isEmpty()) {
+                throw new IllegalArgumentException("--input requires the days to run it with");
+            }
+            Arrays.stream(Solvers.DAYS).forEach(days::add);
+        }
+
+        var jobs = new ArrayList<ParallelRunner.Job>();
+        for (int day : days) {
+            if (inputs.isEmpty()) {
+                jobs.add(new ParallelRunner.Job(day, null));
+            }
+            for (var input : inputs) {
+                jobs.add(new ParallelRunner.Job(day, input));
+            }
+        }
+
+        var sink = trace == null ? null : TraceSink.open(trace);
+        if (sink != null) {
+            Trace.start(sink, traceEvery);
+        }
+        var start = System.nanoTime();
+        try (var runner = new ParallelRunner(threads, timeout, cache)) {
+            var runs = runner.runAll(jobs, run -> System.out.print(format.format(run)));
+            if (runs.size() > 1) {
+                var jobNanos = runs.stream().mapToLong(DayRun::wallNanos).sum();
+                System.out.print(format.summary(runs.size(), threads, System.nanoTime() - start, jobNanos));
+            }
+        } finally {
+            if (sink != null) {
+                Trace.stop();
+                sink.close();
+            }
+        }
+    }
+
+    private static void runBatch(int day, Path source, String results, int threads, Duration timeout)
+            throws InterruptedException {
+        var inputs = BatchRunner.inputs(source);
+        try (var out = BatchResults.open(results)) {
+            var summary = new BatchRunner(day, threads, timeout).run(inputs, out);
+            System.err.println(summary);
+        }
+    }
+
+    private static void runDaemon(Path socket, int threads, int queue, int warm, Duration timeout, String trace,
+            long traceEvery) throws Exception {
+        var sink = trace == null ? null : TraceSink.open(trace);
+        if (sink != null) {
+            Trace.start(sink, traceEvery);
+        }
+        try (var daemon = new SolverDaemon(threads, queue, warm, timeout)) {
+            if (socket == null) {
+                daemon.serveStdin();
+            } else {
+                daemon.serveSocket(socket);
+            }
+        } finally {
+            if (sink != null) {
+                Trace.stop();
+                sink.close();
+            }
+        }
+    }
+
+    public static DayRun run(int day, String inputName, Input input) {
+        return run(day, inputName, input, null, phase -> {
+        });
+    }
+
+    // onPhase is called with the result of every phase as soon as it is done. cache may be null.
+    public static DayRun run(int day, String inputName, Input input, ResultCache cache, Consumer<PhaseResult> onPhase) {
+        var solver = Solvers.forDay(day);
+        if (cache == null) {
+            return run(day, inputName, input, solver, null, 0, onPhase);
+        }
+        var lookupStart = System.nanoTime();
+        var entry = cache.entry(day, solver, input);
+        var answers = entry.answers();
+        var lookupNanos = System.nanoTime() - lookupStart;
+        if (answers != null) {
+            var parse = new PhaseResult("parse", null, null, 0, 0, 0).asCached(lookupNanos);
+            var part1 = cachedAnswer("part1", answers.part1());
+            var part2 = cachedAnswer("part2", answers.part2());
+            List.of(parse, part1, part2).forEach(onPhase);
+            return new DayRun(day, inputName, parse, part1, part2);
+        }
+        var run = run(day, inputName, input, solver, entry, lookupNanos, onPhase);
+        if (storable(run.part1()) && storable(run.part2())) {
+            entry.storeAnswers(new ResultCache.Answers(run.part1().answer(), run.part2().answer()));
+        }
+        return run;
+    }
+
+    // The time it took to look up the entry is counted as parsing.
+    private static DayRun run(int day, String inputName, Input input, Solver<Object> solver, ResultCache.Entry entry,
+            long lookupNanos, Consumer<PhaseResult> onPhase) {
+        var fromCache = new boolean[1];
+        var parse = PhaseTimer.measure(day, inputName, "parse", () -> {
+            if (entry == null) {
+                return PreparsedInput.parse(day, solver, input);
+            }
+            var parsed = entry.parsed(solver);
+            fromCache[0] = parsed != null;
+            if (parsed == null) {
+                parsed = PreparsedInput.parse(day, solver, input);
+                entry.storeParsed(solver, parsed);
+            }
+            return parsed;
+        });
+        if (fromCache[0] || lookupNanos > 0) {
+            parse = new PhaseResult(parse.phase(), parse.answer(), parse.failure(), parse.wallNanos() + lookupNanos,
+                    parse.allocatedBytes(), parse.gcCount(), fromCache[0]);
+        }
+        onPhase.accept(parse);
+        if (!parse.isSuccess()) {
+            return new DayRun(day, inputName, parse, null, null);
+        }
+        var parsed = parse.answer();
+        try {
+            var part1 = PhaseTimer.measure(day, inputName, "part1", () -> solver.part1(parsed));
+            onPhase.accept(part1);
+            var part2 = PhaseTimer.measure(day, inputName, "part2", () -> solver.part2(parsed));
+            onPhase.accept(part2);
+            return new DayRun(day, inputName, parse, part1, part2);
+        } finally {
+            solver.release(parsed);
+        }
+    }
+
+    private static PhaseResult cachedAnswer(String phase, Object answer) {
+        var result = answer == null
+                ? new PhaseResult(phase, null, new UnsupportedOperationException("Part is not solved"), 0, 0, 0)
+                : new PhaseResult(phase, answer, null, 0, 0, 0);
+        return result.asCached(0);
+    }
+
+    // Only answers and parts that are not solved are cached, failures might not happen on the next run.
+    private static boolean storable(PhaseResult part) {
+        return part != null && (part.isSuccess() || part.failure() instanceof UnsupportedOperationException);
+    }
+}
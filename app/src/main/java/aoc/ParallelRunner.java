@@ -0,0 +1,108 @@
+package aoc;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+
+import aoc.cache.ResultCache;
+import aoc.input.Input;
+import aoc.instrument.Gauge;
+
+// Runs many jobs, a day on one input each, at the same time in one JVM, on a WorkerPool of a fixed number of threads.
+// The jobs are CPU bound, so they run on platform threads rather than on virtual threads, and every job stays on one
+// thread, which keeps the per-thread allocation numbers of PhaseTimer meaningful. GC counts are shared by all jobs that
+// run concurrently.
+//
+// A job that exceeds the timeout is reported as timed out with the phases it finished, and the pool replaces its
+// worker, so that a single stuck job does not stall a runner with one thread.
+public final class ParallelRunner implements AutoCloseable {
+
+    // input is null for the bundled input of the day.
+    public record Job(int day, Path input) {
+
+        public String inputName() {
+            return input == null ? "bundled" : input.toString();
+        }
+
+        Input open() {
+            return input == null ? Solvers.bundledInput(day) : Input.map(input);
+        }
+    }
+
+    private final BlockingQueue<Execution> queue = new LinkedBlockingQueue<>();
+    private final WorkerPool pool;
+    private final Duration timeout;
+    private final ResultCache cache;
+
+    // timeout is null to wait for every job however long it takes, cache is null to solve every job.
+    public ParallelRunner(int threads, Duration timeout, ResultCache cache) {
+        this.pool = new WorkerPool("solver", threads, timeout, queue);
+        this.timeout = timeout;
+        this.cache = cache;
+        Gauge.register("runner.queued", "Jobs waiting for a thread", queue::size);
+        Gauge.register("runner.running", "Jobs running", pool::running);
+    }
+
+    // Runs all jobs and returns their results in the order of the jobs. onDone is called in the same order, as soon as
+    // a job and all jobs before it are done.
+    public List<DayRun> runAll(List<Job> jobs, Consumer<DayRun> onDone) throws InterruptedException {
+        var executions = new ArrayList<Execution>(jobs.size());
+        for (var job : jobs) {
+            var execution = new Execution(job);
+            executions.add(execution);
+            queue.add(execution);
+        }
+        var results = new ArrayList<DayRun>(jobs.size());
+        for (var execution : executions) {
+            DayRun result;
+            try {
+                result = execution.result.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Should not happen", e.getCause());
+            }
+            onDone.accept(result);
+            results.add(result);
+        }
+        return results;
+    }
+
+    @Override
+    public void close() {
+        pool.close();
+    }
+
+    // The timeout starts when a worker takes the job, not when it was submitted.
+    private final class Execution implements WorkerPool.Task {
+        private final Job job;
+        private final PhaseLog phases = new PhaseLog();
+        private final CompletableFuture<DayRun> result = new CompletableFuture<>();
+
+        Execution(Job job) {
+            this.job = job;
+        }
+
+        @Override
+        public Runnable run() {
+            DayRun run;
+            try (var input = job.open()) {
+                run = Launcher.run(job.day(), job.inputName(), input, cache, phases);
+            } catch (RuntimeException e) {
+                // The input could not be opened.
+                run = DayRun.failed(job.day(), job.inputName(), e);
+            }
+            var done = run;
+            return () -> result.complete(done);
+        }
+
+        @Override
+        public void timedOut(long runningNanos) {
+            result.complete(phases.timedOut(job.day(), job.inputName(), runningNanos, timeout));
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package aoc;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// The phases of a job that are done, as Launcher.run reports them, so that a job that times out is reported with the
+// phases it got through. The job keeps adding on its own thread while the watchdog reads.
+public final class PhaseLog implements Consumer<PhaseResult> {
+
+    private final List<PhaseResult> phases = new ArrayList<>();
+
+    @Override
+    public synchronized void accept(PhaseResult phase) {
+        phases.add(phase);
+    }
+
+    public synchronized List<PhaseResult> phases() {
+        return List.copyOf(phases);
+    }
+
+    public DayRun timedOut(int day, String inputName, long elapsedNanos, Duration timeout) {
+        return DayRun.timedOut(day, inputName, phases(), elapsedNanos, timeout);
+    }
+}
@@ -0,0 +1,29 @@
+package aoc;
+
+// The outcome of one phase of a solver: either its answer or the exception it failed with, together with what it
+// cost. allocatedBytes is measured for the calling thread, gcCount counts the collections of the whole JVM. cached
+// phases were not run but read from a ResultCache.
+public record PhaseResult(String phase, Object answer, Throwable failure, long wallNanos, long allocatedBytes, long gcCount,
+        boolean cached) {
+
+    public PhaseResult(String phase, Object answer, Throwable failure, long wallNanos, long allocatedBytes, long gcCount) {
+        this(phase, answer, failure, wallNanos, allocatedBytes, gcCount, false);
+    }
+
+    public PhaseResult asCached(long wallNanos) {
+        return new PhaseResult(phase, answer, failure, wallNanos, allocatedBytes, gcCount, true);
+    }
+
+    public boolean isSuccess() {
+        return failure == null;
+    }
+
+    @Override
+    public String toString() {
+        var outcome = isSuccess() ? String.valueOf(answer)
+                : failure instanceof UnsupportedOperationException ? "(not solved)"
+                : failure.toString();
+        return String.format("%-6s %-24s %10.3f ms %12.1f KB %4d GCs%s",
+                phase, outcome, wallNanos / 1_000_000.0, allocatedBytes / 1024.0, gcCount, cached ? " (cached)" : "");
+    }
+}
@@ -0,0 +1,54 @@
+package aoc;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import aoc.instrument.Instrumentation;
+
+// Runs a phase on the current thread and records its wall time, the bytes allocated by the thread and the number of
+// garbage collections in the meantime.
+public final class PhaseTimer {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private static final List<GarbageCollectorMXBean> COLLECTORS = ManagementFactory.getGarbageCollectorMXBeans();
+
+    private PhaseTimer() {
+    }
+
+    // Like measure, and records the phase while Instrumentation is on.
+    public static PhaseResult measure(int day, String inputName, String phase, Callable<?> action) {
+        var instrumented = Instrumentation.begin(day, inputName, phase);
+        var result = measure(phase, action);
+        if (instrumented != null) {
+            instrumented.end(result.isSuccess());
+        }
+        return result;
+    }
+
+    public static PhaseResult measure(String phase, Callable<?> action) {
+        var gcCountBefore = gcCount();
+        var allocatedBefore = THREADS.getCurrentThreadAllocatedBytes();
+        var start = System.nanoTime();
+        Object answer = null;
+        Throwable failure = null;
+        try {
+            answer = action.call();
+        } catch (Exception | StackOverflowError | OutOfMemoryError e) {
+            failure = e;
+        }
+        var wallNanos = System.nanoTime() - start;
+        var allocatedBytes = THREADS.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        return new PhaseResult(phase, answer, failure, wallNanos, allocatedBytes, gcCount() - gcCountBefore);
+    }
+
+    private static long gcCount() {
+        var count = 0L;
+        for (var collector : COLLECTORS) {
+            count += Math.max(0, collector.getCollectionCount());
+        }
+        return count;
+    }
+}
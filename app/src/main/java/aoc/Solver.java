@@ -0,0 +1,32 @@
+package aoc;
+
+import aoc.cache.BinaryCodec;
+import aoc.input.Input;
+
+// A puzzle solution split into its phases. parse turns the puzzle input into the form both parts work on, the parts
+// return their answers instead of printing them, so that every phase can be run, measured and reused on its own.
+// parse must not keep a reference to the Input, which is closed once parsing is done. The parts must not change the
+// parsed input, the SolverDaemon runs later jobs on the same one.
+//
+// Implementations need a public no-argument constructor and are looked up by their class name (see Solvers).
+public interface Solver<T> {
+
+    T parse(Input input);
+
+    Object part1(T input);
+
+    default Object part2(T input) {
+        throw new UnsupportedOperationException("Part 2 is not solved");
+    }
+
+    // Frees what the parsed input holds outside the heap, such as the storage of off-heap grids. Called once no phase
+    // uses the parsed input anymore: by Launcher.run after the parts, by the SolverDaemon when it drops a warm input.
+    default void release(T input) {
+    }
+
+    // Lets ResultCache and PreparsedInput store the parsed input. null if it cannot be stored, then only the answers are
+    // cached and the day cannot be converted.
+    default BinaryCodec<T> codec() {
+        return null;
+    }
+}
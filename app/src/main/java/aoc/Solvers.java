@@ -0,0 +1,34 @@
+package aoc;
+
+import java.util.Arrays;
+
+import aoc.input.Input;
+
+// The solvers are the DayNN classes in the default package. Those cannot be imported from here, so they are
+// instantiated by name.
+public final class Solvers {
+
+    public static final int[] DAYS = {12, 13, 14, 15, 16, 17, 18, 21, 22, 23};
+
+    private Solvers() {
+    }
+
+    @SuppressWarnings("unchecked")
+    public static Solver<Object> forDay(int day) {
+        if (Arrays.stream(DAYS).noneMatch(d -> d == day)) {
+            throw new IllegalArgumentException("There is no solver for day " + day);
+        }
+        try {
+            var constructor = Class.forName("Day" + day).getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return (Solver<Object>) constructor.newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot instantiate the solver of day " + day, e);
+        }
+    }
+
+    // The /NN.txt resource of the day. Unlike Path.of(getResource(...).toURI()) this also works from a jar.
+    public static Input bundledInput(int day) {
+        return Input.resource("/" + day + ".txt");
+    }
+}
@@ -0,0 +1,178 @@
+package aoc;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+// A fixed number of worker threads that take tasks from a queue in order, with a watchdog for the tasks that take
+// too long. ParallelRunner, BatchRunner and SolverDaemon run their jobs on it. The workers are platform threads, and a
+// task stays on the worker that took it, which keeps the per-thread allocation numbers of PhaseTimer meaningful.
+//
+// A task that runs longer than the timeout is given up on: the watchdog reports it as timed out, interrupts its worker
+// and starts a new worker in its place, so that one stuck task does not stall the pool. Most solvers do not check for
+// interruption, so the abandoned worker usually finishes its task first. Its result is dropped and the thread ends.
+//
+// At most as many abandoned workers as the pool has threads are replaced while they still run, so the pool never has
+// more than twice its threads. Beyond that, an abandoned worker is only replaced once it ends, and the tasks wait in
+// the queue meanwhile. A bounded queue then rejects new tasks, rather than every slow task adding a thread.
+public final class WorkerPool implements AutoCloseable {
+
+    private static final long POLL_MILLIS = 50;
+
+    public interface Task {
+        // Runs on a worker and must not throw. It returns what hands the result over, which the pool only runs if the
+        // watchdog has not given up on the task in the meantime.
+        Runnable run();
+
+        // Runs on the watchdog instead, once it gave up on the task after runningNanos.
+        void timedOut(long runningNanos);
+    }
+
+    private final String name;
+    private final int threads;
+    private final Duration timeout;
+    private final BlockingQueue<? extends Task> queue;
+    private final List<Worker> workers = new CopyOnWriteArrayList<>();
+    // Given up on and still running. Guarded by this, like starting workers.
+    private final List<Worker> abandoned = new ArrayList<>();
+    private final AtomicInteger workerCounter = new AtomicInteger();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final Thread watchdog;
+
+    // timeout is null to let tasks run however long they take. The threads are named <name>-<n>.
+    public WorkerPool(String name, int threads, Duration timeout, BlockingQueue<? extends Task> queue) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1, got " + threads);
+        }
+        this.name = name;
+        this.threads = threads;
+        this.timeout = timeout;
+        this.queue = queue;
+        fill();
+        watchdog = timeout == null ? null : new Thread(this::watch, name + "-watchdog");
+        if (watchdog != null) {
+            watchdog.setDaemon(true);
+            watchdog.start();
+        }
+    }
+
+    public int threads() {
+        return threads;
+    }
+
+    // The tasks that workers are running and that were not given up on.
+    public int running() {
+        return (int) workers.stream().filter(worker -> worker.current.get() != null).count();
+    }
+
+    // The workers that were given up on and are still running their task.
+    public synchronized int abandoned() {
+        return abandoned.size();
+    }
+
+    // Starts workers until there are threads of them, as far as the abandoned workers that still run leave room.
+    private synchronized void fill() {
+        while (!closed.get() && workers.size() < threads && workers.size() + abandoned.size() < 2 * threads) {
+            var worker = new Worker();
+            worker.thread = new Thread(worker, name + "-" + workerCounter.incrementAndGet());
+            worker.thread.setDaemon(true);
+            workers.add(worker);
+            worker.thread.start();
+        }
+    }
+
+    private synchronized void abandon(Worker worker) {
+        worker.abandoned = true;
+        workers.remove(worker);
+        abandoned.add(worker);
+        worker.thread.interrupt();
+        fill();
+    }
+
+    private synchronized void ended(Worker worker) {
+        if (abandoned.remove(worker)) {
+            fill();
+        }
+    }
+
+    private void watch() {
+        while (!closed.get()) {
+            try {
+                Thread.sleep(POLL_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            for (var worker : workers) {
+                var task = worker.current.get();
+                var runningNanos = System.nanoTime() - worker.startNanos;
+                if (task != null && runningNanos > timeout.toNanos() && worker.current.compareAndSet(task, null)) {
+                    abandon(worker);
+                    task.timedOut(runningNanos);
+                }
+            }
+        }
+    }
+
+    // Stops the workers and the watchdog. Tasks that are still queued stay in the queue.
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        if (watchdog != null) {
+            watchdog.interrupt();
+        }
+        synchronized (this) {
+            for (var worker : workers) {
+                worker.thread.interrupt();
+            }
+            for (var worker : abandoned) {
+                worker.thread.interrupt();
+            }
+        }
+    }
+
+    private final class Worker implements Runnable {
+        private Thread thread;
+        // The task that is running, null between tasks and once the watchdog gave up on it.
+        private final AtomicReference<Task> current = new AtomicReference<>();
+        private volatile long startNanos;
+        // Set by the watchdog when the task took too long. The thread ends once the task is done.
+        private volatile boolean abandoned;
+
+        @Override
+        public void run() {
+            try {
+                work();
+            } finally {
+                ended(this);
+            }
+        }
+
+        private void work() {
+            while (!abandoned && !closed.get()) {
+                Task task;
+                try {
+                    task = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (task == null) {
+                    continue;
+                }
+                startNanos = System.nanoTime();
+                current.set(task);
+                var handOver = task.run();
+                if (current.compareAndSet(task, null)) {
+                    handOver.run();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package aoc.batch;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+import aoc.DayRun;
+import aoc.PhaseResult;
+import aoc.report.OutputFormat;
+
+// Writes the results of a batch in the order of its inputs, each one as soon as it and all inputs before it are done.
+// A file ending in .json or .jsonl gets one object per input in the format of OutputFormat.JSON, everything else CSV
+// with one row per input:
+//
+//   input,status,part1,part2,parseNanos,part1Nanos,part2Nanos,allocatedBytes,error
+//
+// status is "ok" if no phase failed (an unsolved part has an empty answer), "timeout" or "failed". "-" writes to
+// stdout.
+public final class BatchResults implements AutoCloseable {
+
+    static final String CSV_HEADER = "input,status,part1,part2,parseNanos,part1Nanos,part2Nanos,allocatedBytes,error";
+
+    private final Writer out;
+    private final boolean json;
+    private final boolean closeOut;
+    private final Map<Integer, DayRun> pending = new HashMap<>();
+    private int next;
+    private int failed;
+    private int timedOut;
+    private long jobNanos;
+
+    private BatchResults(Writer out, boolean json, boolean closeOut) throws IOException {
+        this.out = out;
+        this.json = json;
+        this.closeOut = closeOut;
+        if (!json) {
+            out.write(CSV_HEADER);
+            out.write('\n');
+        }
+    }
+
+    public static BatchResults open(String target) {
+        var json = target.endsWith(".json") || target.endsWith(".jsonl");
+        try {
+            if (target.equals("-")) {
+                return new BatchResults(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), false, false);
+            }
+            return new BatchResults(Files.newBufferedWriter(Path.of(target), StandardCharsets.UTF_8), json, true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write " + target, e);
+        }
+    }
+
+    // The result of the input with the given position. Each position is added exactly once.
+    synchronized void add(int index, DayRun run) {
+        pending.put(index, run);
+        try {
+            while (pending.containsKey(next)) {
+                write(pending.remove(next++));
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write batch results", e);
+        }
+    }
+
+    synchronized int failed() {
+        return failed;
+    }
+
+    synchronized int timedOut() {
+        return timedOut;
+    }
+
+    synchronized long jobNanos() {
+        return jobNanos;
+    }
+
+    private void write(DayRun run) throws IOException {
+        jobNanos += run.wallNanos();
+        var status = status(run);
+        if (status.equals("timeout")) {
+            timedOut++;
+        } else if (status.equals("failed")) {
+            failed++;
+        }
+        if (json) {
+            out.write(OutputFormat.JSON.format(run));
+            return;
+        }
+        var error = run.phases().stream()
+                .filter(phase -> !phase.isSuccess() && !unsolved(phase))
+                .map(phase -> phase.phase() + ": " + phase.failure())
+                .findFirst()
+                .orElse("");
+        out.write(String.join(",", csv(run.inputName()), status, answer(run.part1()), answer(run.part2()),
+                nanos(run.parse()), nanos(run.part1()), nanos(run.part2()),
+                String.valueOf(run.phases().stream().mapToLong(PhaseResult::allocatedBytes).sum()), csv(error)));
+        out.write('\n');
+    }
+
+    private static String status(DayRun run) {
+        var status = "ok";
+        for (var phase : run.phases()) {
+            if (phase.failure() instanceof TimeoutException) {
+                return "timeout";
+            }
+            if (!phase.isSuccess() && !unsolved(phase)) {
+                status = "failed";
+            }
+        }
+        return status;
+    }
+
+    private static boolean unsolved(PhaseResult phase) {
+        return phase.failure() instanceof UnsupportedOperationException;
+    }
+
+    private static String answer(PhaseResult phase) {
+        return phase == null || !phase.isSuccess() ? "" : csv(String.valueOf(phase.answer()));
+    }
+
+    private static String nanos(PhaseResult phase) {
+        return phase == null ? "" : String.valueOf(phase.wallNanos());
+    }
+
+    private static String csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            if (closeOut) {
+                out.close();
+            } else {
+                out.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write batch results", e);
+        }
+    }
+}
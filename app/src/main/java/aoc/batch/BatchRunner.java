@@ -0,0 +1,168 @@
+package aoc.batch;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.stream.Stream;
+
+import aoc.DayRun;
+import aoc.Launcher;
+import aoc.PhaseLog;
+import aoc.WorkerPool;
+import aoc.input.Input;
+import aoc.instrument.Gauge;
+
+// Solves one day on many inputs in one JVM, e.g. a corpus of generated inputs to check a solver against. The inputs
+// are either a directory, every regular file in it sorted by name, or a manifest with one path per line. Paths in a
+// manifest are relative to its directory, blank lines and lines starting with # are skipped.
+//
+// The inputs run on a WorkerPool. Every worker takes the next input as soon as it is free and reads it into a buffer
+// that it keeps for the following inputs, so a batch of small files does not map or allocate a buffer per file. Inputs
+// larger than MAX_BUFFERED are mapped instead. Each input is run with Launcher.run, parse and both parts, and the
+// results go to BatchResults. An input that takes longer than the timeout is reported as timed out, and the pool
+// replaces its worker.
+public final class BatchRunner {
+
+    private static final int MAX_BUFFERED = 64 << 20;
+    private static final int INITIAL_BUFFER = 64 << 10;
+
+    public record Summary(int inputs, int threads, int failed, int timedOut, long wallNanos, long jobNanos) {
+
+        @Override
+        public String toString() {
+            return String.format("%d inputs on %d threads: %.3f ms wall, %.3f ms in jobs (%.2fx), %d failed, "
+                    + "%d timed out", inputs, threads, wallNanos / 1_000_000.0, jobNanos / 1_000_000.0,
+                    (double) jobNanos / wallNanos, failed, timedOut);
+        }
+    }
+
+    private final int day;
+    private final int threads;
+    private final Duration timeout;
+
+    // timeout is null to wait for every input however long it takes.
+    public BatchRunner(int day, int threads, Duration timeout) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1, got " + threads);
+        }
+        this.day = day;
+        this.threads = threads;
+        this.timeout = timeout;
+    }
+
+    // The inputs of a directory or manifest.
+    public static List<Path> inputs(Path source) {
+        try {
+            if (Files.isDirectory(source)) {
+                try (Stream<Path> files = Files.list(source)) {
+                    return files.filter(Files::isRegularFile).sorted().toList();
+                }
+            }
+            var directory = source.toAbsolutePath().getParent();
+            var inputs = new ArrayList<Path>();
+            for (var line : Files.readAllLines(source)) {
+                var path = line.strip();
+                if (!path.isEmpty() && !path.startsWith("#")) {
+                    inputs.add(directory.resolve(path));
+                }
+            }
+            return inputs;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot list the inputs of " + source, e);
+        }
+    }
+
+    public Summary run(List<Path> inputs, BatchResults results) throws InterruptedException {
+        var queue = new LinkedBlockingQueue<Task>();
+        var done = new CountDownLatch(inputs.size());
+        Gauge.register("batch.remaining", "Inputs of the batch that no worker has taken yet", queue::size);
+        Gauge.register("batch.completed", "Inputs of the batch that are done", () -> inputs.size() - done.getCount());
+        var buffers = ThreadLocal.withInitial(() -> new byte[INITIAL_BUFFER]);
+        for (int i = 0; i < inputs.size(); i++) {
+            queue.add(new Task(i, inputs.get(i), results, done, buffers));
+        }
+        var start = System.nanoTime();
+        try (var pool = new WorkerPool("batch", Math.max(1, Math.min(threads, inputs.size())), timeout, queue)) {
+            done.await();
+        }
+        return new Summary(inputs.size(), threads, results.failed(), results.timedOut(), System.nanoTime() - start,
+                results.jobNanos());
+    }
+
+    // One input. Each worker reads its inputs into a buffer that it keeps for the following ones.
+    private final class Task implements WorkerPool.Task {
+        private final int index;
+        private final Path input;
+        private final BatchResults results;
+        private final CountDownLatch done;
+        private final ThreadLocal<byte[]> buffers;
+        private final PhaseLog phases = new PhaseLog();
+
+        Task(int index, Path input, BatchResults results, CountDownLatch done, ThreadLocal<byte[]> buffers) {
+            this.index = index;
+            this.input = input;
+            this.results = results;
+            this.done = done;
+            this.buffers = buffers;
+        }
+
+        @Override
+        public Runnable run() {
+            var run = solve();
+            return () -> complete(run);
+        }
+
+        @Override
+        public void timedOut(long runningNanos) {
+            complete(phases.timedOut(day, input.toString(), runningNanos, timeout));
+        }
+
+        private void complete(DayRun run) {
+            try {
+                results.add(index, run);
+            } finally {
+                done.countDown();
+            }
+        }
+
+        private DayRun solve() {
+            var inputName = input.toString();
+            try (var in = read()) {
+                return Launcher.run(day, inputName, in, null, phases);
+            } catch (IOException e) {
+                return DayRun.failed(day, inputName, new UncheckedIOException("Cannot read " + input, e));
+            } catch (RuntimeException e) {
+                return DayRun.failed(day, inputName, e);
+            }
+        }
+
+        // Parsers do not keep a reference to the input, so the buffer can be reused as soon as parse returns.
+        private Input read() throws IOException {
+            try (var channel = FileChannel.open(input, StandardOpenOption.READ)) {
+                var size = channel.size();
+                if (size > MAX_BUFFERED) {
+                    return Input.map(input);
+                }
+                var buffer = buffers.get();
+                if (size > buffer.length) {
+                    buffer = new byte[(int) Math.min(MAX_BUFFERED, Math.max(size, 2L * buffer.length))];
+                    buffers.set(buffer);
+                }
+                var bytes = ByteBuffer.wrap(buffer, 0, (int) size);
+                while (bytes.hasRemaining() && channel.read(bytes) >= 0) {
+                    // Files can be read in more than one go.
+                }
+                return Input.of(buffer, bytes.position());
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package aoc.cache;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// Converts the parsed form of a day to bytes and back, so that ResultCache and PreparsedInput can skip parsing.
+// Solvers provide one through Solver.codec(). read gets exactly the bytes that write produced, possibly straight from
+// a mapped file, so it should copy arrays out in bulk instead of byte by byte.
+public interface BinaryCodec<T> {
+
+    void write(T value, DataOutput out) throws IOException;
+
+    T read(ByteBuffer in);
+
+    // The version of the byte layout that PreparsedInput files record. Bump it whenever write changes, so that files
+    // written by an older layout are rejected instead of misread.
+    default int version() {
+        return 1;
+    }
+
+    static void writeString(DataOutput out, String value) throws IOException {
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(ByteBuffer in) {
+        var bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
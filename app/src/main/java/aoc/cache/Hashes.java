@@ -0,0 +1,33 @@
+package aoc.cache;
+
+import java.lang.foreign.MemorySegment;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+final class Hashes {
+
+    // MessageDigest takes ByteBuffers, which are limited to 2 GB.
+    private static final long CHUNK = 1 << 30;
+
+    private Hashes() {
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Should not happen", e);
+        }
+    }
+
+    static void update(MessageDigest digest, MemorySegment bytes) {
+        for (var offset = 0L; offset < bytes.byteSize(); offset += CHUNK) {
+            digest.update(bytes.asSlice(offset, Math.min(CHUNK, bytes.byteSize() - offset)).asByteBuffer());
+        }
+    }
+
+    static String hex(byte[] hash) {
+        return HexFormat.of().formatHex(hash);
+    }
+}
@@ -0,0 +1,151 @@
+package aoc.cache;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import aoc.Solver;
+import aoc.Solvers;
+import aoc.input.Input;
+
+// A puzzle input that was parsed ahead of time, so that a run reads the parsed form instead of parsing the text again.
+// The file is a header followed by the bytes that the BinaryCodec of the day wrote:
+//
+//   "AOCP"              magic
+//   int                 FORMAT_VERSION, the version of this header
+//   int                 day
+//   int                 BinaryCodec.version() of the day's codec when the file was written
+//   32 bytes            SHA-256 of the text input
+//   long                payload length
+//   payload
+//
+// All numbers are big-endian, like DataOutput writes them. The Launcher recognizes the magic, so a converted file can
+// be passed to --input like a text one. The payload is handed to the codec as a view of the mapped file, nothing is
+// copied before the codec reads it.
+//
+// Usage: PreparsedInput <day> <text input> [<file>], the file defaults to the text input with the extension .aocp.
+public final class PreparsedInput {
+
+    public static final int FORMAT_VERSION = 1;
+
+    private static final int MAGIC = 'A' << 24 | 'O' << 16 | 'C' << 8 | 'P';
+    private static final int HASH_BYTES = 32;
+    private static final int HEADER_BYTES = 4 + 4 + 4 + 4 + HASH_BYTES + 8;
+
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+
+    private PreparsedInput() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 2 && args.length != 3) {
+            throw new IllegalArgumentException("Usage: PreparsedInput <day> <text input> [<file>]");
+        }
+        var text = Path.of(args[1]);
+        var file = args.length == 3 ? Path.of(args[2]) : text.resolveSibling(withoutExtension(text) + ".aocp");
+        try (var input = Input.map(text)) {
+            convert(Integer.parseInt(args[0]), input, file);
+        }
+    }
+
+    // Parses the text input with the solver of the day and writes the result to the file.
+    public static void convert(int day, Input text, Path file) {
+        Solver<Object> solver = Solvers.forDay(day);
+        var codec = solver.codec();
+        if (codec == null) {
+            throw new IllegalArgumentException("Day " + day + " has no BinaryCodec and cannot be converted");
+        }
+        var parsed = solver.parse(text);
+        var payload = new ByteArrayOutputStream();
+        try (var out = new DataOutputStream(payload)) {
+            codec.write(parsed, out);
+        } catch (IOException e) {
+            throw new IllegalStateException("Should not happen", e);
+        } finally {
+            solver.release(parsed);
+        }
+        var digest = Hashes.sha256();
+        Hashes.update(digest, text.segment());
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(day);
+                out.writeInt(codec.version());
+                out.write(digest.digest());
+                out.writeLong(payload.size());
+                payload.writeTo(out);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write " + file, e);
+        }
+    }
+
+    // Reads a converted file, or parses the input if it is text.
+    public static <T> T parse(int day, Solver<T> solver, Input input) {
+        return matches(input) ? read(day, solver, input) : solver.parse(input);
+    }
+
+    // Whether the input is a converted file rather than puzzle text, which never starts with the magic.
+    public static boolean matches(Input input) {
+        return input.size() >= HEADER_BYTES && input.segment().get(INT, 0) == MAGIC;
+    }
+
+    // Reads the parsed input of the day from a converted file. The result does not refer to the input, which can be
+    // closed afterwards like after parsing.
+    public static <T> T read(int day, Solver<T> solver, Input input) {
+        if (!matches(input)) {
+            throw new IllegalArgumentException("Not a preparsed input");
+        }
+        var bytes = input.segment();
+        var format = bytes.get(INT, 4);
+        if (format != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported preparsed input format " + format + ", expected "
+                    + FORMAT_VERSION);
+        }
+        var fileDay = bytes.get(INT, 8);
+        if (fileDay != day) {
+            throw new IllegalArgumentException("Preparsed input of day " + fileDay + " cannot be used for day " + day);
+        }
+        var codec = solver.codec();
+        if (codec == null) {
+            throw new IllegalArgumentException("Day " + day + " has no BinaryCodec to read a preparsed input");
+        }
+        var layout = bytes.get(INT, 12);
+        if (layout != codec.version()) {
+            throw new IllegalArgumentException("Preparsed input of day " + day + " has layout " + layout
+                    + ", the solver reads layout " + codec.version() + ". Convert the text input again.");
+        }
+        var length = bytes.get(LONG, HEADER_BYTES - 8);
+        if (length != bytes.byteSize() - HEADER_BYTES) {
+            throw new IllegalArgumentException("Preparsed input is truncated, expected " + length
+                    + " bytes of payload");
+        }
+        return codec.read(payload(bytes, length).asByteBuffer());
+    }
+
+    private static MemorySegment payload(MemorySegment bytes, long length) {
+        // ByteBuffers are limited to 2 GB, far more than the parsed form of any input.
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Preparsed input payload of " + length + " bytes is too large");
+        }
+        return bytes.asSlice(HEADER_BYTES, length);
+    }
+
+    private static String withoutExtension(Path file) {
+        var name = file.getFileName().toString();
+        var dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+}
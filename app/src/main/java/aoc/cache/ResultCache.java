@@ -0,0 +1,240 @@
+package aoc.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import aoc.Solver;
+import aoc.input.Input;
+
+// Keeps the answers, and for solvers with a BinaryCodec the parsed input, in a directory, so that running the same
+// input again does not solve it again. Entries are keyed by the day, the SolverVersion and a SHA-256 of the input
+// bytes: a changed input or solver gets new entries and the old ones are no longer read.
+//
+// The directory is bounded by size. Reading an entry touches its modification time and the least recently used
+// entries are deleted when the directory grows beyond maxBytes. The cache keeps a running total of the bytes it
+// wrote and only lists the directory once that total goes over maxBytes, so storing an entry is not a directory scan.
+// Only successful answers and "not solved" are stored, never failures or timeouts. A broken entry is treated as
+// missing.
+public final class ResultCache {
+
+    private static final String ANSWERS = ".answers";
+    private static final String PARSED = ".parsed";
+    private static final String UNSOLVED = "U";
+
+    private final Path directory;
+    private final long maxBytes;
+    // The size of the entries as of the last scan plus what was written since, -1 before the first scan. What other
+    // processes sharing the directory write is only counted by the next scan.
+    private long totalBytes = -1;
+
+    public ResultCache(Path directory, long maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("maxBytes must not be negative, got " + maxBytes);
+        }
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create cache directory " + directory, e);
+        }
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    public Entry entry(int day, Solver<?> solver, Input input) {
+        return new Entry(key(day, solver, input));
+    }
+
+    // Identifies what the solver makes of the input: the same key means the same parsed input and answers.
+    public static String key(int day, Solver<?> solver, Input input) {
+        var digest = Hashes.sha256();
+        digest.update(SolverVersion.of(solver.getClass()).getBytes(StandardCharsets.UTF_8));
+        Hashes.update(digest, input.segment());
+        return day + "-" + Hashes.hex(digest.digest());
+    }
+
+    // An answer of a part, or null for a part that is not solved.
+    public record Answers(Object part1, Object part2) {
+    }
+
+    public final class Entry {
+        private final String key;
+
+        private Entry(String key) {
+            this.key = key;
+        }
+
+        public String key() {
+            return key;
+        }
+
+        // null if the answers are not cached.
+        public Answers answers() {
+            var lines = read(ANSWERS);
+            if (lines == null) {
+                return null;
+            }
+            try {
+                var text = new String(lines, StandardCharsets.UTF_8).split("\n", -1);
+                return new Answers(decode(text[0]), decode(text[1]));
+            } catch (RuntimeException e) {
+                return null;
+            }
+        }
+
+        // Answers are the successful answers of the parts, null for a part that is not solved.
+        public void storeAnswers(Answers answers) {
+            var text = encode(answers.part1()) + "\n" + encode(answers.part2()) + "\n";
+            write(ANSWERS, text.getBytes(StandardCharsets.UTF_8));
+        }
+
+        // null if the parsed input is not cached or the solver has no codec.
+        public <T> T parsed(Solver<T> solver) {
+            var codec = solver.codec();
+            if (codec == null) {
+                return null;
+            }
+            var bytes = read(PARSED);
+            if (bytes == null) {
+                return null;
+            }
+            try {
+                return codec.read(ByteBuffer.wrap(bytes));
+            } catch (RuntimeException e) {
+                return null;
+            }
+        }
+
+        public <T> void storeParsed(Solver<T> solver, T parsed) {
+            var codec = solver.codec();
+            if (codec == null) {
+                return;
+            }
+            var bytes = new ByteArrayOutputStream();
+            try (var out = new DataOutputStream(bytes)) {
+                codec.write(parsed, out);
+            } catch (IOException e) {
+                throw new IllegalStateException("Should not happen", e);
+            }
+            write(PARSED, bytes.toByteArray());
+        }
+
+        private byte[] read(String suffix) {
+            var file = directory.resolve(key + suffix);
+            try {
+                var bytes = Files.readAllBytes(file);
+                Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+                return bytes;
+            } catch (NoSuchFileException e) {
+                return null;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read cache entry " + file, e);
+            }
+        }
+
+        private void write(String suffix, byte[] bytes) {
+            var file = directory.resolve(key + suffix);
+            // Jobs running in parallel may store the same entry, so only ever move complete files into place.
+            var partial = directory.resolve(key + suffix + "." + Thread.currentThread().threadId() + ".tmp");
+            long replaced;
+            try {
+                Files.write(partial, bytes);
+                replaced = sizeOf(file);
+                Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot write cache entry " + file, e);
+            }
+            stored(bytes.length - replaced);
+        }
+    }
+
+    private static String encode(Object answer) {
+        return switch (answer) {
+            case null -> UNSOLVED;
+            case Integer i -> "I" + i;
+            case Long l -> "L" + l;
+            case String s when !s.contains("\n") -> "S" + s;
+            default -> throw new IllegalArgumentException("Cannot cache answer " + answer);
+        };
+    }
+
+    private static Object decode(String text) {
+        return switch (text.charAt(0)) {
+            case 'U' -> null;
+            case 'I' -> Integer.valueOf(text.substring(1));
+            case 'L' -> Long.valueOf(text.substring(1));
+            case 'S' -> text.substring(1);
+            default -> throw new IllegalArgumentException("Unknown answer " + text);
+        };
+    }
+
+    private synchronized void stored(long addedBytes) {
+        if (totalBytes >= 0) {
+            totalBytes += addedBytes;
+            if (totalBytes <= maxBytes) {
+                return;
+            }
+        }
+        evict();
+    }
+
+    // Lists the directory for the actual size and deletes the least recently used entries beyond maxBytes.
+    private void evict() {
+        var files = new ArrayList<Path>();
+        var total = 0L;
+        totalBytes = -1;
+        try (Stream<Path> listing = Files.list(directory)) {
+            for (var file : (Iterable<Path>) listing::iterator) {
+                var name = file.getFileName().toString();
+                if (name.endsWith(ANSWERS) || name.endsWith(PARSED)) {
+                    files.add(file);
+                    total += Files.size(file);
+                }
+            }
+            if (total > maxBytes) {
+                files.sort(Comparator.comparing(ResultCache::lastModified));
+                for (var file : files) {
+                    if (total <= maxBytes) {
+                        break;
+                    }
+                    var size = Files.size(file);
+                    if (Files.deleteIfExists(file)) {
+                        total -= size;
+                    }
+                }
+            }
+            totalBytes = total;
+        } catch (NoSuchFileException e) {
+            // Deleted by another process sharing the directory.
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot evict cache entries in " + directory, e);
+        }
+    }
+
+    private static long sizeOf(Path file) throws IOException {
+        try {
+            return Files.size(file);
+        } catch (NoSuchFileException e) {
+            return 0;
+        }
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+}
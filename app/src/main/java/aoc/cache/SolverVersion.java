@@ -0,0 +1,143 @@
+package aoc.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// Identifies the code of a solver, so that cached results of an older version are not used. The version is a hash of
+// all class files next to the solver, in every package, except those of the other days: the solvers use the helper
+// classes of the default package (e.g. Graph of day 12) and more and more of aoc (input, grid, search, simd,
+// checkpoint), and a list of those would fall behind. Changing a tool such as the daemon invalidates the cache as well,
+// changing another day does not.
+//
+// A class of the default package belongs to the day whose source file declares it, as its SourceFile attribute tells,
+// so that the top-level helpers of a day (e.g. PairOfPackets of day 13) go with it. Classes compiled without that
+// attribute are told by their name, Day13 and its nested classes.
+public final class SolverVersion {
+
+    private static final Pattern DAY = Pattern.compile("Day(\\d+)(\\$.*)?\\.class");
+    private static final Pattern DAY_SOURCE = Pattern.compile("Day(\\d+)\\.java");
+
+    private static final Map<Class<?>, String> VERSIONS = new HashMap<>();
+
+    private SolverVersion() {
+    }
+
+    public static synchronized String of(Class<?> solverClass) {
+        return VERSIONS.computeIfAbsent(solverClass, SolverVersion::compute);
+    }
+
+    private static String compute(Class<?> solverClass) {
+        try {
+            var location = Path.of(solverClass.getProtectionDomain().getCodeSource().getLocation().toURI());
+            if (Files.isDirectory(location)) {
+                return hash(solverClass.getSimpleName(), location);
+            }
+            try (var jar = FileSystems.newFileSystem(location)) {
+                return hash(solverClass.getSimpleName(), jar.getPath("/"));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read the classes of " + solverClass.getName(), e);
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException("Should not happen", e);
+        }
+    }
+
+    // The version of the solver named day, e.g. Day12, from the class files below root.
+    static String hash(String day, Path root) throws IOException {
+        // Sorted, so that the hash does not depend on the order of the directory listing.
+        var classes = new TreeMap<String, Path>();
+        try (Stream<Path> files = Files.walk(root)) {
+            files.filter(file -> file.getFileName() != null && file.getFileName().toString().endsWith(".class"))
+                    .forEach(file -> classes.put(root.relativize(file).toString(), file));
+        }
+        MessageDigest digest = Hashes.sha256();
+        for (var entry : classes.entrySet()) {
+            var file = entry.getValue();
+            var bytes = Files.readAllBytes(file);
+            if (file.getParent().equals(root) && !belongsTo(day, file.getFileName().toString(), bytes)) {
+                continue;
+            }
+            digest.update(entry.getKey().getBytes(StandardCharsets.UTF_8));
+            digest.update(bytes);
+        }
+        return Hashes.hex(digest.digest());
+    }
+
+    // Whether a class of the default package is either no day's or the day's.
+    private static boolean belongsTo(String day, String fileName, byte[] bytes) {
+        var source = sourceFile(bytes);
+        var matcher = source == null ? DAY.matcher(fileName) : DAY_SOURCE.matcher(source);
+        return !matcher.matches() || ("Day" + matcher.group(1)).equals(day);
+    }
+
+    // The SourceFile attribute of a class file, null if it has none or cannot be read.
+    static String sourceFile(byte[] bytes) {
+        try {
+            var in = new DataInputStream(new ByteArrayInputStream(bytes));
+            if (in.readInt() != 0xCAFEBABE) {
+                return null;
+            }
+            in.skipBytes(4);
+            var constants = in.readUnsignedShort();
+            var utf8 = new String[constants];
+            for (int i = 1; i < constants; i++) {
+                var tag = in.readUnsignedByte();
+                switch (tag) {
+                    case 1 -> utf8[i] = in.readUTF();
+                    case 7, 8, 16, 19, 20 -> in.skipBytes(2);
+                    case 15 -> in.skipBytes(3);
+                    case 3, 4, 9, 10, 11, 12, 17, 18 -> in.skipBytes(4);
+                    case 5, 6 -> {
+                        // Longs and doubles take two entries.
+                        in.skipBytes(8);
+                        i++;
+                    }
+                    default -> {
+                        return null;
+                    }
+                }
+            }
+            // Access flags, this and super class, then the interfaces.
+            in.skipBytes(6);
+            in.skipBytes(2 * in.readUnsignedShort());
+            // The fields, then the methods: flags, name and descriptor, then attributes.
+            for (int members = 0; members < 2; members++) {
+                for (int count = in.readUnsignedShort(); count > 0; count--) {
+                    in.skipBytes(6);
+                    skipAttributes(in);
+                }
+            }
+            for (int count = in.readUnsignedShort(); count > 0; count--) {
+                var name = utf8[in.readUnsignedShort()];
+                var length = in.readInt();
+                if ("SourceFile".equals(name)) {
+                    return utf8[in.readUnsignedShort()];
+                }
+                in.skipBytes(length);
+            }
+            return null;
+        } catch (IOException | ArrayIndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+
+    private static void skipAttributes(DataInputStream in) throws IOException {
+        for (int count = in.readUnsignedShort(); count > 0; count--) {
+            in.skipBytes(2);
+            in.skipBytes(in.readInt());
+        }
+    }
+}
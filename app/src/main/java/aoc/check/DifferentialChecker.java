@@ -0,0 +1,275 @@
+package aoc.check;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+import aoc.Solver;
+import aoc.Solvers;
+import aoc.generator.InputGenerator;
+import aoc.input.Input;
+
+// Runs every Engine and the reference solver of its day on the same inputs and compares their answers: the bundled
+// input and inputs of InputGenerator with seeds and scales drawn from one seed, which is printed so that a run can be
+// repeated. A mismatch is shrunk to the fewest input lines that still produce it, by delta debugging over the lines,
+// and printed. Every case reports the time of both sides, parse and part together, and the speedup of the engine.
+//
+// Inputs on which the reference fails or times out are skipped, as are parts that the engine does not implement.
+// The solvers cannot be interrupted, so a side that times out is abandoned on its daemon thread.
+//
+// Usage: DifferentialChecker [--generated <n>] [--seed <seed>] [--scale <max>] [--timeout <seconds>] [<day>...]
+// Without days every day with an engine is checked. The defaults are 10 generated inputs of scale up to 1 and a
+// timeout of 10 seconds. Fails if any engine disagrees with its reference.
+public final class DifferentialChecker implements AutoCloseable {
+
+    private static final int MAX_SHRINK_RUNS = 200;
+    // Fast sides are run this many times and the fastest run counts.
+    private static final int REPEATS = 3;
+    private static final long REPEAT_BELOW_NANOS = 100_000_000L;
+
+    public record Case(String name, String text) {
+    }
+
+    public enum Status {
+        MATCH,
+        MISMATCH,
+        // The reference failed or timed out, or the engine does not implement the part.
+        SKIPPED
+    }
+
+    // shrunk is the smallest input found for a mismatch, null otherwise.
+    public record Outcome(Engine engine, int part, Case input, Status status, Run reference, Run engineRun,
+            String shrunk) {
+
+        public double speedup() {
+            return (double) reference.nanos() / Math.max(1, engineRun.nanos());
+        }
+
+        @Override
+        public String toString() {
+            var sb = new StringBuilder(String.format("%-24s part%d  %-44s", engine, part, input.name()));
+            if (status == Status.SKIPPED) {
+                return sb.append("skipped: ").append(reference.failure() != null ? reference : engineRun).toString();
+            }
+            sb.append(String.format("reference %10.3f ms  engine %10.3f ms  %8.1fx  ", reference.nanos() / 1e6,
+                    engineRun.nanos() / 1e6, speedup()));
+            if (status == Status.MATCH) {
+                return sb.append("match").toString();
+            }
+            sb.append("MISMATCH: reference ").append(reference).append(", engine ").append(engineRun)
+                    .append("\n  shrunk to ").append(shrunk.lines().count()).append(" lines:\n");
+            shrunk.lines().forEach(line -> sb.append("    ").append(line).append('\n'));
+            return sb.toString().stripTrailing();
+        }
+    }
+
+    // The answer of parse and one part, or how they failed.
+    public record Run(Object answer, Throwable failure, long nanos) {
+
+        boolean unsupported() {
+            return failure instanceof UnsupportedOperationException;
+        }
+
+        @Override
+        public String toString() {
+            return failure == null ? String.valueOf(answer) : failure.toString();
+        }
+    }
+
+    private final Duration timeout;
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        var thread = new Thread(runnable, "differential-check");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public DifferentialChecker(Duration timeout) {
+        this.timeout = Objects.requireNonNull(timeout);
+    }
+
+    public static void main(String[] args) throws Exception {
+        var generated = 10;
+        var seed = new SplittableRandom().nextLong();
+        var scale = 1.0;
+        var timeout = Duration.ofSeconds(10);
+        var days = new ArrayList<Integer>();
+        for (var i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--generated" -> generated = Integer.parseInt(args[++i]);
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                case "--scale" -> scale = Double.parseDouble(args[++i]);
+                case "--timeout" -> timeout = Duration.ofMillis(Math.round(Double.parseDouble(args[++i]) * 1000));
+                default -> days.add(Integer.parseInt(args[i]));
+            }
+        }
+        if (days.isEmpty()) {
+            Engine.ALL.stream().map(Engine::day).distinct().forEach(days::add);
+        }
+        System.out.println("Seed " + seed);
+        var mismatches = 0;
+        try (var checker = new DifferentialChecker(timeout)) {
+            for (int day : days) {
+                var cases = cases(day, generated, seed, scale);
+                for (var engine : Engine.forDay(day)) {
+                    var outcomes = checker.check(engine, cases, System.out::println);
+                    mismatches += (int) outcomes.stream().filter(o -> o.status() == Status.MISMATCH).count();
+                    System.out.println(summary(engine, outcomes));
+                }
+            }
+        }
+        if (mismatches > 0) {
+            throw new IllegalStateException(mismatches + " mismatches, repeat them with --seed " + seed);
+        }
+    }
+
+    // The bundled input of the day followed by generated ones.
+    public static List<Case> cases(int day, int generated, long seed, double maxScale) {
+        var cases = new ArrayList<Case>();
+        try (var bundled = Solvers.bundledInput(day)) {
+            cases.add(new Case("bundled", bundled.asString()));
+        }
+        var random = new SplittableRandom(seed);
+        for (int i = 0; i < generated; i++) {
+            // Two decimals, so that the name is enough to generate the input again.
+            var scale = Math.max(0.01, Math.round(random.nextDouble(0, maxScale) * 100) / 100.0);
+            var inputSeed = random.nextLong();
+            cases.add(new Case("generated-" + scale + "-" + inputSeed, InputGenerator.generate(day, scale, inputSeed)));
+        }
+        return cases;
+    }
+
+    public List<Outcome> check(Engine engine, List<Case> cases, Consumer<Outcome> onOutcome)
+            throws InterruptedException {
+        var outcomes = new ArrayList<Outcome>();
+        for (var part = 1; part <= 2; part++) {
+            for (var input : cases) {
+                var outcome = check(engine, part, input);
+                onOutcome.accept(outcome);
+                outcomes.add(outcome);
+                if (outcome.status() == Status.SKIPPED && outcome.engineRun() != null
+                        && outcome.engineRun().unsupported()) {
+                    // Not implemented for any input.
+                    break;
+                }
+            }
+        }
+        return outcomes;
+    }
+
+    public Outcome check(Engine engine, int part, Case input) throws InterruptedException {
+        var engineRun = timed(engine.create(), part, input.text());
+        if (engineRun.unsupported()) {
+            return new Outcome(engine, part, input, Status.SKIPPED, engineRun, engineRun, null);
+        }
+        var reference = timed(Solvers.forDay(engine.day()), part, input.text());
+        if (reference.failure() != null) {
+            return new Outcome(engine, part, input, Status.SKIPPED, reference, engineRun, null);
+        }
+        if (agree(reference, engineRun)) {
+            return new Outcome(engine, part, input, Status.MATCH, reference, engineRun, null);
+        }
+        return new Outcome(engine, part, input, Status.MISMATCH, reference, engineRun, shrink(engine, part,
+                input.text()));
+    }
+
+    // Delta debugging over the lines of the input: removes ever smaller chunks of lines as long as the engine still
+    // disagrees with the reference on what is left.
+    public String shrink(Engine engine, int part, String text) throws InterruptedException {
+        var lines = new ArrayList<>(text.lines().toList());
+        var chunks = 2;
+        var runs = 0;
+        while (lines.size() > 1 && runs < MAX_SHRINK_RUNS) {
+            var chunkSize = (lines.size() + chunks - 1) / chunks;
+            var reduced = false;
+            for (var start = 0; start < lines.size() && runs < MAX_SHRINK_RUNS; start += chunkSize) {
+                var rest = new ArrayList<>(lines.subList(0, start));
+                rest.addAll(lines.subList(Math.min(lines.size(), start + chunkSize), lines.size()));
+                runs++;
+                if (!rest.isEmpty() && disagree(engine, part, String.join("\n", rest) + "\n")) {
+                    lines = rest;
+                    chunks = Math.max(chunks - 1, 2);
+                    reduced = true;
+                    break;
+                }
+            }
+            if (!reduced) {
+                if (chunkSize == 1) {
+                    break;
+                }
+                chunks = Math.min(chunks * 2, lines.size());
+            }
+        }
+        return String.join("\n", lines) + "\n";
+    }
+
+    private boolean disagree(Engine engine, int part, String text) throws InterruptedException {
+        var reference = run(Solvers.forDay(engine.day()), part, text);
+        return reference.failure() == null && !agree(reference, run(engine.create(), part, text));
+    }
+
+    private static boolean agree(Run reference, Run engine) {
+        return engine.failure() == null && String.valueOf(reference.answer()).equals(String.valueOf(engine.answer()));
+    }
+
+    private Run timed(Solver<Object> solver, int part, String text) throws InterruptedException {
+        var best = run(solver, part, text);
+        for (int i = 1; i < REPEATS && best.failure() == null && best.nanos() < REPEAT_BELOW_NANOS; i++) {
+            var again = run(solver, part, text);
+            if (again.nanos() < best.nanos()) {
+                best = again;
+            }
+        }
+        return best;
+    }
+
+    private Run run(Solver<Object> solver, int part, String text) throws InterruptedException {
+        var future = executor.submit(() -> {
+            var start = System.nanoTime();
+            try {
+                Object parsed;
+                try (var input = Input.of(text)) {
+                    parsed = solver.parse(input);
+                }
+                try {
+                    var answer = part == 1 ? solver.part1(parsed) : solver.part2(parsed);
+                    return new Run(answer, null, System.nanoTime() - start);
+                } finally {
+                    solver.release(parsed);
+                }
+            } catch (RuntimeException e) {
+                return new Run(null, e, System.nanoTime() - start);
+            }
+        });
+        try {
+            return future.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            return new Run(null, new TimeoutException("Timed out after " + timeout), timeout.toNanos());
+        } catch (ExecutionException e) {
+            // StackOverflowError and the like.
+            return new Run(null, e.getCause(), 0);
+        }
+    }
+
+    // The number of cases and mismatches and the geometric mean of the speedups of the compared cases.
+    static String summary(Engine engine, List<Outcome> outcomes) {
+        var compared = outcomes.stream().filter(o -> o.status() != Status.SKIPPED).toList();
+        var mismatches = compared.stream().filter(o -> o.status() == Status.MISMATCH).count();
+        var speedup = Math.exp(compared.stream().mapToDouble(o -> Math.log(o.speedup())).average().orElse(0));
+        return String.format("%s: %d cases compared, %d skipped, %d mismatches, %.1fx geometric mean speedup",
+                engine, compared.size(), outcomes.size() - compared.size(), mismatches, speedup);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,45 @@
+package aoc.check;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import aoc.Solver;
+
+// An optimized implementation of a day that DifferentialChecker compares with the reference, the DayNN solver itself.
+// An engine is a Solver like the reference and parses the input itself, so that a faster parser is checked as well.
+// Parts it leaves out (UnsupportedOperationException) are not compared.
+//
+// New engines go next to the code they replace, e.g. as a nested class of the day, and are registered in ALL. The
+// reference stays as it is, it is what the engine is checked against.
+public record Engine(int day, String name, Supplier<Solver<Object>> factory) {
+
+    public static final List<Engine> ALL = List.of(
+            new Engine(15, "interval sweep", byName("Day15$IntervalSweep")));
+
+    public static List<Engine> forDay(int day) {
+        return ALL.stream().filter(engine -> engine.day == day).toList();
+    }
+
+    public Solver<Object> create() {
+        return factory.get();
+    }
+
+    // The DayNN classes and their nested classes live in the default package, which cannot be imported.
+    @SuppressWarnings("unchecked")
+    static Supplier<Solver<Object>> byName(String className) {
+        return () -> {
+            try {
+                var constructor = Class.forName(className).getDeclaredConstructor();
+                constructor.setAccessible(true);
+                return (Solver<Object>) constructor.newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Cannot create engine " + className, e);
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "day " + day + " " + name;
+    }
+}
@@ -0,0 +1,224 @@
+package aoc.checkpoint;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.zip.CRC32;
+
+import aoc.report.Trace;
+
+// Saves the state of a long-running simulation to a file every so often, so that a run that is killed or times out
+// continues from its latest checkpoint the next time instead of from the start.
+//
+// Checkpoints are off unless the system property aoc.checkpoint.dir is set (Launcher --checkpoint), and are then taken
+// at most every aoc.checkpoint.every seconds, 60 by default. A simulation opens its Checkpoint with a name and a key
+// that identifies the run, e.g. its input and the number of steps, asks for the state to resume from, and at points
+// where its state is complete saves it whenever the checkpoint is due. Once the run is done, finish deletes the file.
+// The state is whatever the simulation writes, it has to read it back into exactly the same state.
+//
+// The file is <dir>/<name>-<key hash>.ckpt:
+//
+//   "AOCK"              magic
+//   int                 FORMAT_VERSION, the version of this header
+//   int                 version of the state that the simulation wrote
+//   32 bytes            SHA-256 of the key
+//   long                state length
+//   long                CRC32 of the state
+//   state
+//
+// A file with another header, version or key, or that is cut short or corrupt, is not resumed from. New checkpoints
+// are written next to the file and moved over it, so a run that is killed while saving keeps the previous one.
+public final class Checkpoint {
+
+    public static final int FORMAT_VERSION = 1;
+
+    private static final int MAGIC = 'A' << 24 | 'O' << 16 | 'C' << 8 | 'K';
+    private static final int HASH_BYTES = 32;
+    private static final int HEADER_BYTES = 4 + 4 + 4 + HASH_BYTES + 8 + 8;
+    private static final Duration DEFAULT_EVERY = Duration.ofSeconds(60);
+    private static final Checkpoint DISABLED = new Checkpoint(null, 0, null, 0);
+
+    @FunctionalInterface
+    public interface Writer {
+        void write(DataOutput out) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface Reader<T> {
+        T read(DataInput in) throws IOException;
+    }
+
+    // null if checkpoints are off.
+    private final Path file;
+    private final int version;
+    private final byte[] keyHash;
+    private final long everyNanos;
+    private long dueNanos;
+
+    private Checkpoint(Path file, int version, byte[] keyHash, long everyNanos) {
+        this.file = file;
+        this.version = version;
+        this.keyHash = keyHash;
+        this.everyNanos = everyNanos;
+        this.dueNanos = System.nanoTime() + everyNanos;
+    }
+
+    // The checkpoint of the run in the directory and at the interval of the system properties.
+    public static Checkpoint open(String name, int version, Writer key) {
+        var directory = System.getProperty("aoc.checkpoint.dir");
+        if (directory == null) {
+            return DISABLED;
+        }
+        var every = System.getProperty("aoc.checkpoint.every");
+        return open(Path.of(directory), every == null ? DEFAULT_EVERY
+                : Duration.ofMillis(Math.round(Double.parseDouble(every) * 1000)), name, version, key);
+    }
+
+    public static Checkpoint open(Path directory, Duration every, String name, int version, Writer key) {
+        var keyHash = sha256(bytes(key));
+        var file = directory.resolve(name + "-" + HexFormat.of().formatHex(keyHash, 0, 8) + ".ckpt");
+        return new Checkpoint(file, version, keyHash, every.toNanos());
+    }
+
+    public boolean enabled() {
+        return file != null;
+    }
+
+    // The state of the latest checkpoint, or null if there is none to resume from.
+    public <T> T resume(Reader<T> reader) {
+        var state = file == null ? null : readState();
+        if (state == null) {
+            return null;
+        }
+        try (var in = new DataInputStream(new ByteArrayInputStream(state))) {
+            var resumed = reader.read(in);
+            Trace.event("checkpoint", () -> "Resumed from " + file);
+            return resumed;
+        } catch (IOException e) {
+            // The CRC matched, so the simulation does not read what it wrote.
+            throw new UncheckedIOException("Cannot read the state of " + file, e);
+        }
+    }
+
+    // Whether enough time has passed since the run started or the last save. Cheap enough to ask every few thousand
+    // steps.
+    public boolean due() {
+        return file != null && System.nanoTime() - dueNanos >= 0;
+    }
+
+    public void save(Writer state) {
+        if (file == null) {
+            return;
+        }
+        var bytes = bytes(state);
+        var crc = new CRC32();
+        crc.update(bytes);
+        var header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(FORMAT_VERSION).putInt(version)
+                .put(keyHash).putLong(bytes.length).putLong(crc.getValue());
+        try {
+            Files.createDirectories(file.getParent());
+            var temporary = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            try {
+                try (var out = Files.newOutputStream(temporary)) {
+                    out.write(header.array());
+                    out.write(bytes);
+                }
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot save " + file, e);
+        }
+        dueNanos = System.nanoTime() + everyNanos;
+        Trace.event("checkpoint", () -> "Saved " + bytes.length + " bytes to " + file);
+    }
+
+    // Deletes the checkpoint of a run that is done.
+    public void finish() {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot delete " + file, e);
+        }
+    }
+
+    private byte[] readState() {
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read " + file, e);
+        }
+        if (bytes.length < HEADER_BYTES) {
+            return ignored("it is cut short");
+        }
+        var header = ByteBuffer.wrap(bytes);
+        if (header.getInt() != MAGIC || header.getInt() != FORMAT_VERSION) {
+            return ignored("it is not a checkpoint of this version");
+        }
+        if (header.getInt() != version) {
+            return ignored("the state is of another version");
+        }
+        var hash = new byte[HASH_BYTES];
+        header.get(hash);
+        if (!Arrays.equals(hash, keyHash)) {
+            return ignored("it belongs to another run");
+        }
+        var length = header.getLong();
+        var expectedCrc = header.getLong();
+        if (length != bytes.length - HEADER_BYTES) {
+            return ignored("it is cut short");
+        }
+        var state = Arrays.copyOfRange(bytes, HEADER_BYTES, bytes.length);
+        var crc = new CRC32();
+        crc.update(state);
+        if (crc.getValue() != expectedCrc) {
+            return ignored("it is corrupt");
+        }
+        return state;
+    }
+
+    private byte[] ignored(String reason) {
+        Trace.event("checkpoint", () -> "Not resuming from " + file + ", " + reason);
+        return null;
+    }
+
+    private static byte[] bytes(Writer writer) {
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new DataOutputStream(bytes)) {
+            writer.write(out);
+        } catch (IOException e) {
+            throw new IllegalStateException("Should not happen", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] sha256(byte[] bytes) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Should not happen", e);
+        }
+    }
+}
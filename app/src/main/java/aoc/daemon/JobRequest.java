@@ -0,0 +1,76 @@
+package aoc.daemon;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import aoc.Solvers;
+import aoc.input.Input;
+
+// One line of the daemon protocol that asks for a solution:
+//
+//   <id> <day> <part> bundled
+//   <id> <day> <part> file <path>
+//   <id> <day> <part> inline <lines>      followed by <lines> lines of puzzle input
+//
+// part is 1, 2 or both. The id is chosen by the client and repeated in the response, which may arrive in another
+// order than the requests.
+record JobRequest(String id, int day, boolean part1, boolean part2, String inputName, Path file, String inline) {
+
+    // Reads the payload of inline requests from the reader. Throws IllegalArgumentException for malformed requests.
+    static JobRequest parse(String line, BufferedReader reader) throws IOException {
+        var tokens = line.trim().split("\\s+", 5);
+        if (tokens.length < 4) {
+            throw new IllegalArgumentException("Expected <id> <day> <part> <source>, got: " + line);
+        }
+        var id = tokens[0];
+        int day;
+        try {
+            day = Integer.parseInt(tokens[1]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid day " + tokens[1]);
+        }
+        // Fails for unknown days before the job is queued.
+        Solvers.forDay(day);
+        var part1 = switch (tokens[2]) {
+            case "1", "both" -> true;
+            case "2" -> false;
+            default -> throw new IllegalArgumentException("Invalid part " + tokens[2] + ", expected 1, 2 or both");
+        };
+        var part2 = !tokens[2].equals("1");
+        return switch (tokens[3]) {
+            case "bundled" -> new JobRequest(id, day, part1, part2, "bundled", null, null);
+            case "file" -> {
+                if (tokens.length < 5) {
+                    throw new IllegalArgumentException("file requires a path");
+                }
+                // The path is the rest of the line and may contain spaces.
+                yield new JobRequest(id, day, part1, part2, tokens[4], Path.of(tokens[4]), null);
+            }
+            case "inline" -> {
+                if (tokens.length < 5) {
+                    throw new IllegalArgumentException("inline requires the number of lines");
+                }
+                var lines = Integer.parseInt(tokens[4].trim());
+                var payload = new StringBuilder();
+                for (int i = 0; i < lines; i++) {
+                    var next = reader.readLine();
+                    if (next == null) {
+                        throw new IllegalArgumentException("Input ended after " + i + " of " + lines + " inline lines");
+                    }
+                    payload.append(next).append('\n');
+                }
+                yield new JobRequest(id, day, part1, part2, "inline", null, payload.toString());
+            }
+            default -> throw new IllegalArgumentException("Invalid source " + tokens[3]
+                    + ", expected bundled, file or inline");
+        };
+    }
+
+    Input open() {
+        if (file != null) {
+            return Input.map(file);
+        }
+        return inline != null ? Input.of(inline) : Solvers.bundledInput(day);
+    }
+}
@@ -0,0 +1,41 @@
+package aoc.daemon;
+
+import java.util.Arrays;
+
+import aoc.report.Json;
+
+// Count, mean and maximum of all recorded durations, percentiles of the most recent ones.
+final class LatencyStats {
+
+    private static final int RECENT = 1024;
+
+    private final long[] recent = new long[RECENT];
+    private long count;
+    private long totalNanos;
+    private long maxNanos;
+
+    synchronized void record(long nanos) {
+        recent[(int) (count % RECENT)] = nanos;
+        count++;
+        totalNanos += nanos;
+        maxNanos = Math.max(maxNanos, nanos);
+    }
+
+    synchronized String toJson() {
+        var samples = Arrays.copyOf(recent, (int) Math.min(count, RECENT));
+        Arrays.sort(samples);
+        return "{\"count\":" + count
+                + ",\"meanMillis\":" + Json.value(count == 0 ? 0.0 : totalNanos / 1e6 / count)
+                + ",\"p50Millis\":" + Json.value(percentile(samples, 0.50) / 1e6)
+                + ",\"p90Millis\":" + Json.value(percentile(samples, 0.90) / 1e6)
+                + ",\"p99Millis\":" + Json.value(percentile(samples, 0.99) / 1e6)
+                + ",\"maxMillis\":" + Json.value(maxNanos / 1e6) + "}";
+    }
+
+    private static long percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(fraction * sorted.length) - 1)];
+    }
+}
@@ -0,0 +1,350 @@
+package aoc.daemon;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import aoc.DayRun;
+import aoc.PhaseResult;
+import aoc.PhaseTimer;
+import aoc.Solvers;
+import aoc.WorkerPool;
+import aoc.cache.PreparsedInput;
+import aoc.cache.ResultCache;
+import aoc.instrument.Gauge;
+import aoc.report.Json;
+import aoc.report.OutputFormat;
+
+// A long-running solver process, so that the JIT stays warm and parsed inputs are reused between jobs. Clients send
+// the lines of JobRequest on stdin or over a Unix domain socket and get one line of JSON per job:
+//
+//   {"id":"a","status":"ok","warm":true,"queueMillis":0.1,"run":{...}}
+//
+// where run is what `--output json` prints for the job. status is one of ok, invalid (the request could not be
+// read), rejected (the queue is full) or timeout. Besides jobs, a connection understands the commands
+//
+//   metrics     one line of JSON with the queue, the workers and the latencies
+//   quit        wait for the answers to the jobs of this client, then close the connection. On stdin, print the
+//               metrics and stop.
+//   shutdown    stop the daemon
+//
+// A WorkerPool of a fixed number of workers takes the jobs from a bounded queue, in the order they were accepted. A job
+// that exceeds the timeout is answered as timed out and the pool interrupts and replaces its worker. The interrupt
+// stops a job waiting for the parse of its input and day 17, the other solvers run to the end. The warm input of the
+// job is dropped if it was not parsed yet, so that a job stuck in parsing does not hold up later jobs on the same
+// input. Once as many abandoned jobs still run as there are workers, the jobs wait in the queue until one of them ends,
+// and the full queue rejects the rest.
+public final class SolverDaemon implements AutoCloseable {
+
+    private static final long POLL_MILLIS = 50;
+
+    private final Duration timeout;
+    private final BlockingQueue<Job> queue;
+    private final WarmInputs warm;
+    private final WorkerPool pool;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong invalid = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private final LatencyStats queueWait = new LatencyStats();
+    private final LatencyStats latency = new LatencyStats();
+
+    private volatile ServerSocketChannel server;
+
+    // timeout is null to let jobs run however long they take.
+    public SolverDaemon(int threads, int queueCapacity, int warmInputs, Duration timeout) {
+        this.timeout = timeout;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.warm = new WarmInputs(warmInputs);
+        this.pool = new WorkerPool("daemon-worker", threads, timeout, queue);
+        Gauge.register("daemon.queued", "Jobs waiting in the daemon's queue", queue::size);
+        Gauge.register("daemon.running", "Jobs the daemon's workers are running", pool::running);
+        Gauge.register("daemon.abandoned", "Timed out jobs that still run", pool::abandoned);
+    }
+
+    // Serves stdin and stdout until the input ends or says quit, then waits for the accepted jobs.
+    public void serveStdin() throws IOException, InterruptedException {
+        var out = new PrintStream(System.out, true, StandardCharsets.UTF_8);
+        var reader = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        var connection = new Connection(out);
+        serve(reader, connection);
+        connection.awaitAnswers();
+        System.err.println(metrics());
+    }
+
+    // Serves every connection to the socket on its own thread until shutdown. The socket file is replaced if it
+    // exists and deleted at the end.
+    public void serveSocket(Path socket) throws IOException {
+        serveSocket(socket, () -> {
+        });
+    }
+
+    // Runs ready once the socket listens, so that clients can connect. The file exists a little earlier, when the
+    // socket is bound.
+    public void serveSocket(Path socket, Runnable ready) throws IOException {
+        Files.deleteIfExists(socket);
+        try (var channel = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            // Binds and listens.
+            channel.bind(UnixDomainSocketAddress.of(socket));
+            server = channel;
+            ready.run();
+            var connections = new AtomicInteger();
+            while (!closed.get()) {
+                SocketChannel connection;
+                try {
+                    connection = channel.accept();
+                } catch (IOException e) {
+                    if (closed.get()) {
+                        break;
+                    }
+                    throw e;
+                }
+                var thread = new Thread(() -> serveConnection(connection), "daemon-connection-"
+                        + connections.incrementAndGet());
+                thread.setDaemon(true);
+                thread.start();
+            }
+        } finally {
+            Files.deleteIfExists(socket);
+        }
+    }
+
+    private void serveConnection(SocketChannel channel) {
+        try (channel) {
+            var out = new PrintStream(Channels.newOutputStream(channel), true, StandardCharsets.UTF_8);
+            var reader = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel),
+                    StandardCharsets.UTF_8));
+            var connection = new Connection(out);
+            serve(reader, connection);
+            connection.awaitAnswers();
+        } catch (IOException e) {
+            // The client closed the connection.
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Reads requests until the end of the input, quit or shutdown. Responses may be written after this returns.
+    private void serve(BufferedReader reader, Connection connection) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            switch (line.trim()) {
+                case "" -> {
+                }
+                case "metrics" -> connection.reply(metrics());
+                case "quit" -> {
+                    return;
+                }
+                case "shutdown" -> {
+                    close();
+                    return;
+                }
+                default -> submit(line, reader, connection);
+            }
+        }
+    }
+
+    private void submit(String line, BufferedReader reader, Connection connection) throws IOException {
+        JobRequest request;
+        try {
+            request = JobRequest.parse(line, reader);
+        } catch (IllegalArgumentException e) {
+            invalid.incrementAndGet();
+            var id = line.trim().split("\\s+", 2)[0];
+            connection.reply(response(id, "invalid", null, e.getMessage(), false, 0));
+            return;
+        }
+        var job = new Job(request, connection, System.nanoTime());
+        connection.pending.incrementAndGet();
+        if (closed.get() || !queue.offer(job)) {
+            connection.pending.decrementAndGet();
+            rejected.incrementAndGet();
+            connection.reply(response(request.id(), "rejected", null, closed.get() ? "The daemon is shutting down"
+                    : "The queue is full", false, 0));
+            return;
+        }
+        submitted.incrementAndGet();
+    }
+
+    public String metrics() {
+        return "{\"workers\":" + pool.threads() + ",\"queued\":" + queue.size()
+                + ",\"queueCapacity\":" + (queue.size() + queue.remainingCapacity()) + ",\"running\":" + pool.running()
+                + ",\"abandoned\":" + pool.abandoned()
+                + ",\"submitted\":" + submitted.get() + ",\"completed\":" + completed.get()
+                + ",\"rejected\":" + rejected.get() + ",\"invalid\":" + invalid.get()
+                + ",\"timedOut\":" + timedOut.get() + ",\"warm\":" + warm.toJson()
+                + ",\"queueWait\":" + queueWait.toJson() + ",\"latency\":" + latency.toJson() + "}";
+    }
+
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        pool.close();
+        Job job;
+        while ((job = queue.poll()) != null) {
+            rejected.incrementAndGet();
+            job.connection.answer(response(job.request.id(), "rejected", null, "The daemon is shutting down", false,
+                    0));
+        }
+        warm.clear();
+        var channel = server;
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Closing only stops serveSocket from accepting connections.
+            }
+        }
+    }
+
+    private static String response(String id, String status, DayRun run, String error, boolean warm,
+            long queueNanos) {
+        return "{\"id\":" + Json.quote(id) + ",\"status\":" + Json.quote(status) + ",\"warm\":" + warm
+                + ",\"queueMillis\":" + Json.value(queueNanos / 1e6)
+                + ",\"error\":" + Json.value(error)
+                + ",\"run\":" + (run == null ? "null" : OutputFormat.JSON.format(run).strip()) + "}";
+    }
+
+    private final class Job implements WorkerPool.Task {
+        private final JobRequest request;
+        private final Connection connection;
+        private final long submittedNanos;
+        private volatile long startNanos;
+        // The warm input of the job, which is dropped if the job times out before it is parsed.
+        private volatile String warmKey;
+        private volatile WarmInputs.Entry warmEntry;
+
+        Job(JobRequest request, Connection connection, long submittedNanos) {
+            this.request = request;
+            this.connection = connection;
+            this.submittedNanos = submittedNanos;
+        }
+
+        @Override
+        public Runnable run() {
+            startNanos = System.nanoTime();
+            queueWait.record(startNanos - submittedNanos);
+            var day = request.day();
+            var name = request.inputName();
+            var solver = Solvers.forDay(day);
+            DayRun run;
+            var wasWarm = false;
+            try (var input = request.open()) {
+                warmKey = ResultCache.key(request.day(), solver, input);
+                var entry = warm.acquire(warmKey);
+                warmEntry = entry;
+                PhaseResult parse;
+                try {
+                    entry.lock.lockInterruptibly();
+                    try {
+                        wasWarm = entry.parsed != null;
+                        if (wasWarm) {
+                            parse = new PhaseResult("parse", entry.parsed, null, 0, 0, 0).asCached(0);
+                        } else {
+                            parse = PhaseTimer.measure(day, name, "parse",
+                                    () -> PreparsedInput.parse(day, solver, input));
+                            if (parse.isSuccess()) {
+                                entry.solver = solver;
+                                entry.parsed = parse.answer();
+                            }
+                        }
+                    } finally {
+                        entry.lock.unlock();
+                    }
+                    if (!parse.isSuccess()) {
+                        run = new DayRun(day, name, parse, null, null);
+                    } else {
+                        var parsed = parse.answer();
+                        PhaseResult part1 = null;
+                        PhaseResult part2 = null;
+                        if (request.part1()) {
+                            part1 = PhaseTimer.measure(day, name, "part1", () -> solver.part1(parsed));
+                        }
+                        if (request.part2()) {
+                            part2 = PhaseTimer.measure(day, name, "part2", () -> solver.part2(parsed));
+                        }
+                        run = new DayRun(day, name, parse, part1, part2);
+                    }
+                } finally {
+                    warm.release(entry);
+                }
+            } catch (InterruptedException e) {
+                // Timed out or shut down while waiting for another job to parse the same input.
+                Thread.currentThread().interrupt();
+                run = DayRun.failed(day, name, e);
+            } catch (RuntimeException e) {
+                // The input could not be opened.
+                run = DayRun.failed(day, name, e);
+            }
+            var done = run;
+            var warmAnswer = wasWarm;
+            return () -> {
+                completed.incrementAndGet();
+                latency.record(System.nanoTime() - submittedNanos);
+                connection.answer(response(request.id(), "ok", done, null, warmAnswer, startNanos - submittedNanos));
+            };
+        }
+
+        @Override
+        public void timedOut(long runningNanos) {
+            timedOut.incrementAndGet();
+            var entry = warmEntry;
+            if (entry != null && entry.parsed == null) {
+                warm.remove(warmKey, entry);
+            }
+            connection.answer(response(request.id(), "timeout", null, "Timed out after " + timeout, false,
+                    startNanos - submittedNanos));
+        }
+    }
+
+    // Where the responses of a client go. quit and the end of the input wait for the answers of the client's jobs.
+    private final class Connection {
+        private final PrintStream out;
+        private final AtomicInteger pending = new AtomicInteger();
+
+        Connection(PrintStream out) {
+            this.out = out;
+        }
+
+        void reply(String line) {
+            // checkError flushes and swallows the failure if the client has gone away.
+            synchronized (out) {
+                out.println(line);
+                out.checkError();
+            }
+        }
+
+        // Replies for an accepted job.
+        void answer(String line) {
+            reply(line);
+            pending.decrementAndGet();
+        }
+
+        // Returns early on shutdown, which answers the queued jobs but not the running ones.
+        void awaitAnswers() throws InterruptedException {
+            while (pending.get() > 0 && !closed.get()) {
+                Thread.sleep(POLL_MILLIS);
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package aoc.daemon;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+import aoc.Solver;
+
+// The parsed inputs of the most recent jobs, so that asking again for the same input skips parsing. Keyed by
+// ResultCache.key, so a changed input or solver is parsed again. Least recently used entries are dropped beyond
+// capacity.
+//
+// A job holds the lock of its entry only while it parses, so that the same input is parsed once. The parts run without
+// it: they do not change the parsed input (see Solver), so any number of jobs can share it. A job that times out
+// while it parses still holds the lock, so the daemon removes its entry and later jobs parse into a new one.
+//
+// Every job that got an entry gives it back with release. The parsed input of an entry that was dropped is released
+// by its solver once no job uses it anymore, so that off-heap grids are freed but not under a running part.
+final class WarmInputs {
+
+    static final class Entry {
+        final ReentrantLock lock = new ReentrantLock();
+        volatile Object parsed;
+        // The solver that parsed it. Set together with parsed.
+        volatile Solver<Object> solver;
+        // Guarded by WarmInputs.
+        private int users;
+        private boolean dropped;
+    }
+
+    private final int capacity;
+    private final Map<String, Entry> entries;
+    private long hits;
+    private long misses;
+
+    WarmInputs(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity must not be negative, got " + capacity);
+        }
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() <= WarmInputs.this.capacity) {
+                    return false;
+                }
+                drop(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    // An entry without parsed input for a key that is not known (yet). With capacity 0 nothing is kept, the entry is
+    // dropped as soon as it is released.
+    synchronized Entry acquire(String key) {
+        var entry = entries.get(key);
+        if (entry != null && entry.parsed != null) {
+            hits++;
+            entry.users++;
+            return entry;
+        }
+        misses++;
+        if (entry == null) {
+            entry = new Entry();
+            entry.users++;
+            if (capacity > 0) {
+                entries.put(key, entry);
+            } else {
+                entry.dropped = true;
+            }
+        } else {
+            entry.users++;
+        }
+        return entry;
+    }
+
+    synchronized void release(Entry entry) {
+        entry.users--;
+        free(entry);
+    }
+
+    // Removes the entry if the key still maps to it, a later job may have replaced it already.
+    synchronized void remove(String key, Entry entry) {
+        if (entries.remove(key, entry)) {
+            drop(entry);
+        }
+    }
+
+    // Drops all entries, their parsed inputs are released once the running jobs are done with them.
+    synchronized void clear() {
+        entries.values().forEach(this::drop);
+        entries.clear();
+    }
+
+    private void drop(Entry entry) {
+        entry.dropped = true;
+        free(entry);
+    }
+
+    private void free(Entry entry) {
+        if (entry.dropped && entry.users == 0 && entry.parsed != null) {
+            entry.solver.release(entry.parsed);
+            entry.parsed = null;
+        }
+    }
+
+    synchronized String toJson() {
+        return "{\"entries\":" + entries.size() + ",\"capacity\":" + capacity + ",\"hits\":" + hits
+                + ",\"misses\":" + misses + "}";
+    }
+}
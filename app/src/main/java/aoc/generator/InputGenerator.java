@@ -0,0 +1,425 @@
+package aoc.generator;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+// Writes valid puzzle inputs of any size for every day, to find out where the solvers break down on inputs far larger
+// than the bundled ones.
+//
+// scale is relative to the bundled input: scale 1 produces an input of roughly the same size, scale 100 one with a
+// hundred times as many cells, packets, sensors, ... The output only depends on day, scale and seed, so generated
+// inputs can be regenerated instead of stored.
+//
+// Usage: InputGenerator <day> <scale> <seed> <file>
+public final class InputGenerator {
+
+    private static final String LETTERS = "abcdefghijklmnopqrstuvwxyz";
+
+    private InputGenerator() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 4) {
+            throw new IllegalArgumentException("Usage: InputGenerator <day> <scale> <seed> <file>");
+        }
+        write(Integer.parseInt(args[0]), Double.parseDouble(args[1]), Long.parseLong(args[2]), Path.of(args[3]));
+    }
+
+    public static void write(int day, double scale, long seed, Path file) {
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                generate(day, scale, seed, out);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write " + file, e);
+        }
+    }
+
+    public static String generate(int day, double scale, long seed) {
+        var out = new StringBuilder();
+        try {
+            generate(day, scale, seed, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    public static void generate(int day, double scale, long seed, Appendable out) throws IOException {
+        if (!(scale > 0)) {
+            throw new IllegalArgumentException("scale must be positive, got " + scale);
+        }
+        var random = new SplittableRandom(seed);
+        switch (day) {
+            case 12 -> heightmap(random, scale, out);
+            case 13 -> packets(random, scale, out);
+            case 14 -> rockPaths(random, scale, out);
+            case 15 -> sensors(random, scale, out);
+            case 16 -> valves(random, scale, out);
+            case 17 -> jets(random, scale, out);
+            case 18 -> voxels(random, scale, out);
+            case 21 -> monkeys(random, scale, out);
+            case 22 -> board(random, scale, out);
+            case 23 -> elves(random, scale, out);
+            default -> throw new IllegalArgumentException("There is no generator for day " + day);
+        }
+    }
+
+    private static int scaled(int size, double scale) {
+        return Math.max(1, (int) Math.round(size * scale));
+    }
+
+    // Day 12: the elevation rises by at most one per column from a at the left to z at the right edge. Every other
+    // cell may be lowered, which walls off the cells behind it, except on the row of S and E, so E is always reachable.
+    private static void heightmap(SplittableRandom random, double scale, Appendable out) throws IOException {
+        var rows = Math.max(1, (int) Math.round(41 * Math.sqrt(scale)));
+        var columns = Math.max(26, (int) Math.round(64 * Math.sqrt(scale)));
+        var pathRow = random.nextInt(rows);
+        for (var row = 0; row < rows; row++) {
+            for (var column = 0; column < columns; column++) {
+                var elevation = Math.min(25, column * 26 / columns);
+                if (row == pathRow && column == 0) {
+                    out.append('S');
+                } else if (row == pathRow && column == columns - 1) {
+                    out.append('E');
+                } else {
+                    if (row != pathRow && random.nextInt(4) == 0) {
+                        elevation = Math.max(0, elevation - random.nextInt(1, 4));
+                    }
+                    out.append((char) ('a' + elevation));
+                }
+            }
+            out.append('\n');
+        }
+    }
+
+    // Day 13: the packets of a pair start with different integers, so no pair compares as equal.
+    private static void packets(SplittableRandom random, double scale, Appendable out) throws IOException {
+        var pairs = scaled(150, scale);
+        for (var pair = 0; pair < pairs; pair++) {
+            if (pair > 0) {
+                out.append('\n');
+            }
+            var left = random.nextInt(11);
+            var right = (left + random.nextInt(1, 11)) % 11;
+            packet(random, left, out);
+            out.append('\n');
+            packet(random, right, out);
+            out.append('\n');
+        }
+    }
+
+    private static void packet(SplittableRandom random, int first, Appendable out) throws IOException {
+        out.append('[').append(String.valueOf(first));
+        var size = random.nextInt(5);
+        for (var i = 0; i < size; i++) {
+            out.append(',');
+            packetValue(random, 1, out);
+        }
+        out.append(']');
+    }
+
+    private static void packetValue(SplittableRandom random, int depth, Appendable out) throws IOException {
+        if (depth >= 4 || random.nextInt(3) != 0) {
+            out.append(String.valueOf(random.nextInt(11)));
+            return;
+        }
+        out.append('[');
+        var size = random.nextInt(5);
+        for (var i = 0; i < size; i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            packetValue(random, depth + 1, out);
+        }
+        out.append(']');
+    }
+
+    // Day 14: the cave gets wider with the scale, but never deeper than 480. With the floor of part 2 the sand spreads
+    // one column per row to both sides of x=500 and must not run past x=0.
+    private static void rockPaths(SplittableRandom random, double scale, Appendable out) throws IOException {
+        var paths = scaled(140, scale);
+        var halfWidth = Math.clamp(Math.round(50 * Math.sqrt(scale)), 10, 490);
+        var depth = Math.clamp(Math.round(160 * Math.sqrt(scale)), 20, 480);
+        for (var path = 0; path < paths; path++) {
+            var x = 500 + random.nextInt(-halfWidth, halfWidth + 1);
+            var y = random.nextInt(5, depth + 1);
+            out.append(String.valueOf(x)).append(',').append(String.valueOf(y));
+            var segments = random.nextInt(1, 6);
+            var horizontal = random.nextBoolean();
+            for (var segment = 0; segment < segments; segment++) {
+                // Turn around at the edges, a segment must not have length 0.
+                var length = random.nextInt(1, 11) * (random.nextBoolean() ? 1 : -1);
+                if (horizontal) {
+                    x = x + length < 500 - halfWidth || x + length > 500 + halfWidth ? x - length : x + length;
+                } else {
+                    y = y + length < 5 || y + length > depth ? y - length : y + length;
+                }
+                horizontal = !horizontal;
+                out.append(" -> ").append(String.valueOf(x)).append(',').append(String.valueOf(y));
+            }
+            out.append('\n');
+        }
+    }
+
+    // Day 15: no sensor covers a hidden point inside the 0..4_000_000 search area, so part 2 always has an answer.
+    private static void sensors(SplittableRandom random, double scale, Appendable out) throws IOException {
+        var sensors = scaled(24, scale);
+        var size = 4_000_000;
+        var hiddenX = random.nextInt(size + 1);
+        var hiddenY = random.nextInt(size + 1);
+        for (var i = 0; i < sensors; i++) {
+            int x;
+            int y;
+            do {
+                x = random.nextInt(size + 1);
+                y = random.nextInt(size + 1);
+            } while (Math.abs(x - hiddenX) + Math.abs(y - hiddenY) < 2);
+            var maxRadius = Math.abs(x - hiddenX) + Math.abs(y - hiddenY) - 1;
+            var radius = random.nextInt(maxRadius / 2, maxRadius + 1);
+            var dx = random.nextInt(-radius, radius + 1);
+            var dy = (radius - Math.abs(dx)) * (random.nextBoolean() ? 1 : -1);
+            out.append("Sensor at x=").append(String.valueOf(x)).append(", y=").append(String.valueOf(y))
+                    .append(": closest beacon is at x=").append(String.valueOf(x + dx))
+                    .append(", y=").append(String.valueOf(y + dy)).append('\n');
+        }
+    }
+
+    // Day 16: a connected, undirected tunnel system starting at AA, where a quarter of the valves have a flow rate.
+    // Like the bundled input it consists mostly of long corridors, otherwise every valve is in reach within 30 minutes
+    // and the search explodes.
+    private static void valves(SplittableRandom random, double scale, Appendable out) throws IOException {
+        var count = Math.max(2, scaled(60, scale));
+        var labels = new ArrayList<String>(count);
+        var used = new HashSet<String>();
+        labels.add("AA");
+        used.add("AA");
+        var labelLength = 2;
+        while (Math.pow(26, labelLength) < 2.0 * count) {
+            labelLength++;
+        }
+        while (labels.size() < count) {
+            var label = randomWord(random, labelLength).toUpperCase();
+            if (used.add(label)) {
+                labels.add(label);
+            }
+        }
+        List<Set<Integer>> neighbors = new ArrayList<>(count);
+        for (var i = 0; i < count; i++) {
+            neighbors.add(new LinkedHashSet<>());
+        }
+        // A random spanning tree keeps everything reachable, the extra edges add cycles.
+        for (var i = 1; i < count; i++) {
+            connect(neighbors, i, random.nextInt(Math.max(0, i - 3), i));
+        }
+        for (var i = 0; i < count / 20; i++) {
+            var a = random.nextInt(count);
+            var b = random.nextInt(count);
+            if (a != b) {
+                connect(neighbors, a, b);
+            }
+        }
+        for (var i = 0; i < count; i++) {
+            var flowRate = i != 0 && random.nextInt(4) == 0 ? random.nextInt(1, 26) : 0;
+            var tunnels = neighbors.get(i);
+            out.append("Valve ").append(labels.get(i)).append(" has flow rate=").append(String.valueOf(flowRate))
+                    .append(tunnels.size() == 1 ? "; tunnel leads to valve " : "; tunnels lead to valves ");
+            var first = true;
+            for (var neighbor : tunnels) {
+                if (!first) {
+                    out.append(", ");
+                }
+                out.append(labels.get(neighbor));
+                first = false;
+            }
+            out.append('\n');
+        }
+    }
+
+    private static void connect(List<Set<Integer>> neighbors, int a, int b) {
+        neighbors.get(a).add(b);
+        neighbors.get(b).add(a);
+    }
+
+    // Day 17
+    private static void jets(SplittableRandom random, double scale, Appendable out) throws IOException {
+        var jets = scaled(10091, scale);
+        for (var i = 0; i < jets; i++) {
+            out.append(random.nextBoolean() ? '>' : '<');
+        }
+        out.append('\n');
+    }
+
+    // Day 18: a droplet of random cubes in a ball, dense enough to enclose air pockets.
+    private static void voxels(SplittableRandom random, double scale, Appendable out) throws IOException {
+        var cubes = scaled(2834, scale);
+        // The bundled droplet fills about half of a ball with a radius of 10.
+        var radius = Math.cbrt(cubes * 2 * 3 / (4 * Math.PI));
+        var size = (int) Math.ceil(2 * radius) + 1;
+        var center = size / 2.0;
+        var seen = new HashSet<Long>();
+        var written = 0;
+        while (written < cubes) {
+            var x = random.nextInt(size);
+            var y = random.nextInt(size);
+            var z = random.nextInt(size);
+            var dx = x - center;
+            var dy = y - center;
+            var dz = z - center;
+            if (dx * dx + dy * dy + dz * dz > radius * radius && written < cubes - 1 && seen.size() < cubes * 4) {
+                continue;
+            }
+            if (seen.add(((long) x << 42) | ((long) y << 21) | z)) {
+                out.append(String.valueOf(x)).append(',').append(String.valueOf(y)).append(',')
+                        .append(String.valueOf(z)).append('\n');
+                written++;
+            }
+        }
+    }
+
+    // Day 21: a random expression tree with root at the top and humn as one of its leaves. Values are computed bottom
+    // up and an operator is only used where it yields a non-negative integer, so every division is exact.
+    private static void monkeys(SplittableRandom random, double scale, Appendable out) throws IOException {
+        var leaves = Math.max(2, scaled(959, scale));
+        var used = new HashSet<>(List.of("root", "humn"));
+        var lines = new ArrayList<String>(2 * leaves);
+        // Keep the names sparse, otherwise finding an unused one gets slow.
+        var nameLength = leaves < 50_000 ? 4 : leaves < 1_000_000 ? 5 : 6;
+        var monkeys = new MonkeyTree(random, random.nextInt(leaves), nameLength, used, lines);
+        monkeys.define("root", leaves);
+        // Definitions appear in random order, as in the bundled input.
+        for (var i = lines.size() - 1; i > 0; i--) {
+            var j = random.nextInt(i + 1);
+            var line = lines.get(i);
+            lines.set(i, lines.get(j));
+            lines.set(j, line);
+        }
+        for (var line : lines) {
+            out.append(line).append('\n');
+        }
+    }
+
+    private record Monkey(String name, long value) {
+    }
+
+    private static final class MonkeyTree {
+        private final SplittableRandom random;
+        private final int humn;
+        private final int nameLength;
+        private final Set<String> used;
+        private final List<String> lines;
+        private int leafCounter;
+
+        MonkeyTree(SplittableRandom random, int humn, int nameLength, Set<String> used, List<String> lines) {
+            this.random = random;
+            this.humn = humn;
+            this.nameLength = nameLength;
+            this.used = used;
+            this.lines = lines;
+        }
+
+        // Writes the definition of a subtree with the given number of leaves. name is null for anything but root.
+        Monkey define(String name, int leaves) {
+            if (leaves == 1) {
+                var leafName = leafCounter++ == humn ? "humn" : uniqueName(random, nameLength, used);
+                var value = random.nextInt(1, 21);
+                lines.add(leafName + ": " + value);
+                return new Monkey(leafName, value);
+            }
+            var leftLeaves = leaves < 4 ? 1 : random.nextInt(leaves / 4, leaves - leaves / 4);
+            var left = define(null, leftLeaves);
+            var right = define(null, leaves - leftLeaves);
+
+            char operator;
+            long value;
+            var choice = name != null ? 0 : random.nextInt(4);
+            if (choice == 1 && left.value() >= right.value()) {
+                operator = '-';
+                value = left.value() - right.value();
+            } else if (choice == 2 && left.value() <= 1_000_000 && right.value() <= 1_000_000) {
+                operator = '*';
+                value = left.value() * right.value();
+            } else if (choice == 3 && right.value() != 0 && left.value() % right.value() == 0) {
+                operator = '/';
+                value = left.value() / right.value();
+            } else {
+                operator = '+';
+                value = left.value() + right.value();
+            }
+            var self = name != null ? name : uniqueName(random, nameLength, used);
+            lines.add(self + ": " + left.name() + " " + operator + " " + right.name());
+            return new Monkey(self, value);
+        }
+    }
+
+    private static String uniqueName(SplittableRandom random, int length, Set<String> used) {
+        while (true) {
+            var name = randomWord(random, length);
+            if (used.add(name)) {
+                return name;
+            }
+        }
+    }
+
+    private static String randomWord(SplittableRandom random, int length) {
+        var word = new StringBuilder(length);
+        for (var i = 0; i < length; i++) {
+            word.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+        }
+        return word.toString();
+    }
+
+    // Day 22: every row is a single run of tiles with a random offset and length, separated from the path by a
+    // blank line. The first tile of the first row is open, that is where the path starts.
+    private static void board(SplittableRandom random, double scale, Appendable out) throws IOException {
+        var rows = Math.max(1, (int) Math.round(200 * Math.sqrt(scale)));
+        var columns = Math.max(2, (int) Math.round(150 * Math.sqrt(scale)));
+        for (var row = 0; row < rows; row++) {
+            var start = random.nextInt(columns / 2);
+            var end = random.nextInt(start + 1, columns + 1);
+            for (var column = 0; column < end; column++) {
+                if (column < start) {
+                    out.append(' ');
+                } else if (row == 0 && column == start) {
+                    out.append('.');
+                } else {
+                    out.append(random.nextInt(10) == 0 ? '#' : '.');
+                }
+            }
+            out.append('\n');
+        }
+        out.append('\n');
+        var moves = scaled(2001, scale);
+        for (var move = 0; move < moves; move++) {
+            out.append(String.valueOf(random.nextInt(1, 51)));
+            if (move < moves - 1) {
+                out.append(random.nextBoolean() ? 'R' : 'L');
+            }
+        }
+        out.append('\n');
+    }
+
+    // Day 23
+    private static void elves(SplittableRandom random, double scale, Appendable out) throws IOException {
+        var size = Math.max(1, (int) Math.round(75 * Math.sqrt(scale)));
+        for (var row = 0; row < size; row++) {
+            for (var column = 0; column < size; column++) {
+                out.append(random.nextInt(100) < 45 ? '#' : '.');
+            }
+            out.append('\n');
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package aoc.grid;
+
+// A dense 2D grid of flags, one bit per cell, in a CellStorage. Reading outside of the grid returns false. Close it to
+// free off-heap or mapped storage.
+public final class BitGrid implements AutoCloseable {
+
+    private final int width;
+    private final int height;
+    private final long words;
+    private final CellStorage bits;
+
+    public BitGrid(int width, int height) {
+        if (width < 0 || height < 0) {
+            throw new IllegalArgumentException("Invalid grid size " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        this.words = ((long) width * height + 63) >>> 6;
+        this.bits = CellStorage.allocate(words * Long.BYTES);
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    public boolean inBounds(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    public boolean get(int x, int y) {
+        if (!inBounds(x, y)) {
+            return false;
+        }
+        var index = (long) y * width + x;
+        return (bits.getLong(index >>> 6) & (1L << index)) != 0;
+    }
+
+    public void set(int x, int y) {
+        var index = checkedIndex(x, y);
+        bits.setLong(index >>> 6, bits.getLong(index >>> 6) | 1L << index);
+    }
+
+    public void clear(int x, int y) {
+        var index = checkedIndex(x, y);
+        bits.setLong(index >>> 6, bits.getLong(index >>> 6) & ~(1L << index));
+    }
+
+    public void clear() {
+        bits.fill((byte) 0);
+    }
+
+    public long cardinality() {
+        return bits.bitCount(words);
+    }
+
+    private long checkedIndex(int x, int y) {
+        if (!inBounds(x, y)) {
+            throw new IndexOutOfBoundsException("(" + x + "," + y + ") is outside of " + width + "x" + height);
+        }
+        return (long) y * width + x;
+    }
+
+    @Override
+    public void close() {
+        bits.close();
+    }
+}
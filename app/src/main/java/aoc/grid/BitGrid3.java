@@ -0,0 +1,61 @@
+package aoc.grid;
+
+// A dense 3D grid of flags, one bit per cell, for the box from (minX, minY, minZ) with the given size. Reading outside
+// of the box returns false. The bits are kept in a CellStorage, close the grid to free off-heap or mapped storage.
+public final class BitGrid3 implements AutoCloseable {
+
+    private final int minX;
+    private final int minY;
+    private final int minZ;
+    private final int sizeX;
+    private final int sizeY;
+    private final int sizeZ;
+    private final CellStorage bits;
+
+    public BitGrid3(int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ) {
+        var cells = (long) sizeX * sizeY * sizeZ;
+        if (sizeX < 0 || sizeY < 0 || sizeZ < 0) {
+            throw new IllegalArgumentException("Invalid grid size " + sizeX + "x" + sizeY + "x" + sizeZ);
+        }
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.sizeZ = sizeZ;
+        this.bits = CellStorage.allocate(((cells + 63) >>> 6) * Long.BYTES);
+    }
+
+    public boolean inBounds(int x, int y, int z) {
+        return x >= minX && x - minX < sizeX && y >= minY && y - minY < sizeY && z >= minZ && z - minZ < sizeZ;
+    }
+
+    public boolean get(int x, int y, int z) {
+        if (!inBounds(x, y, z)) {
+            return false;
+        }
+        var index = index(x, y, z);
+        return (bits.getLong(index >>> 6) & (1L << index)) != 0;
+    }
+
+    // Sets the flag and returns whether it was clear before.
+    public boolean set(int x, int y, int z) {
+        if (!inBounds(x, y, z)) {
+            throw new IndexOutOfBoundsException("(" + x + "," + y + "," + z + ") is outside of the grid");
+        }
+        var index = index(x, y, z);
+        var word = index >>> 6;
+        var before = bits.getLong(word);
+        bits.setLong(word, before | (1L << index));
+        return (before & (1L << index)) == 0;
+    }
+
+    private long index(int x, int y, int z) {
+        return ((long) (x - minX) * sizeY + (y - minY)) * sizeZ + (z - minZ);
+    }
+
+    @Override
+    public void close() {
+        bits.close();
+    }
+}
@@ -0,0 +1,96 @@
+package aoc.grid;
+
+// A dense 2D grid with one byte per cell, stored row by row in a CellStorage. Cells can be addressed by x and y or by
+// their index, which is cheaper to keep in queues and arrays. Indexes are longs like the offsets of CellStorage, so a
+// grid may have more than 2^31 cells as long as its storage is off-heap or mapped. Close it to free that storage.
+public final class ByteGrid implements AutoCloseable {
+
+    private final int width;
+    private final int height;
+    private final CellStorage cells;
+
+    public ByteGrid(int width, int height) {
+        this(width, height, null);
+    }
+
+    // mode is null for the mode of CellStorage.allocate.
+    public ByteGrid(int width, int height, CellStorage.Mode mode) {
+        if (width < 0 || height < 0) {
+            throw new IllegalArgumentException("Invalid grid size " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        var bytes = (long) width * height;
+        this.cells = mode == null ? CellStorage.allocate(bytes) : CellStorage.allocate(bytes, mode);
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    public boolean inBounds(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    public long index(int x, int y) {
+        return (long) y * width + x;
+    }
+
+    public int x(long index) {
+        return (int) (index % width);
+    }
+
+    public int y(long index) {
+        return (int) (index / width);
+    }
+
+    public byte get(int x, int y) {
+        return cells.getByte(index(x, y));
+    }
+
+    public void set(int x, int y, byte value) {
+        cells.setByte(index(x, y), value);
+    }
+
+    public byte get(long index) {
+        return cells.getByte(index);
+    }
+
+    public void set(long index, byte value) {
+        cells.setByte(index, value);
+    }
+
+    public void fill(byte value) {
+        cells.fill(0, (long) width * height, value);
+    }
+
+    // Sets every cell of the rows [fromY, fromY + rows).
+    public void fillRows(int fromY, int rows, byte value) {
+        cells.fill((long) fromY * width, (long) rows * width, value);
+    }
+
+    // Copies the rows [fromY, fromY + rows) to the rows starting at toY, the ranges may overlap.
+    public void copyRows(int fromY, int toY, int rows) {
+        cells.copy((long) fromY * width, (long) toY * width, (long) rows * width);
+    }
+
+    // The index of the neighbor of a cell in one of the Neighbors.DX4/DY4 directions, -1 if it is outside the grid.
+    public long neighbor(long index, int direction) {
+        var x = x(index) + Neighbors.DX4[direction];
+        var y = y(index) + Neighbors.DY4[direction];
+        return inBounds(x, y) ? index(x, y) : -1;
+    }
+
+    public CellStorage.Mode mode() {
+        return cells.mode();
+    }
+
+    @Override
+    public void close() {
+        cells.close();
+    }
+}
@@ -0,0 +1,152 @@
+package aoc.grid;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+
+// The zeroed memory behind the dense grids, a MemorySegment in one of three places:
+//
+// - HEAP: a long[] on the heap, for small grids where an arena would cost more than it saves.
+// - OFF_HEAP: native memory of a shared arena. Neither counts against -Xmx nor is scanned or copied by the GC, so
+//   grids of several GB need no heap tuning. It is freed by close.
+// - MAPPED: a temporary file in aoc.grid.dir (default java.io.tmpdir) mapped read-write, for grids larger than the
+//   memory of the machine. The file is deleted when the storage is opened and the mapping is released by close.
+//
+// allocate picks the mode from the system property aoc.grid.storage: heap, offheap, mapped or auto, the default, which
+// keeps grids below AUTO_OFF_HEAP_BYTES on the heap and puts larger ones off-heap. Off-heap and mapped storage must
+// be closed, closing heap storage does nothing. Neither is safe for concurrent writes.
+public final class CellStorage implements AutoCloseable {
+
+    public enum Mode {
+        HEAP,
+        OFF_HEAP,
+        MAPPED
+    }
+
+    static final long AUTO_OFF_HEAP_BYTES = 16L << 20;
+    // Multiples of a long, so that bit grids can read and write whole words.
+    private static final long ALIGNMENT = Long.BYTES;
+
+    private final Mode mode;
+    private final MemorySegment segment;
+    private final Arena arena;
+
+    private CellStorage(Mode mode, MemorySegment segment, Arena arena) {
+        this.mode = mode;
+        this.segment = segment;
+        this.arena = arena;
+    }
+
+    public static CellStorage allocate(long bytes) {
+        return allocate(bytes, configuredMode(bytes));
+    }
+
+    public static CellStorage allocate(long bytes, Mode mode) {
+        if (bytes < 0) {
+            throw new IllegalArgumentException("Invalid storage size " + bytes);
+        }
+        var size = (bytes + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+        return switch (mode) {
+            case HEAP -> {
+                if (size / Long.BYTES > Integer.MAX_VALUE - 8) {
+                    throw new IllegalArgumentException(bytes + " bytes do not fit into an array, use off-heap storage");
+                }
+                yield new CellStorage(mode, MemorySegment.ofArray(new long[(int) (size / Long.BYTES)]), null);
+            }
+            case OFF_HEAP -> {
+                var arena = Arena.ofShared();
+                yield new CellStorage(mode, arena.allocate(size, ALIGNMENT), arena);
+            }
+            case MAPPED -> map(size);
+        };
+    }
+
+    static Mode configuredMode(long bytes) {
+        var mode = System.getProperty("aoc.grid.storage", "auto").toLowerCase(Locale.ROOT);
+        return switch (mode) {
+            case "heap" -> Mode.HEAP;
+            case "offheap" -> Mode.OFF_HEAP;
+            case "mapped" -> Mode.MAPPED;
+            case "auto" -> bytes < AUTO_OFF_HEAP_BYTES ? Mode.HEAP : Mode.OFF_HEAP;
+            default -> throw new IllegalArgumentException("Unknown aoc.grid.storage " + mode
+                    + ", expected heap, offheap, mapped or auto");
+        };
+    }
+
+    private static CellStorage map(long size) {
+        var directory = Path.of(System.getProperty("aoc.grid.dir", System.getProperty("java.io.tmpdir")));
+        var arena = Arena.ofShared();
+        try {
+            var file = Files.createTempFile(directory, "grid-", ".cells");
+            // The mapping outlives the file, which is gone as soon as the channel is closed.
+            try (var channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                    StandardOpenOption.DELETE_ON_CLOSE)) {
+                return new CellStorage(Mode.MAPPED, channel.map(FileChannel.MapMode.READ_WRITE, 0, size, arena),
+                        arena);
+            }
+        } catch (IOException e) {
+            arena.close();
+            throw new UncheckedIOException("Cannot map " + size + " bytes in " + directory, e);
+        }
+    }
+
+    public Mode mode() {
+        return mode;
+    }
+
+    public long byteSize() {
+        return segment.byteSize();
+    }
+
+    public byte getByte(long offset) {
+        return segment.get(ValueLayout.JAVA_BYTE, offset);
+    }
+
+    public void setByte(long offset, byte value) {
+        segment.set(ValueLayout.JAVA_BYTE, offset, value);
+    }
+
+    public long getLong(long word) {
+        return segment.getAtIndex(ValueLayout.JAVA_LONG, word);
+    }
+
+    public void setLong(long word, long value) {
+        segment.setAtIndex(ValueLayout.JAVA_LONG, word, value);
+    }
+
+    public void fill(byte value) {
+        segment.fill(value);
+    }
+
+    public void fill(long offset, long length, byte value) {
+        segment.asSlice(offset, length).fill(value);
+    }
+
+    // Copies length bytes within the storage, the ranges may overlap.
+    public void copy(long from, long to, long length) {
+        MemorySegment.copy(segment, from, segment, to, length);
+    }
+
+    // The number of set bits in the words [0, words).
+    public long bitCount(long words) {
+        var count = 0L;
+        for (long i = 0; i < words; i++) {
+            count += Long.bitCount(getLong(i));
+        }
+        return count;
+    }
+
+    @Override
+    public void close() {
+        if (arena != null) {
+            arena.close();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package aoc.grid;
+
+// Packs coordinates into a single long, so that they can be used as keys of a LongHashSet or LongIntMap instead of a
+// record per cell.
+//
+// 2D coordinates use the full int range: x in the upper and y in the lower 32 bits. 3D coordinates use 21 bits each
+// and are limited to -2^20 .. 2^20 - 1.
+public final class Coordinates {
+
+    public static final int MIN_3D = -(1 << 20);
+    public static final int MAX_3D = (1 << 20) - 1;
+
+    private static final long MASK_21 = (1L << 21) - 1;
+
+    private Coordinates() {
+    }
+
+    public static long pack(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFF_FFFFL);
+    }
+
+    public static int x(long packed) {
+        return (int) (packed >> 32);
+    }
+
+    public static int y(long packed) {
+        return (int) packed;
+    }
+
+    public static long pack(int x, int y, int z) {
+        if (x < MIN_3D || x > MAX_3D || y < MIN_3D || y > MAX_3D || z < MIN_3D || z > MAX_3D) {
+            throw new IllegalArgumentException("Coordinate out of range: " + x + "," + y + "," + z);
+        }
+        return ((x & MASK_21) << 42) | ((y & MASK_21) << 21) | (z & MASK_21);
+    }
+
+    // Shifting left first and then arithmetically right restores the sign of the 21 bit value.
+    public static int x3(long packed) {
+        return (int) (packed << 1 >> 43);
+    }
+
+    public static int y3(long packed) {
+        return (int) (packed << 22 >> 43);
+    }
+
+    public static int z3(long packed) {
+        return (int) (packed << 43 >> 43);
+    }
+}
@@ -0,0 +1,161 @@
+package aoc.grid;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+// A set of longs, typically packed Coordinates, without boxing. Open addressing with linear probing in a table that is
+// at most half full. 0 marks a free slot, so the key 0 is kept in a separate flag.
+public final class LongHashSet {
+
+    private long[] keys;
+    private int mask;
+    private boolean containsZero;
+    private int size;
+
+    public LongHashSet() {
+        this(16);
+    }
+
+    public LongHashSet(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(long key) {
+        if (key == 0) {
+            return containsZero;
+        }
+        for (var slot = slot(key, mask); keys[slot] != 0; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Returns whether the key was added, false if it was present already.
+    public boolean add(long key) {
+        if (key == 0) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+        var slot = slot(key, mask);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        if (++size > (mask + 1) / 2) {
+            rehash(keys.length * 2);
+        }
+        return true;
+    }
+
+    // Returns whether the key was present.
+    public boolean remove(long key) {
+        if (key == 0) {
+            if (!containsZero) {
+                return false;
+            }
+            containsZero = false;
+            size--;
+            return true;
+        }
+        var slot = slot(key, mask);
+        while (keys[slot] != key) {
+            if (keys[slot] == 0) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        // Move later keys of the same probe sequence into the gap, so that lookups do not stop at it.
+        var gap = slot;
+        for (var next = (gap + 1) & mask; keys[next] != 0; next = (next + 1) & mask) {
+            var home = slot(keys[next], mask);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                gap = next;
+            }
+        }
+        keys[gap] = 0;
+        size--;
+        return true;
+    }
+
+    // Keeps the table, so that refilling a set of the same size does not allocate.
+    public void clear() {
+        Arrays.fill(keys, 0);
+        containsZero = false;
+        size = 0;
+    }
+
+    public void forEach(LongConsumer action) {
+        if (containsZero) {
+            action.accept(0);
+        }
+        for (var key : keys) {
+            if (key != 0) {
+                action.accept(key);
+            }
+        }
+    }
+
+    public long[] toArray() {
+        var result = new long[size];
+        var i = 0;
+        if (containsZero) {
+            result[i++] = 0;
+        }
+        for (var key : keys) {
+            if (key != 0) {
+                result[i++] = key;
+            }
+        }
+        return result;
+    }
+
+    static int capacityFor(int expectedSize) {
+        if (expectedSize < 0 || expectedSize > 1 << 29) {
+            throw new IllegalArgumentException("Invalid expected size " + expectedSize);
+        }
+        return Math.max(16, Integer.highestOneBit(Math.max(1, expectedSize) * 2 - 1) << 1);
+    }
+
+    // Fibonacci hashing, packed coordinates differ mostly in the low bits of both halves.
+    static int slot(long key, int mask) {
+        var hash = key * 0x9E37_79B9_7F4A_7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    private void rehash(int capacity) {
+        var old = keys;
+        allocate(capacity);
+        for (var key : old) {
+            if (key != 0) {
+                var slot = slot(key, mask);
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+            }
+        }
+    }
+}
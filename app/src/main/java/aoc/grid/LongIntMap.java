@@ -0,0 +1,142 @@
+package aoc.grid;
+
+import java.util.Arrays;
+
+// A map from long to int, typically from packed Coordinates to a count or an id, without boxing. Same layout as
+// LongHashSet: open addressing with linear probing, 0 marks a free slot and the key 0 is kept separately.
+public final class LongIntMap {
+
+    @FunctionalInterface
+    public interface Entry {
+        void accept(long key, int value);
+    }
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private boolean containsZero;
+    private int zeroValue;
+    private int size;
+
+    public LongIntMap() {
+        this(16);
+    }
+
+    public LongIntMap(int expectedSize) {
+        allocate(LongHashSet.capacityFor(expectedSize));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(long key) {
+        return key == 0 ? containsZero : find(key) >= 0;
+    }
+
+    public int get(long key, int missing) {
+        if (key == 0) {
+            return containsZero ? zeroValue : missing;
+        }
+        var slot = find(key);
+        return slot >= 0 ? values[slot] : missing;
+    }
+
+    public void put(long key, int value) {
+        if (key == 0) {
+            if (!containsZero) {
+                containsZero = true;
+                size++;
+            }
+            zeroValue = value;
+            return;
+        }
+        var slot = insertionSlot(key);
+        values[slot] = value;
+        if (keys[slot] == 0) {
+            keys[slot] = key;
+            grow();
+        }
+    }
+
+    // Adds delta to the value of the key, which counts as 0 if it is missing, and returns the new value.
+    public int addTo(long key, int delta) {
+        if (key == 0) {
+            if (!containsZero) {
+                containsZero = true;
+                zeroValue = 0;
+                size++;
+            }
+            return zeroValue += delta;
+        }
+        var slot = insertionSlot(key);
+        if (keys[slot] == 0) {
+            keys[slot] = key;
+            values[slot] = delta;
+            grow();
+            return delta;
+        }
+        return values[slot] += delta;
+    }
+
+    // Keeps the table, so that refilling a map of the same size does not allocate.
+    public void clear() {
+        Arrays.fill(keys, 0);
+        containsZero = false;
+        size = 0;
+    }
+
+    public void forEach(Entry action) {
+        if (containsZero) {
+            action.accept(0, zeroValue);
+        }
+        for (var slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != 0) {
+                action.accept(keys[slot], values[slot]);
+            }
+        }
+    }
+
+    private int find(long key) {
+        for (var slot = LongHashSet.slot(key, mask); keys[slot] != 0; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    // The slot of the key or the free slot where it belongs.
+    private int insertionSlot(long key) {
+        var slot = LongHashSet.slot(key, mask);
+        while (keys[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        if (++size > (mask + 1) / 2) {
+            var oldKeys = keys;
+            var oldValues = values;
+            allocate(keys.length * 2);
+            for (var i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    var slot = insertionSlot(oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+}
@@ -0,0 +1,26 @@
+package aoc.grid;
+
+// Offsets of the neighbors of a cell, to iterate them with an index instead of creating a list of positions per cell:
+//
+//     for (int d = 0; d < Neighbors.DX4.length; d++) {
+//         visit(x + Neighbors.DX4[d], y + Neighbors.DY4[d]);
+//     }
+//
+// The arrays must not be modified.
+public final class Neighbors {
+
+    // Up, down, right, left, with y growing downwards.
+    public static final int[] DX4 = {0, 0, 1, -1};
+    public static final int[] DY4 = {-1, 1, 0, 0};
+
+    // Clockwise, starting top left.
+    public static final int[] DX8 = {-1, 0, 1, 1, 1, 0, -1, -1};
+    public static final int[] DY8 = {-1, -1, -1, 0, 1, 1, 1, 0};
+
+    public static final int[] DX6 = {1, -1, 0, 0, 0, 0};
+    public static final int[] DY6 = {0, 0, 1, -1, 0, 0};
+    public static final int[] DZ6 = {0, 0, 0, 0, 1, -1};
+
+    private Neighbors() {
+    }
+}
@@ -0,0 +1,101 @@
+package aoc.input;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.net.URISyntaxException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// The bytes of a puzzle input. Files are memory-mapped, so opening even a multi-hundred-MB input costs nothing until
+// the parser reads it. The parsers read it through an InputCursor, which does not copy or decode anything.
+//
+// A mapped input stays valid until it is closed. Parsers copy what they need into their own structures, so the input
+// can be closed as soon as parse returns.
+public final class Input implements AutoCloseable {
+
+    private final MemorySegment bytes;
+    private final Arena arena;
+
+    private Input(MemorySegment bytes, Arena arena) {
+        this.bytes = bytes;
+        this.arena = arena;
+    }
+
+    public static Input map(Path path) {
+        var arena = Arena.ofShared();
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new Input(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena), arena);
+        } catch (IOException e) {
+            arena.close();
+            throw new UncheckedIOException("Cannot map " + path, e);
+        }
+    }
+
+    public static Input of(byte[] bytes) {
+        return new Input(MemorySegment.ofArray(bytes), null);
+    }
+
+    // The first length bytes of the array, e.g. of a buffer that is reused for the next input once this one is parsed.
+    public static Input of(byte[] bytes, int length) {
+        return new Input(MemorySegment.ofArray(bytes).asSlice(0, length), null);
+    }
+
+    public static Input of(String text) {
+        return of(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Maps a classpath resource if it is a plain file. Resources inside a jar cannot be mapped (and have no Path that
+    // Path.of(getResource(...).toURI()) could resolve), so those are read into memory instead.
+    public static Input resource(String name) {
+        var url = Input.class.getResource(name);
+        if (url == null) {
+            throw new IllegalArgumentException("There is no resource " + name);
+        }
+        try {
+            if (url.getProtocol().equals("file")) {
+                return map(Path.of(url.toURI()));
+            }
+            try (var stream = url.openStream()) {
+                return of(stream.readAllBytes());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read " + name, e);
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException("Cannot resolve " + url, e);
+        }
+    }
+
+    public long size() {
+        return bytes.byteSize();
+    }
+
+    public byte byteAt(long offset) {
+        return bytes.get(ValueLayout.JAVA_BYTE, offset);
+    }
+
+    public MemorySegment segment() {
+        return bytes;
+    }
+
+    public InputCursor cursor() {
+        return new InputCursor(bytes, 0, bytes.byteSize());
+    }
+
+    // A decoded copy of the whole input, for tools that work on the text, such as DifferentialChecker, which turns the
+    // bundled input into a case and shrinks failing inputs line by line. The parsers all read with the cursor.
+    public String asString() {
+        return new String(bytes.toArray(ValueLayout.JAVA_BYTE), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() {
+        if (arena != null) {
+            arena.close();
+        }
+    }
+}
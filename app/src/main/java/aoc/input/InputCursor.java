@@ -0,0 +1,178 @@
+package aoc.input;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.charset.StandardCharsets;
+
+// Reads an input front to back without copying it. Numbers are parsed straight from the bytes and lines, literals and
+// separators are skipped in place, so a parser built on the cursor only allocates the structures it produces.
+//
+// Malformed input is reported as an IllegalArgumentException that names the offending offset.
+public final class InputCursor {
+
+    private final MemorySegment bytes;
+    private final long limit;
+    private long position;
+
+    InputCursor(MemorySegment bytes, long position, long limit) {
+        this.bytes = bytes;
+        this.position = position;
+        this.limit = limit;
+    }
+
+    public long position() {
+        return position;
+    }
+
+    public boolean hasRemaining() {
+        return position < limit;
+    }
+
+    // Returns the next byte without consuming it, or -1 at the end of the input.
+    public int peek() {
+        return position < limit ? bytes.get(ValueLayout.JAVA_BYTE, position) : -1;
+    }
+
+    public int peek(int ahead) {
+        return position + ahead < limit ? bytes.get(ValueLayout.JAVA_BYTE, position + ahead) : -1;
+    }
+
+    public byte next() {
+        if (position >= limit) {
+            throw error("Unexpected end of input");
+        }
+        return bytes.get(ValueLayout.JAVA_BYTE, position++);
+    }
+
+    // Consumes the next byte if it is c.
+    public boolean skip(char c) {
+        if (peek() == c) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    public void expect(char c) {
+        if (!skip(c)) {
+            throw error("Expected '" + c + "'");
+        }
+    }
+
+    // Consumes the literal if the input continues with it.
+    public boolean skip(String literal) {
+        var length = literal.length();
+        if (position + length > limit) {
+            return false;
+        }
+        for (var i = 0; i < length; i++) {
+            if (bytes.get(ValueLayout.JAVA_BYTE, position + i) != literal.charAt(i)) {
+                return false;
+            }
+        }
+        position += length;
+        return true;
+    }
+
+    public void expect(String literal) {
+        if (!skip(literal)) {
+            throw error("Expected \"" + literal + "\"");
+        }
+    }
+
+    public boolean isDigit() {
+        var c = peek();
+        return c >= '0' && c <= '9';
+    }
+
+    public boolean isLetter() {
+        var c = peek();
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    public int nextInt() {
+        var value = nextLong();
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw error("Integer out of range: " + value);
+        }
+        return (int) value;
+    }
+
+    public long nextLong() {
+        var negative = skip('-');
+        if (!isDigit()) {
+            throw error("Expected a number");
+        }
+        var value = 0L;
+        while (isDigit()) {
+            value = Math.addExact(Math.multiplyExact(value, 10), bytes.get(ValueLayout.JAVA_BYTE, position++) - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    // Returns the run of letters and digits at the cursor. This is the only read that allocates.
+    public String nextWord() {
+        var start = position;
+        while (isLetter() || isDigit() || peek() == '_') {
+            position++;
+        }
+        if (start == position) {
+            throw error("Expected a word");
+        }
+        return new String(bytes.asSlice(start, position - start).toArray(ValueLayout.JAVA_BYTE), StandardCharsets.US_ASCII);
+    }
+
+    public void skipSpaces() {
+        while (peek() == ' ') {
+            position++;
+        }
+    }
+
+    public boolean atLineEnd() {
+        var c = peek();
+        return c == -1 || c == '\n' || (c == '\r' && peek(1) == '\n');
+    }
+
+    // Moves past the end of the current line, skipping anything left on it. Returns false at the end of the input.
+    public boolean nextLine() {
+        while (position < limit && bytes.get(ValueLayout.JAVA_BYTE, position) != '\n') {
+            position++;
+        }
+        if (position < limit) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    // The number of bytes until the end of the current line, excluding the line terminator.
+    public int lineLength() {
+        var end = position;
+        while (end < limit && bytes.get(ValueLayout.JAVA_BYTE, end) != '\n') {
+            end++;
+        }
+        if (end > position && bytes.get(ValueLayout.JAVA_BYTE, end - 1) == '\r') {
+            end--;
+        }
+        return (int) (end - position);
+    }
+
+    public void skipBlankLines() {
+        while (hasRemaining() && atLineEnd()) {
+            nextLine();
+        }
+    }
+
+    public void expectLineEnd() {
+        if (!atLineEnd()) {
+            throw error("Expected the end of the line");
+        }
+        nextLine();
+    }
+
+    public IllegalArgumentException error(String message) {
+        var c = peek();
+        var found = c == -1 ? "end of input" : c == '\n' ? "'\\n'" : "'" + (char) c + "'";
+        return new IllegalArgumentException(message + " at offset " + position + ", found " + found);
+    }
+}
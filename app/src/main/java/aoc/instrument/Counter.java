@@ -0,0 +1,63 @@
+package aoc.instrument;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+// A named count of work a solver did, e.g. search states expanded or rounds simulated. Solvers keep them in static
+// finals and add to them in their hot loops. Adding costs nothing while Instrumentation is off; in very tight loops,
+// count in a local variable and add the total once.
+public final class Counter {
+
+    private static final List<Counter> ALL = new CopyOnWriteArrayList<>();
+
+    private final String name;
+    private final String description;
+    private final LongAdder value = new LongAdder();
+
+    private Counter(String name, String description) {
+        this.name = name;
+        this.description = description;
+    }
+
+    // name is <area>.<what>, e.g. day23.rounds.
+    public static synchronized Counter register(String name, String description) {
+        for (var counter : ALL) {
+            if (counter.name.equals(name)) {
+                return counter;
+            }
+        }
+        var counter = new Counter(name, description);
+        ALL.add(counter);
+        return counter;
+    }
+
+    // In the order of registration. Counters register when the class that declares them is initialized.
+    public static List<Counter> all() {
+        return List.copyOf(ALL);
+    }
+
+    public void increment() {
+        if (Instrumentation.ENABLED) {
+            value.increment();
+        }
+    }
+
+    public void add(long amount) {
+        if (Instrumentation.ENABLED) {
+            value.add(amount);
+        }
+    }
+
+    public long value() {
+        return value.sum();
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public String description() {
+        return description;
+    }
+}
@@ -0,0 +1,29 @@
+package aoc.instrument;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("aoc.Counter")
+@Label("Solver Counter")
+@Category("Advent of Code")
+@Description("How much a Counter grew during a solver phase")
+final class CounterEvent extends Event {
+
+    @Label("Day")
+    int day;
+
+    @Label("Input")
+    String input;
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Counter")
+    String counter;
+
+    @Label("Value")
+    long value;
+}
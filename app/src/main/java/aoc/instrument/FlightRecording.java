@@ -0,0 +1,90 @@
+package aoc.instrument;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+// A Flight Recorder recording of the JDK's default events plus the PhaseEvents and CounterEvents, written to a file.
+// The summary reads the file back and lists every phase with its counters and the time per counted unit, which tells
+// a phase that does too much work (large counts) from one whose work is too expensive (long time per unit). The file
+// itself can be opened in JDK Mission Control for the details.
+public final class FlightRecording implements AutoCloseable {
+
+    private final Recording recording;
+    private final Path file;
+
+    private FlightRecording(Recording recording, Path file) {
+        this.recording = recording;
+        this.file = file;
+    }
+
+    public static FlightRecording start(Path file) throws IOException {
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration("default");
+        } catch (ParseException e) {
+            throw new IllegalStateException("Should not happen", e);
+        }
+        var recording = new Recording(configuration);
+        recording.setName("aoc");
+        recording.enable(PhaseEvent.class).withoutThreshold();
+        recording.enable(CounterEvent.class).withoutThreshold();
+        recording.setDestination(file);
+        recording.start();
+        return new FlightRecording(recording, file);
+    }
+
+    // Stops the recording, which writes the file.
+    @Override
+    public void close() {
+        recording.close();
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    public String summary() throws IOException {
+        record PhaseKey(int day, String input, String phase) {
+        }
+        var durations = new LinkedHashMap<PhaseKey, Long>();
+        var counters = new LinkedHashMap<PhaseKey, Map<String, Long>>();
+        List<RecordedEvent> events = new ArrayList<>(RecordingFile.readAllEvents(file));
+        events.sort((a, b) -> a.getStartTime().compareTo(b.getStartTime()));
+        for (var event : events) {
+            var type = event.getEventType().getName();
+            if (!type.equals("aoc.Phase") && !type.equals("aoc.Counter")) {
+                continue;
+            }
+            var key = new PhaseKey(event.getInt("day"), event.getString("input"), event.getString("phase"));
+            if (type.equals("aoc.Phase")) {
+                durations.merge(key, event.getDuration().toNanos(), Long::sum);
+            } else {
+                counters.computeIfAbsent(key, k -> new LinkedHashMap<>())
+                        .merge(event.getString("counter"), event.getLong("value"), Long::sum);
+            }
+        }
+
+        var sb = new StringBuilder("Flight recording ").append(file).append('\n');
+        for (var phase : durations.entrySet()) {
+            var key = phase.getKey();
+            var nanos = phase.getValue();
+            sb.append(String.format("Day %d (%s) %-6s %12.3f ms%n", key.day(), key.input(), key.phase(),
+                    nanos / 1_000_000.0));
+            for (var counter : counters.getOrDefault(key, Map.of()).entrySet()) {
+                sb.append(String.format("    %-24s %16d %12.1f ns each%n", counter.getKey(), counter.getValue(),
+                        (double) nanos / counter.getValue()));
+            }
+        }
+        return sb.toString();
+    }
+}
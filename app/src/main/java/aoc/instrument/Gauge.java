@@ -0,0 +1,68 @@
+package aoc.instrument;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleSupplier;
+
+// A named value that goes up and down, e.g. the progress of a simulation or the number of queued jobs, as opposed to a
+// Counter that only adds up. A gauge either holds the last value a solver set, which like a Counter costs nothing while
+// Instrumentation is off and is a plain ordered store otherwise, or is sampled from a supplier whenever it is read.
+public final class Gauge {
+
+    private static final List<Gauge> ALL = new CopyOnWriteArrayList<>();
+
+    private final String name;
+    private final String description;
+    private final AtomicLong bits = new AtomicLong(Double.doubleToRawLongBits(0));
+    private volatile DoubleSupplier supplier;
+
+    private Gauge(String name, String description) {
+        this.name = name;
+        this.description = description;
+    }
+
+    // name is <area>.<what>, e.g. day17.progress.
+    public static synchronized Gauge register(String name, String description) {
+        for (var gauge : ALL) {
+            if (gauge.name.equals(name)) {
+                return gauge;
+            }
+        }
+        var gauge = new Gauge(name, description);
+        ALL.add(gauge);
+        return gauge;
+    }
+
+    // A gauge sampled from the supplier, e.g. the size of a queue. Registering the name again replaces the supplier, so
+    // the latest runner or daemon is the one that is reported.
+    public static Gauge register(String name, String description, DoubleSupplier supplier) {
+        var gauge = register(name, description);
+        gauge.supplier = supplier;
+        return gauge;
+    }
+
+    // In the order of registration.
+    public static List<Gauge> all() {
+        return List.copyOf(ALL);
+    }
+
+    public void set(double value) {
+        if (Instrumentation.ENABLED) {
+            bits.lazySet(Double.doubleToRawLongBits(value));
+        }
+    }
+
+    public double value() {
+        var sampled = supplier;
+        return sampled != null ? sampled.getAsDouble() : Double.longBitsToDouble(bits.get());
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public String description() {
+        return description;
+    }
+}
@@ -0,0 +1,62 @@
+package aoc.instrument;
+
+// Switches the solver instrumentation on: Counters count and every phase is recorded as a PhaseEvent, with a
+// CounterEvent for every counter that moved during the phase. Off unless the JVM runs with -Daoc.instrument=true,
+// which Launcher --jfr sets before the first solver is loaded. ENABLED is a static final, so with instrumentation off
+// the JIT removes the counting from the hot loops.
+//
+// The events only end up in a file while a Flight Recorder recording runs, either a FlightRecording or one started with
+// -XX:StartFlightRecording. Counters are global: phases that run at the same time see each other's counts.
+public final class Instrumentation {
+
+    public static final boolean ENABLED = Boolean.getBoolean("aoc.instrument");
+
+    private Instrumentation() {
+    }
+
+    // Call end on the result when the phase is done. null while instrumentation is off.
+    public static Phase begin(int day, String inputName, String phase) {
+        if (!ENABLED) {
+            return null;
+        }
+        return new Phase(day, inputName, phase);
+    }
+
+    public static final class Phase {
+        private final PhaseEvent event = new PhaseEvent();
+        private final long[] before;
+
+        private Phase(int day, String inputName, String phase) {
+            event.day = day;
+            event.input = inputName;
+            event.phase = phase;
+            var counters = Counter.all();
+            before = new long[counters.size()];
+            for (int i = 0; i < before.length; i++) {
+                before[i] = counters.get(i).value();
+            }
+            event.begin();
+        }
+
+        public void end(boolean success) {
+            event.end();
+            event.success = success;
+            event.commit();
+            // Counters only get added, the ones after before.length registered during the phase.
+            var counters = Counter.all();
+            for (int i = 0; i < counters.size(); i++) {
+                var counter = counters.get(i);
+                var delta = counter.value() - (i < before.length ? before[i] : 0);
+                if (delta != 0) {
+                    var counted = new CounterEvent();
+                    counted.day = event.day;
+                    counted.input = event.input;
+                    counted.phase = event.phase;
+                    counted.counter = counter.name();
+                    counted.value = delta;
+                    counted.commit();
+                }
+            }
+        }
+    }
+}
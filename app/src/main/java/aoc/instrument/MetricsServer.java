@@ -0,0 +1,113 @@
+package aoc.instrument;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+// Serves the Counters and Gauges of the running solvers at http://localhost:<port>/metrics in the Prometheus text
+// format, so that a long run can be watched while it runs:
+//
+//   aoc_<name>_total          every counter, e.g. aoc_day17_rocks_total for day17.rocks
+//   aoc_<name>                every gauge, e.g. aoc_day17_progress or aoc_runner_queued
+//   aoc_jvm_heap_*_bytes      used, committed and max heap
+//
+// Rates such as rocks per second are left to the scraper, e.g. rate(aoc_day17_rocks_total[1m]): a rate computed here
+// would depend on when the previous scrape was, and scrapers would reset each other's windows.
+//
+// Counters only count while Instrumentation is on, Launcher --metrics turns it on like --jfr. Serving reads the
+// counters and gauges and never blocks the solvers. The server only listens on the loopback address.
+public final class MetricsServer implements AutoCloseable {
+
+    private final HttpServer server;
+
+    private MetricsServer(HttpServer server) {
+        this.server = server;
+    }
+
+    // port 0 picks a free port, see port().
+    public static MetricsServer start(int port) throws IOException {
+        var server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        var metrics = new MetricsServer(server);
+        server.createContext("/metrics", metrics::handle);
+        server.setExecutor(Executors.newSingleThreadExecutor(runnable -> {
+            var thread = new Thread(runnable, "metrics-server");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        server.start();
+        return metrics;
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            var body = scrape().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+        }
+    }
+
+    String scrape() {
+        var sb = new StringBuilder();
+        for (var counter : Counter.all()) {
+            metric(sb, metricName(counter.name()) + "_total", "counter", counter.description(), counter.value());
+        }
+        for (var gauge : Gauge.all()) {
+            metric(sb, metricName(gauge.name()), "gauge", gauge.description(), gauge.value());
+        }
+        var heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        metric(sb, "aoc_jvm_heap_used_bytes", "gauge", "Heap in use", heap.getUsed());
+        metric(sb, "aoc_jvm_heap_committed_bytes", "gauge", "Heap committed by the JVM", heap.getCommitted());
+        metric(sb, "aoc_jvm_heap_max_bytes", "gauge", "Maximum heap, -1 if unbounded", heap.getMax());
+        return sb.toString();
+    }
+
+    private static void metric(StringBuilder sb, String name, String type, String help, double value) {
+        sb.append("# HELP ").append(name).append(' ').append(help.replace("\\", "\\\\").replace("\n", "\\n"))
+                .append('\n');
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        sb.append(name).append(' ');
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            sb.append((long) value);
+        } else {
+            sb.append(value);
+        }
+        sb.append('\n');
+    }
+
+    // day23.movingElves becomes aoc_day23_moving_elves.
+    static String metricName(String name) {
+        var sb = new StringBuilder("aoc_");
+        for (int i = 0; i < name.length(); i++) {
+            var c = name.charAt(i);
+            if (Character.isUpperCase(c)) {
+                sb.append('_').append(Character.toLowerCase(c));
+            } else if (Character.isLetterOrDigit(c)) {
+                sb.append(c);
+            } else {
+                sb.append('_');
+            }
+        }
+        return sb.toString().toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
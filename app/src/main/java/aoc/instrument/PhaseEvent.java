@@ -0,0 +1,26 @@
+package aoc.instrument;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("aoc.Phase")
+@Label("Solver Phase")
+@Category("Advent of Code")
+@Description("One phase (parse, part1 or part2) of a solver run")
+final class PhaseEvent extends Event {
+
+    @Label("Day")
+    int day;
+
+    @Label("Input")
+    String input;
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Success")
+    boolean success;
+}
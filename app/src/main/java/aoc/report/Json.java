@@ -0,0 +1,42 @@
+package aoc.report;
+
+// Just enough JSON writing for the results, to stay free of dependencies.
+public final class Json {
+
+    private Json() {
+    }
+
+    public static String quote(String value) {
+        var sb = new StringBuilder(value.length() + 2).append('"');
+        for (var i = 0; i < value.length(); i++) {
+            var c = value.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    // Numbers stay numbers, everything else becomes a string.
+    public static String value(Object value) {
+        return switch (value) {
+            case null -> "null";
+            case Integer i -> i.toString();
+            case Long l -> l.toString();
+            case Double d when Double.isFinite(d) -> d.toString();
+            case Boolean b -> b.toString();
+            default -> quote(value.toString());
+        };
+    }
+}
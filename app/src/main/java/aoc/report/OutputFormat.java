@@ -0,0 +1,68 @@
+package aoc.report;
+
+import java.util.stream.Collectors;
+
+import aoc.DayRun;
+import aoc.PhaseResult;
+
+// How the launcher reports the jobs:
+// - TEXT is a table of every phase with its answer and cost
+// - JSON writes one object per job and line, for scripts that compare runs
+// - QUIET only writes the answers, one line per job
+public enum OutputFormat {
+    TEXT, JSON, QUIET;
+
+    public String format(DayRun run) {
+        return switch (this) {
+            case TEXT -> run.format();
+            case JSON -> json(run) + "\n";
+            case QUIET -> "Day " + run.day() + " (" + run.inputName() + "): " + run.phases().stream()
+                    .filter(phase -> phase != run.parse() || !phase.isSuccess())
+                    .map(OutputFormat::outcome)
+                    .collect(Collectors.joining(" ")) + "\n";
+        };
+    }
+
+    public String summary(int jobs, int threads, long wallNanos, long jobNanos) {
+        return switch (this) {
+            case TEXT, QUIET -> String.format("%d jobs on %d threads: %.3f ms wall, %.3f ms in jobs (%.2fx)%n", jobs,
+                    threads, wallNanos / 1_000_000.0, jobNanos / 1_000_000.0, (double) jobNanos / wallNanos);
+            case JSON -> "{\"jobs\":" + jobs + ",\"threads\":" + threads + ",\"wallNanos\":" + wallNanos
+                    + ",\"jobNanos\":" + jobNanos + "}\n";
+        };
+    }
+
+    private static String outcome(PhaseResult phase) {
+        if (phase.isSuccess()) {
+            return String.valueOf(phase.answer());
+        }
+        return phase.failure() instanceof UnsupportedOperationException ? "-" : "(" + phase.failure() + ")";
+    }
+
+    private static String json(DayRun run) {
+        var sb = new StringBuilder();
+        sb.append("{\"day\":").append(run.day()).append(",\"input\":").append(Json.quote(run.inputName()))
+                .append(",\"phases\":[");
+        var first = true;
+        for (var phase : run.phases()) {
+            if (!first) {
+                sb.append(',');
+            }
+            first = false;
+            var status = phase.isSuccess() ? "ok"
+                    : phase.failure() instanceof UnsupportedOperationException ? "unsolved"
+                    : "failed";
+            sb.append("{\"phase\":").append(Json.quote(phase.phase()))
+                    .append(",\"status\":").append(Json.quote(status))
+                    // The answer of the parse phase is the parsed input, which is not worth writing.
+                    .append(",\"answer\":").append(Json.value(phase == run.parse() ? null : phase.answer()))
+                    .append(",\"error\":").append(Json.value(status.equals("failed") ? phase.failure() : null))
+                    .append(",\"wallNanos\":").append(phase.wallNanos())
+                    .append(",\"allocatedBytes\":").append(phase.allocatedBytes())
+                    .append(",\"gcCount\":").append(phase.gcCount())
+                    .append(",\"cached\":").append(phase.cached())
+                    .append('}');
+        }
+        return sb.append("]}").toString();
+    }
+}
@@ -0,0 +1,52 @@
+package aoc.report;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Diagnostic output of the solvers, e.g. the elf field after every round of day 23. Tracing is off unless the
+// launcher starts it, and then only every n-th event of each kind is written. The message is only built for events
+// that are written, so a solver calls
+//
+//     Trace.event("day23.round", () -> render(elves));
+//
+// and pays for a single static field read while tracing is off. Guard with Trace.enabled() where even creating the
+// lambda is too much.
+public final class Trace {
+
+    // Set before the solvers start and cleared after they are done, so no synchronization is needed.
+    private static TraceSink sink;
+    private static long every = 1;
+    private static final ConcurrentHashMap<String, AtomicLong> COUNTS = new ConcurrentHashMap<>();
+
+    private Trace() {
+    }
+
+    public static void start(TraceSink sink, long every) {
+        if (every < 1) {
+            throw new IllegalArgumentException("every must be at least 1, got " + every);
+        }
+        COUNTS.clear();
+        Trace.every = every;
+        Trace.sink = sink;
+    }
+
+    public static void stop() {
+        sink = null;
+    }
+
+    public static boolean enabled() {
+        return sink != null;
+    }
+
+    public static void event(String kind, Supplier<String> message) {
+        var target = sink;
+        if (target == null) {
+            return;
+        }
+        var count = COUNTS.computeIfAbsent(kind, _ -> new AtomicLong()).getAndIncrement();
+        if (count % every == 0) {
+            target.offer("[" + kind + " #" + count + "] " + message.get());
+        }
+    }
+}
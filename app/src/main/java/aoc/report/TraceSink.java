@@ -0,0 +1,118 @@
+package aoc.report;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Writes trace lines on a background thread, so the solver only pays for building the line and handing it over. The
+// queue is bounded and the solver never waits for the writer: if the writer falls behind, lines are dropped and
+// counted instead.
+public final class TraceSink implements AutoCloseable {
+
+    private static final String END = new String("end");
+
+    private final Writer out;
+    private final boolean closeOut;
+    private final BlockingQueue<String> queue;
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writer;
+    private volatile IOException failure;
+
+    public TraceSink(Writer out, int capacity) {
+        this(out, capacity, true);
+    }
+
+    private TraceSink(Writer out, int capacity, boolean closeOut) {
+        this.out = out;
+        this.closeOut = closeOut;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.writer = new Thread(this::drain, "trace-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // "-" writes to stderr, so that the trace does not get mixed into the results on stdout.
+    public static TraceSink open(String target) {
+        if (target.equals("-")) {
+            return new TraceSink(new BufferedWriter(new OutputStreamWriter(System.err, StandardCharsets.UTF_8)), 8192,
+                    false);
+        }
+        try {
+            return new TraceSink(Files.newBufferedWriter(Path.of(target), StandardCharsets.UTF_8), 8192);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open trace file " + target, e);
+        }
+    }
+
+    public void offer(String line) {
+        if (!queue.offer(line)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    public long dropped() {
+        return dropped.get();
+    }
+
+    private void drain() {
+        var batch = new ArrayList<String>();
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch);
+                for (var line : batch) {
+                    if (line == END) {
+                        out.flush();
+                        return;
+                    }
+                    out.write(line);
+                    out.write('\n');
+                }
+                batch.clear();
+                if (queue.isEmpty()) {
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            failure = e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Writes everything that is queued, then closes the target (but never stderr).
+    @Override
+    public void close() {
+        try {
+            // A writer that failed does not take anything from the queue anymore.
+            if (writer.isAlive()) {
+                queue.put(END);
+                writer.join();
+            }
+            if (dropped.get() > 0) {
+                out.write("(" + dropped.get() + " trace lines dropped)\n");
+            }
+            if (closeOut) {
+                out.close();
+            } else {
+                out.flush();
+            }
+            if (failure != null) {
+                throw new UncheckedIOException("Cannot write trace", failure);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write trace", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
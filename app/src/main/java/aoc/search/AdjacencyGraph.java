@@ -0,0 +1,69 @@
+package aoc.search;
+
+import java.util.Arrays;
+
+// An IntGraph that stores its edges in flat arrays, the edges of node n are at offsets[n] until offsets[n + 1].
+public final class AdjacencyGraph implements IntGraph {
+
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] weights;
+
+    private AdjacencyGraph(int[] offsets, int[] targets, int[] weights) {
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    // Every edge has weight 1.
+    public static AdjacencyGraph of(int[][] neighbors) {
+        return of(neighbors, null);
+    }
+
+    // weights[n][i] is the weight of the edge from n to neighbors[n][i].
+    public static AdjacencyGraph of(int[][] neighbors, int[][] weights) {
+        var offsets = new int[neighbors.length + 1];
+        for (int node = 0; node < neighbors.length; node++) {
+            if (weights != null && weights[node].length != neighbors[node].length) {
+                throw new IllegalArgumentException("Node " + node + " has " + neighbors[node].length
+                        + " neighbors but " + weights[node].length + " weights");
+            }
+            offsets[node + 1] = offsets[node] + neighbors[node].length;
+        }
+        var targets = new int[offsets[neighbors.length]];
+        var edgeWeights = new int[targets.length];
+        Arrays.fill(edgeWeights, 1);
+        for (int node = 0; node < neighbors.length; node++) {
+            for (int i = 0; i < neighbors[node].length; i++) {
+                var target = neighbors[node][i];
+                if (target < 0 || target >= neighbors.length) {
+                    throw new IllegalArgumentException("Edge from " + node + " to unknown node " + target);
+                }
+                targets[offsets[node] + i] = target;
+                if (weights != null) {
+                    if (weights[node][i] < 0) {
+                        throw new IllegalArgumentException("Negative weight on edge from " + node + " to " + target);
+                    }
+                    edgeWeights[offsets[node] + i] = weights[node][i];
+                }
+            }
+        }
+        return new AdjacencyGraph(offsets, targets, edgeWeights);
+    }
+
+    @Override
+    public int nodeCount() {
+        return offsets.length - 1;
+    }
+
+    public int edgeCount() {
+        return targets.length;
+    }
+
+    @Override
+    public void forEachEdge(int node, EdgeConsumer edges) {
+        for (int i = offsets[node], end = offsets[node + 1]; i < end; i++) {
+            edges.edge(targets[i], weights[i]);
+        }
+    }
+}
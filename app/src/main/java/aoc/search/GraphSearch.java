@@ -0,0 +1,329 @@
+package aoc.search;
+
+import java.util.Arrays;
+
+import aoc.instrument.Counter;
+
+// Shortest path searches over an IntGraph with primitive distance and predecessor arrays. An instance keeps its
+// arrays and frontier between searches and only grows them for larger graphs, so repeated searches do not allocate.
+// Instead of clearing the arrays, every search bumps a generation and a node counts as reached only if it was
+// stamped with the current one.
+//
+// After a search, distance, predecessor and the settle order stay readable until the next search. Not thread-safe,
+// every thread needs its own instance.
+public final class GraphSearch {
+
+    public static final int UNREACHED = -1;
+    public static final int NO_TARGET = -1;
+
+    private static final Counter SETTLED = Counter.register("search.settled", "Nodes settled by GraphSearch");
+
+    public enum Algorithm {
+        // Every edge counts 1, the weights are ignored.
+        BFS,
+        // Weights must be 0 or 1.
+        ZERO_ONE_BFS,
+        DIJKSTRA,
+        // Dijkstra ordered by distance plus Heuristic.estimate. The heuristic must be consistent, estimate(u) never
+        // more than weight(u, v) + estimate(v), which the usual Manhattan distance on a grid is.
+        A_STAR
+    }
+
+    private int[] distance = new int[0];
+    private int[] predecessor = new int[0];
+    private int[] seen = new int[0];
+    private int[] settled = new int[0];
+    private int[] order = new int[0];
+    private int generation;
+    private int settledCount;
+
+    // Ring buffer for BFS and 0-1 BFS
+    private int[] deque = new int[16];
+    private int dequeHead;
+    private int dequeSize;
+
+    // Binary min-heap of priority << 32 | node for Dijkstra and A*. Nodes whose distance drops are pushed again and
+    // the stale entries are skipped when they are polled.
+    private long[] heap = new long[16];
+    private int heapSize;
+
+    private int nodeCount;
+    private Algorithm algorithm;
+    private Heuristic heuristic;
+    private int current;
+    private final IntGraph.EdgeConsumer relax = this::relax;
+
+    public GraphSearch() {
+        this(0);
+    }
+
+    public GraphSearch(int expectedNodeCount) {
+        ensureCapacity(expectedNodeCount);
+    }
+
+    public int bfs(IntGraph graph, int source, int target) {
+        return search(Algorithm.BFS, graph, source, target, Heuristic.NONE);
+    }
+
+    public int zeroOneBfs(IntGraph graph, int source, int target) {
+        return search(Algorithm.ZERO_ONE_BFS, graph, source, target, Heuristic.NONE);
+    }
+
+    public int dijkstra(IntGraph graph, int source, int target) {
+        return search(Algorithm.DIJKSTRA, graph, source, target, Heuristic.NONE);
+    }
+
+    public int aStar(IntGraph graph, int source, int target, Heuristic heuristic) {
+        return search(Algorithm.A_STAR, graph, source, target, heuristic);
+    }
+
+    // Returns the distance from source to target, or UNREACHED. With NO_TARGET the whole reachable part of the graph
+    // is settled and UNREACHED is returned.
+    public int search(Algorithm algorithm, IntGraph graph, int source, int target, Heuristic heuristic) {
+        begin(algorithm, graph, heuristic);
+        addSource(source);
+        return run(graph, target);
+    }
+
+    // Like search, but starts from all sources at once with distance 0.
+    public int search(Algorithm algorithm, IntGraph graph, int[] sources, int target, Heuristic heuristic) {
+        begin(algorithm, graph, heuristic);
+        for (var source : sources) {
+            addSource(source);
+        }
+        return run(graph, target);
+    }
+
+    public boolean reached(int node) {
+        return seen[node] == generation;
+    }
+
+    // Whether the distance of the node is final. Early exits at the target leave nodes reached but not settled.
+    public boolean settled(int node) {
+        return settled[node] == generation;
+    }
+
+    public int distance(int node) {
+        return reached(node) ? distance[node] : UNREACHED;
+    }
+
+    // The node before this one on a shortest path, -1 for sources and nodes that were not reached.
+    public int predecessor(int node) {
+        return reached(node) ? predecessor[node] : -1;
+    }
+
+    // The number of nodes that the last search settled, also the number of nodes it expanded.
+    public int settledCount() {
+        return settledCount;
+    }
+
+    // The i-th node that the last search settled, in order of distance (plus estimate for A*).
+    public int settledNode(int i) {
+        if (i < 0 || i >= settledCount) {
+            throw new IndexOutOfBoundsException(i);
+        }
+        return order[i];
+    }
+
+    // The nodes of a shortest path from a source to the node, both included. Empty if the node was not reached.
+    public int[] path(int node) {
+        if (!reached(node)) {
+            return new int[0];
+        }
+        var length = 1;
+        for (var n = predecessor[node]; n != -1; n = predecessor[n]) {
+            length++;
+        }
+        var path = new int[length];
+        for (var n = node; n != -1; n = predecessor[n]) {
+            path[--length] = n;
+        }
+        return path;
+    }
+
+    private void begin(Algorithm algorithm, IntGraph graph, Heuristic heuristic) {
+        nodeCount = graph.nodeCount();
+        ensureCapacity(nodeCount);
+        if (++generation == 0) {
+            Arrays.fill(seen, 0);
+            Arrays.fill(settled, 0);
+            generation = 1;
+        }
+        this.algorithm = algorithm;
+        this.heuristic = heuristic;
+        settledCount = 0;
+        dequeHead = 0;
+        dequeSize = 0;
+        heapSize = 0;
+    }
+
+    private void addSource(int source) {
+        if (source < 0 || source >= nodeCount) {
+            throw new IllegalArgumentException("Unknown source node " + source);
+        }
+        if (reached(source)) {
+            return;
+        }
+        reach(source, 0, -1);
+        push(source, 0);
+    }
+
+    private int run(IntGraph graph, int target) {
+        while (true) {
+            var node = poll();
+            if (node == -1) {
+                SETTLED.add(settledCount);
+                return UNREACHED;
+            }
+            if (settled[node] == generation) {
+                continue;
+            }
+            settled[node] = generation;
+            order[settledCount++] = node;
+            if (node == target) {
+                SETTLED.add(settledCount);
+                return distance[node];
+            }
+            current = node;
+            graph.forEachEdge(node, relax);
+        }
+    }
+
+    private void relax(int target, int weight) {
+        if (algorithm == Algorithm.BFS) {
+            if (seen[target] != generation) {
+                reach(target, distance[current] + 1, current);
+                pushBack(target);
+            }
+            return;
+        }
+        if (weight < 0 || (weight > 1 && algorithm == Algorithm.ZERO_ONE_BFS)) {
+            throw new IllegalArgumentException("Invalid weight " + weight + " on edge from " + current + " to " + target
+                    + " for " + algorithm);
+        }
+        var candidate = distance[current] + weight;
+        if (seen[target] != generation || candidate < distance[target]) {
+            reach(target, candidate, current);
+            push(target, weight);
+        }
+    }
+
+    private void reach(int node, int nodeDistance, int from) {
+        seen[node] = generation;
+        distance[node] = nodeDistance;
+        predecessor[node] = from;
+    }
+
+    private void push(int node, int weight) {
+        switch (algorithm) {
+            case BFS -> pushBack(node);
+            case ZERO_ONE_BFS -> {
+                if (weight == 0) {
+                    pushFront(node);
+                } else {
+                    pushBack(node);
+                }
+            }
+            case DIJKSTRA -> heapPush((long) distance[node] << 32 | node);
+            case A_STAR -> heapPush((long) (distance[node] + heuristic.estimate(node)) << 32 | node);
+        }
+    }
+
+    private int poll() {
+        return switch (algorithm) {
+            case BFS, ZERO_ONE_BFS -> pollFront();
+            case DIJKSTRA, A_STAR -> heapPoll();
+        };
+    }
+
+    private void pushBack(int node) {
+        if (dequeSize == deque.length) {
+            growDeque();
+        }
+        deque[(dequeHead + dequeSize++) & (deque.length - 1)] = node;
+    }
+
+    private void pushFront(int node) {
+        if (dequeSize == deque.length) {
+            growDeque();
+        }
+        dequeHead = (dequeHead - 1) & (deque.length - 1);
+        deque[dequeHead] = node;
+        dequeSize++;
+    }
+
+    private int pollFront() {
+        if (dequeSize == 0) {
+            return -1;
+        }
+        var node = deque[dequeHead];
+        dequeHead = (dequeHead + 1) & (deque.length - 1);
+        dequeSize--;
+        return node;
+    }
+
+    private void growDeque() {
+        var grown = new int[deque.length * 2];
+        for (int i = 0; i < dequeSize; i++) {
+            grown[i] = deque[(dequeHead + i) & (deque.length - 1)];
+        }
+        deque = grown;
+        dequeHead = 0;
+    }
+
+    private void heapPush(long entry) {
+        if (heapSize == heap.length) {
+            heap = Arrays.copyOf(heap, heap.length * 2);
+        }
+        var i = heapSize++;
+        while (i > 0) {
+            var parent = (i - 1) >>> 1;
+            if (heap[parent] <= entry) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = entry;
+    }
+
+    private int heapPoll() {
+        if (heapSize == 0) {
+            return -1;
+        }
+        var top = heap[0];
+        var last = heap[--heapSize];
+        var i = 0;
+        while (true) {
+            var child = 2 * i + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (last <= heap[child]) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = last;
+        return (int) top;
+    }
+
+    private void ensureCapacity(int nodeCount) {
+        if (nodeCount < 0) {
+            throw new IllegalArgumentException("Invalid node count " + nodeCount);
+        }
+        if (nodeCount <= seen.length) {
+            return;
+        }
+        distance = new int[nodeCount];
+        predecessor = new int[nodeCount];
+        seen = new int[nodeCount];
+        settled = new int[nodeCount];
+        order = new int[nodeCount];
+        generation = 0;
+    }
+}
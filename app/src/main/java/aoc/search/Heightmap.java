@@ -0,0 +1,151 @@
+package aoc.search;
+
+import aoc.grid.CellStorage;
+
+// Elevations on a rectangular grid, one byte per cell, stored row by row and numbered row * width + column. A step
+// goes to one of the four neighbors and may climb at most MAX_CLIMB, but descend any amount. As an IntGraph the edges
+// are the steps that can be taken, so that GraphSearch works on it as well, HeightmapSearch is the cheaper way.
+//
+// Next to the elevation every cell has a byte of moves, computed once: bit d is set if the cell can step towards
+// direction d, bit 4 + d if the neighbor in direction d can step to the cell. Cells at the edge have no bits towards
+// the outside, so searches neither compare elevations nor check bounds. That makes two bytes per cell in total, both
+// kept in one CellStorage: the elevations first, then the moves. Large maps go off-heap like the other grids, close the
+// heightmap to free them. Cells stay ints, the searches keep one int per cell in arrays.
+public final class Heightmap implements IntGraph, AutoCloseable {
+
+    public static final int MAX_CLIMB = 1;
+
+    // The directions of the bits in moves.
+    public static final int UP = 0;
+    public static final int DOWN = 1;
+    public static final int RIGHT = 2;
+    public static final int LEFT = 3;
+
+    private final CellStorage cells;
+    private final int cellCount;
+    private final int width;
+    private final int height;
+    private final int[] offsets;
+
+    public Heightmap(byte[] elevations, int width) {
+        this(elevations, elevations.length, width);
+    }
+
+    // A heightmap of the first cellCount elevations.
+    public Heightmap(byte[] elevations, int cellCount, int width) {
+        if (width <= 0 || cellCount % width != 0 || cellCount > elevations.length) {
+            throw new IllegalArgumentException(cellCount + " cells do not form rows of " + width);
+        }
+        this.cellCount = cellCount;
+        this.width = width;
+        this.height = cellCount / width;
+        this.offsets = new int[] {-width, width, 1, -1};
+        this.cells = CellStorage.allocate(2L * cellCount);
+        for (int cell = 0; cell < cellCount; cell++) {
+            cells.setByte(cell, elevations[cell]);
+            var column = cell % width;
+            var bits = 0;
+            bits |= moveBits(elevations, cell, cell - width, cell >= width, UP);
+            bits |= moveBits(elevations, cell, cell + width, cell + width < cellCount, DOWN);
+            bits |= moveBits(elevations, cell, cell + 1, column < width - 1, RIGHT);
+            bits |= moveBits(elevations, cell, cell - 1, column > 0, LEFT);
+            cells.setByte(cellCount + cell, (byte) bits);
+        }
+    }
+
+    private static int moveBits(byte[] elevations, int cell, int neighbor, boolean inBounds, int direction) {
+        if (!inBounds) {
+            return 0;
+        }
+        var bits = 0;
+        if (elevations[neighbor] - elevations[cell] <= MAX_CLIMB) {
+            bits |= 1 << direction;
+        }
+        if (elevations[cell] - elevations[neighbor] <= MAX_CLIMB) {
+            bits |= 1 << (4 + direction);
+        }
+        return bits;
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    public int index(int row, int column) {
+        return row * width + column;
+    }
+
+    public int row(int cell) {
+        return cell / width;
+    }
+
+    public int column(int cell) {
+        return cell % width;
+    }
+
+    public int elevation(int cell) {
+        return cells.getByte(cell);
+    }
+
+    // The cell next to this one in a direction, whether there is one or not.
+    public int neighbor(int cell, int direction) {
+        return cell + offsets[direction];
+    }
+
+    // Bit d is set if the cell can step in direction d.
+    public int stepsOut(int cell) {
+        return moves(cell) & 0xf;
+    }
+
+    // Bit d is set if the neighbor in direction d can step to the cell.
+    public int stepsIn(int cell) {
+        return (moves(cell) >> 4) & 0xf;
+    }
+
+    // Whether from and to are neighbors and the step from one to the other is not too steep.
+    public boolean canStep(int from, int to) {
+        if (from < 0 || from >= cellCount) {
+            return false;
+        }
+        var out = stepsOut(from);
+        for (int direction = 0; direction < offsets.length; direction++) {
+            if ((out & 1 << direction) != 0 && to - from == offsets[direction]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // For HeightmapSearch, which reads the bits of both directions at once.
+    byte moves(int cell) {
+        return cells.getByte(cellCount + cell);
+    }
+
+    int[] offsets() {
+        return offsets;
+    }
+
+    @Override
+    public int nodeCount() {
+        return cellCount;
+    }
+
+    @Override
+    public void forEachEdge(int node, EdgeConsumer edges) {
+        var out = stepsOut(node);
+        for (int direction = 0; direction < offsets.length; direction++) {
+            if ((out & 1 << direction) != 0) {
+                edges.edge(node + offsets[direction], 1);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        cells.close();
+    }
+}
@@ -0,0 +1,134 @@
+package aoc.search;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import aoc.instrument.Counter;
+
+// Answers many (start, end) questions about one Heightmap, e.g. the one of a day 12 Graph. For every end it asks
+// about, it floods the map once in reverse from that end and keeps the resulting distance field, which then answers
+// every start for that end by a lookup. A field takes four bytes per cell; fields that no longer fit into the budget
+// are dropped least recently used first. A field larger than the whole budget is used for its query and not kept.
+//
+// Safe to share between threads, queries are answered one at a time.
+public final class HeightmapRouter {
+
+    public static final int UNREACHED = HeightmapSearch.UNREACHED;
+
+    private static final Counter HITS = Counter.register("router.hits", "Queries answered from a cached field");
+    private static final Counter MISSES = Counter.register("router.misses", "Queries that had to flood a new field");
+
+    public record Stats(long hits, long misses, long evictions, int fields, long bytes) {
+    }
+
+    private final Heightmap map;
+    private final long budgetBytes;
+    private final HeightmapSearch search = new HeightmapSearch();
+    private final Map<Integer, int[]> fields = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public HeightmapRouter(Heightmap map, long budgetBytes) {
+        if (budgetBytes < 0) {
+            throw new IllegalArgumentException("budget must not be negative, got " + budgetBytes);
+        }
+        this.map = map;
+        this.budgetBytes = budgetBytes;
+    }
+
+    // The number of steps from start to end, or UNREACHED.
+    public synchronized int distance(int start, int end) {
+        checkCell(start);
+        return field(end)[start];
+    }
+
+    // distances[i] is the distance from starts[i] to ends[i]. The queries are answered grouped by end, so that every
+    // end needs its field only once, however small the budget.
+    public synchronized int[] distances(int[] starts, int[] ends) {
+        if (starts.length != ends.length) {
+            throw new IllegalArgumentException(starts.length + " starts but " + ends.length + " ends");
+        }
+        var order = new long[ends.length];
+        for (int i = 0; i < ends.length; i++) {
+            checkCell(starts[i]);
+            checkCell(ends[i]);
+            order[i] = (long) ends[i] << 32 | i;
+        }
+        Arrays.sort(order);
+        var distances = new int[ends.length];
+        int[] field = null;
+        for (int i = 0; i < order.length; i++) {
+            var query = (int) order[i];
+            if (i == 0 || ends[query] != ends[(int) order[i - 1]]) {
+                field = field(ends[query]);
+            } else {
+                hits++;
+                HITS.increment();
+            }
+            distances[query] = field[starts[query]];
+        }
+        return distances;
+    }
+
+    // The cells of a shortest path from start to end, both included, as they are climbed. Empty if there is none.
+    public synchronized int[] path(int start, int end) {
+        checkCell(start);
+        var field = field(end);
+        if (field[start] == UNREACHED) {
+            return new int[0];
+        }
+        var path = new int[field[start] + 1];
+        path[0] = start;
+        var width = map.width();
+        for (int i = 1; i < path.length; i++) {
+            var cell = path[i - 1];
+            for (var to : new int[] {cell - width, cell + width, cell + 1, cell - 1}) {
+                if (map.canStep(cell, to) && field[to] == field[cell] - 1) {
+                    path[i] = to;
+                    break;
+                }
+            }
+        }
+        return path;
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(hits, misses, evictions, fields.size(), bytes);
+    }
+
+    private int[] field(int end) {
+        checkCell(end);
+        var field = fields.get(end);
+        if (field != null) {
+            hits++;
+            HITS.increment();
+            return field;
+        }
+        misses++;
+        MISSES.increment();
+        search.flood(map, HeightmapSearch.Direction.REVERSE, end);
+        field = search.distances();
+        var size = 4L * field.length;
+        if (size <= budgetBytes) {
+            var entries = fields.entrySet().iterator();
+            while (bytes + size > budgetBytes) {
+                entries.next();
+                entries.remove();
+                bytes -= size;
+                evictions++;
+            }
+            fields.put(end, field);
+            bytes += size;
+        }
+        return field;
+    }
+
+    private void checkCell(int cell) {
+        if (cell < 0 || cell >= map.nodeCount()) {
+            throw new IllegalArgumentException("Unknown cell " + cell);
+        }
+    }
+}
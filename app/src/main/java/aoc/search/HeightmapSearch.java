@@ -0,0 +1,179 @@
+package aoc.search;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+// Breadth-first search over a Heightmap, where every step counts 1. It keeps one int of distance per cell and a ring
+// buffer for the frontier, which only grows as large as the widest frontier, so it gets by with about six bytes per
+// cell including the heightmap, where GraphSearch needs more than twenty. That is what makes heightmaps with tens of
+// millions of cells fit. There is no predecessor array, path walks back from the cell along distances that drop by one.
+//
+// Like GraphSearch an instance keeps its arrays between searches and the results stay readable until the next search.
+// Not thread-safe, every thread needs its own instance.
+public final class HeightmapSearch {
+
+    public static final int UNREACHED = GraphSearch.UNREACHED;
+    public static final int NO_TARGET = GraphSearch.NO_TARGET;
+    public static final int NONE = -1;
+
+    public enum Direction {
+        // Steps as they are climbed, from the source.
+        FORWARD,
+        // Steps taken backwards, towards the source: a cell is reached if it can step to the one before it.
+        REVERSE
+    }
+
+    private Heightmap map;
+    private Direction direction = Direction.FORWARD;
+    private int[] distance = new int[0];
+    private int[] queue = new int[16];
+    private int head;
+    private int size;
+    private int settledCount;
+
+    // Returns the distance from source to target, or UNREACHED. The search stops as soon as it reaches the target,
+    // with NO_TARGET it reaches every cell it can and returns UNREACHED.
+    public int bfs(Heightmap map, int source, int target) {
+        var cell = search(map, Direction.FORWARD, source, target, null);
+        return cell == NONE ? UNREACHED : distance[cell];
+    }
+
+    // The cell closest to the source that matches, NONE if no reachable cell does. With REVERSE that is the closest
+    // cell from which the source can be reached, e.g. the lowest cell nearest to the summit. Of several matches at that
+    // distance it returns the lowest cell, like ParallelHeightmapSearch, so the search finishes the level of the first
+    // match. Afterwards distance holds the field of every cell up to that distance, without a match the field of all
+    // reachable cells.
+    public int nearest(Heightmap map, Direction direction, int source, IntPredicate matches) {
+        return search(map, direction, source, NO_TARGET, matches);
+    }
+
+    // Reaches every cell it can. With REVERSE, distance(cell) is then the length of the shortest path from the cell
+    // to the source, so any number of start cells can be compared after one search.
+    public void flood(Heightmap map, Direction direction, int source) {
+        search(map, direction, source, NO_TARGET, null);
+    }
+
+    private int search(Heightmap map, Direction direction, int source, int target, IntPredicate matches) {
+        if (source < 0 || source >= map.nodeCount()) {
+            throw new IllegalArgumentException("Unknown source cell " + source);
+        }
+        begin(map, direction);
+        distance[source] = 0;
+        if (source == target || (matches != null && matches.test(source))) {
+            return source;
+        }
+        push(source);
+
+        // The moves of a cell hold the steps out in the low bits, the steps in in the high bits.
+        var offsets = map.offsets();
+        var shift = direction == Direction.REVERSE ? 4 : 0;
+        // The lowest match so far. Once there is one, the search only finishes the level that found it.
+        var found = NONE;
+        while (size > 0) {
+            var cell = poll();
+            if (found != NONE && distance[cell] >= distance[found]) {
+                break;
+            }
+            settledCount++;
+            var next = distance[cell] + 1;
+            var steps = (map.moves(cell) >> shift) & 0xf;
+            while (steps != 0) {
+                var neighbor = cell + offsets[Integer.numberOfTrailingZeros(steps)];
+                steps &= steps - 1;
+                if (distance[neighbor] != UNREACHED) {
+                    continue;
+                }
+                distance[neighbor] = next;
+                if (neighbor == target) {
+                    return neighbor;
+                }
+                if (matches != null && matches.test(neighbor)) {
+                    if (found == NONE || neighbor < found) {
+                        found = neighbor;
+                    }
+                } else if (found == NONE) {
+                    push(neighbor);
+                }
+            }
+        }
+        return found;
+    }
+
+    public boolean reached(int cell) {
+        return distance[cell] != UNREACHED;
+    }
+
+    public int distance(int cell) {
+        return distance[cell];
+    }
+
+    // A copy of the distances of all cells, for HeightmapRouter.
+    int[] distances() {
+        return Arrays.copyOf(distance, map.nodeCount());
+    }
+
+    // The number of cells that the last search took from the frontier and expanded.
+    public int settledCount() {
+        return settledCount;
+    }
+
+    // The cells of a shortest path from the source to the cell, both included. Empty if the cell was not reached. After
+    // a REVERSE search the steps go downhill from the source, the path as it is climbed is this one backwards.
+    public int[] path(int cell) {
+        if (!reached(cell)) {
+            return new int[0];
+        }
+        var path = new int[distance[cell] + 1];
+        path[path.length - 1] = cell;
+        for (int i = path.length - 2; i >= 0; i--) {
+            path[i] = predecessor(path[i + 1]);
+        }
+        return path;
+    }
+
+    // A neighbor one step closer to the source that the search could go from to the cell. There is one for every
+    // reached cell but the source, the one that reached it.
+    private int predecessor(int cell) {
+        // Forward searches came from a neighbor that can step in, reverse ones from one the cell can step to.
+        var steps = direction == Direction.FORWARD ? map.stepsIn(cell) : map.stepsOut(cell);
+        for (int d = 0; d < 4; d++) {
+            var from = map.neighbor(cell, d);
+            if ((steps & 1 << d) != 0 && distance[from] == distance[cell] - 1) {
+                return from;
+            }
+        }
+        throw new IllegalStateException("Should not happen");
+    }
+
+    private void begin(Heightmap map, Direction direction) {
+        this.map = map;
+        this.direction = direction;
+        var cells = map.nodeCount();
+        if (distance.length < cells) {
+            distance = new int[cells];
+        }
+        Arrays.fill(distance, 0, cells, UNREACHED);
+        head = 0;
+        size = 0;
+        settledCount = 0;
+    }
+
+    private void push(int cell) {
+        if (size == queue.length) {
+            var grown = new int[queue.length * 2];
+            for (int i = 0; i < size; i++) {
+                grown[i] = queue[(head + i) & (queue.length - 1)];
+            }
+            queue = grown;
+            head = 0;
+        }
+        queue[(head + size++) & (queue.length - 1)] = cell;
+    }
+
+    private int poll() {
+        var cell = queue[head];
+        head = (head + 1) & (queue.length - 1);
+        size--;
+        return cell;
+    }
+}
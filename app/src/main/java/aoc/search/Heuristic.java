@@ -0,0 +1,11 @@
+package aoc.search;
+
+// A lower bound of the remaining distance from a node to the target, for A*. It must never overestimate, otherwise
+// the found distance is not the shortest one.
+@FunctionalInterface
+public interface Heuristic {
+
+    Heuristic NONE = node -> 0;
+
+    int estimate(int node);
+}
@@ -0,0 +1,17 @@
+package aoc.search;
+
+// A directed graph over the dense node ids 0 until nodeCount(), as seen by GraphSearch. Implementations usually compute
+// the edges on the fly from a grid or an index, instead of storing them.
+public interface IntGraph {
+
+    int nodeCount();
+
+    // Passes every edge leaving node to the consumer. Weights must not be negative, BFS ignores them.
+    void forEachEdge(int node, EdgeConsumer edges);
+
+    @FunctionalInterface
+    interface EdgeConsumer {
+
+        void edge(int target, int weight);
+    }
+}
@@ -0,0 +1,379 @@
+package aoc.search;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntPredicate;
+
+import aoc.instrument.Counter;
+
+// The searches of HeightmapSearch for heightmaps with hundreds of millions of cells, level by level on a ForkJoinPool.
+// Every level expands the whole frontier before the next one starts, so every cell gets the distance the sequential
+// search gives it, only the order within a level differs.
+//
+// A level is expanded one of two ways:
+//
+//   top-down   the frontier is split between the workers, which claim the cells they reach by a compare-and-set of
+//              the distance, so that every cell joins the next frontier once
+//   bottom-up  the cells are split between the workers, and every cell that was not reached yet looks for a neighbor
+//              in the frontier that leads to it; nobody else writes its distance, so no compare-and-set is needed
+//
+// Bottom-up pays off once the frontier covers a good part of the cells that are left, as it can stop at the first
+// neighbor it finds. The search switches like Beamer's direction-optimizing BFS: to bottom-up while the frontier grows
+// beyond 1 / alpha of the unvisited cells, back to top-down once it shrinks below 1 / beta of all cells. Levels with
+// fewer cells than grain are expanded on the calling thread.
+//
+// Not thread-safe itself, the results stay readable until the next search.
+public final class ParallelHeightmapSearch {
+
+    public static final int UNREACHED = HeightmapSearch.UNREACHED;
+    public static final int NO_TARGET = HeightmapSearch.NO_TARGET;
+    public static final int NONE = HeightmapSearch.NONE;
+
+    // Below this, auto leaves the map to HeightmapSearch.
+    public static final int AUTO_CELLS = 4 << 20;
+
+    static final int DEFAULT_GRAIN = 4096;
+    static final int DEFAULT_ALPHA = 14;
+    static final int DEFAULT_BETA = 24;
+
+    private static final VarHandle DISTANCE = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private static final Counter LEVELS = Counter.register("search.levels", "Levels of ParallelHeightmapSearch");
+    private static final Counter BOTTOM_UP = Counter.register("search.bottomUpLevels", "Levels expanded bottom-up");
+
+    private final ForkJoinPool pool;
+    private final int grain;
+    private final int alpha;
+    private final int beta;
+
+    private Heightmap map;
+    private int[] distance = new int[0];
+    private int[] frontier = new int[16];
+    private int frontierSize;
+    // The array the next frontier goes into when a level is not split, the previous frontier afterwards.
+    private int[] spare = new int[16];
+    private int levels;
+    private int bottomUpLevels;
+    private int settledCount;
+
+    public ParallelHeightmapSearch() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelHeightmapSearch(ForkJoinPool pool) {
+        this(pool, DEFAULT_GRAIN, DEFAULT_ALPHA, DEFAULT_BETA);
+    }
+
+    ParallelHeightmapSearch(ForkJoinPool pool, int grain, int alpha, int beta) {
+        if (grain < 1 || alpha < 1 || beta < 1) {
+            throw new IllegalArgumentException("Invalid grain " + grain + ", alpha " + alpha + " or beta " + beta);
+        }
+        this.pool = pool;
+        this.grain = grain;
+        this.alpha = alpha;
+        this.beta = beta;
+    }
+
+    // Whether the map is worth searching in parallel, from the system property aoc.search.parallel: true, false or
+    // auto, the default, for maps of AUTO_CELLS or more on more than one processor.
+    public static boolean enabledFor(Heightmap map) {
+        return switch (System.getProperty("aoc.search.parallel", "auto")) {
+            case "true" -> true;
+            case "false" -> false;
+            case "auto" -> map.nodeCount() >= AUTO_CELLS && Runtime.getRuntime().availableProcessors() > 1;
+            default -> throw new IllegalArgumentException("aoc.search.parallel must be true, false or auto, got "
+                    + System.getProperty("aoc.search.parallel"));
+        };
+    }
+
+    // Like HeightmapSearch.bfs, the distance from source to target or UNREACHED.
+    public int bfs(Heightmap map, HeightmapSearch.Direction direction, int source, int target) {
+        var cell = search(map, direction, source, target, null);
+        return cell == NONE ? UNREACHED : distance[cell];
+    }
+
+    // Like HeightmapSearch.nearest: of several matches at the smallest distance it returns the lowest cell, as the
+    // sequential search does.
+    public int nearest(Heightmap map, HeightmapSearch.Direction direction, int source, IntPredicate matches) {
+        return search(map, direction, source, NO_TARGET, matches);
+    }
+
+    public void flood(Heightmap map, HeightmapSearch.Direction direction, int source) {
+        search(map, direction, source, NO_TARGET, null);
+    }
+
+    public boolean reached(int cell) {
+        return distance[cell] != UNREACHED;
+    }
+
+    public int distance(int cell) {
+        return distance[cell];
+    }
+
+    // Like HeightmapSearch.settledCount, the cells of the levels that the last search expanded. It expands every level
+    // whole, so a search that stops at a target or match may count a few cells more than HeightmapSearch does.
+    public int settledCount() {
+        return settledCount;
+    }
+
+    // The levels the last search expanded, and how many of them bottom-up.
+    public int levels() {
+        return levels;
+    }
+
+    public int bottomUpLevels() {
+        return bottomUpLevels;
+    }
+
+    private int search(Heightmap map, HeightmapSearch.Direction direction, int source, int target,
+            IntPredicate matches) {
+        var cells = map.nodeCount();
+        if (source < 0 || source >= cells) {
+            throw new IllegalArgumentException("Unknown source cell " + source);
+        }
+        this.map = map;
+        if (distance.length < cells) {
+            distance = new int[cells];
+        }
+        Arrays.fill(distance, 0, cells, UNREACHED);
+        levels = 0;
+        bottomUpLevels = 0;
+        settledCount = 0;
+        distance[source] = 0;
+        if (frontier.length == 0) {
+            frontier = new int[16];
+        }
+        frontier[0] = source;
+        frontierSize = 1;
+        if (source == target || (matches != null && matches.test(source))) {
+            return source;
+        }
+
+        // Top-down follows the steps out of a cell, bottom-up the steps into it, both as seen by the direction.
+        var outShift = direction == HeightmapSearch.Direction.REVERSE ? 4 : 0;
+        var inShift = outShift ^ 4;
+        var unvisited = (long) cells - 1;
+        var bottomUp = false;
+        try {
+            for (int level = 0; frontierSize > 0; level++) {
+                var previousSize = frontierSize;
+                settledCount += frontierSize;
+                Level expansion = bottomUp
+                        ? new BottomUp(this, 0, cells, level, inShift)
+                        : new TopDown(this, 0, frontierSize, level, outShift);
+                var parallel = bottomUp ? cells >= grain : frontierSize >= grain;
+                if (parallel) {
+                    pool.invoke(expansion);
+                } else {
+                    expansion.found = spare;
+                    expansion.compute();
+                }
+                collect(expansion);
+                levels++;
+                if (bottomUp) {
+                    bottomUpLevels++;
+                }
+                unvisited -= frontierSize;
+
+                if (target != NO_TARGET && distance[target] != UNREACHED) {
+                    return target;
+                }
+                if (matches != null) {
+                    var found = NONE;
+                    for (int i = 0; i < frontierSize; i++) {
+                        var cell = frontier[i];
+                        if ((found == NONE || cell < found) && matches.test(cell)) {
+                            found = cell;
+                        }
+                    }
+                    if (found != NONE) {
+                        return found;
+                    }
+                }
+
+                var growing = frontierSize > previousSize;
+                if (!bottomUp && growing && frontierSize > unvisited / alpha) {
+                    bottomUp = true;
+                } else if (bottomUp && !growing && frontierSize < cells / beta) {
+                    bottomUp = false;
+                }
+            }
+            return NONE;
+        } finally {
+            LEVELS.add(levels);
+            BOTTOM_UP.add(bottomUpLevels);
+        }
+    }
+
+    // The cells that the leaves of the expansion found, in the order of the leaves, become the next frontier.
+    private void collect(Level expansion) {
+        var leaves = expansion.leaves();
+        if (leaves.size() == 1) {
+            spare = frontier;
+            frontier = expansion.found;
+            frontierSize = expansion.foundCount;
+            return;
+        }
+        var total = 0;
+        for (var leaf : leaves) {
+            total += leaf.foundCount;
+        }
+        if (frontier.length < total) {
+            frontier = new int[Math.max(total, frontier.length * 2)];
+        }
+        var size = 0;
+        for (var leaf : leaves) {
+            System.arraycopy(leaf.found, 0, frontier, size, leaf.foundCount);
+            size += leaf.foundCount;
+        }
+        frontierSize = size;
+    }
+
+    // Expands the part from until to of the frontier or of the cells. Splits in halves until a part is no larger than
+    // the grain, the leaves keep what they found.
+    private abstract static class Level extends RecursiveAction {
+
+        final ParallelHeightmapSearch search;
+        final int from;
+        final int to;
+        final int level;
+        final int shift;
+        Level left;
+        Level right;
+        int[] found = new int[0];
+        int foundCount;
+
+        Level(ParallelHeightmapSearch search, int from, int to, int level, int shift) {
+            this.search = search;
+            this.from = from;
+            this.to = to;
+            this.level = level;
+            this.shift = shift;
+        }
+
+        abstract Level part(int from, int to);
+
+        // The size of a part that is not split any further.
+        abstract int grain();
+
+        abstract void expand();
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain() || !inForkJoinPool()) {
+                expand();
+                return;
+            }
+            var middle = (from + to) >>> 1;
+            left = part(from, middle);
+            right = part(middle, to);
+            ForkJoinTask.invokeAll(left, right);
+        }
+
+        List<Level> leaves() {
+            var leaves = new ArrayList<Level>();
+            addLeaves(leaves);
+            return leaves;
+        }
+
+        private void addLeaves(List<Level> leaves) {
+            if (left == null) {
+                leaves.add(this);
+            } else {
+                left.addLeaves(leaves);
+                right.addLeaves(leaves);
+            }
+        }
+
+        void add(int cell) {
+            if (foundCount == found.length) {
+                found = Arrays.copyOf(found, Math.max(16, found.length * 2));
+            }
+            found[foundCount++] = cell;
+        }
+    }
+
+    private static final class TopDown extends Level {
+
+        TopDown(ParallelHeightmapSearch search, int from, int to, int level, int shift) {
+            super(search, from, to, level, shift);
+        }
+
+        @Override
+        Level part(int from, int to) {
+            return new TopDown(search, from, to, level, shift);
+        }
+
+        @Override
+        int grain() {
+            return search.grain;
+        }
+
+        @Override
+        void expand() {
+            var distance = search.distance;
+            var frontier = search.frontier;
+            var map = search.map;
+            var offsets = search.map.offsets();
+            var next = level + 1;
+            for (int i = from; i < to; i++) {
+                var cell = frontier[i];
+                var steps = (map.moves(cell) >> shift) & 0xf;
+                while (steps != 0) {
+                    var neighbor = cell + offsets[Integer.numberOfTrailingZeros(steps)];
+                    steps &= steps - 1;
+                    if (distance[neighbor] == UNREACHED
+                            && DISTANCE.compareAndSet(distance, neighbor, UNREACHED, next)) {
+                        add(neighbor);
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class BottomUp extends Level {
+
+        BottomUp(ParallelHeightmapSearch search, int from, int to, int level, int shift) {
+            super(search, from, to, level, shift);
+        }
+
+        @Override
+        Level part(int from, int to) {
+            return new BottomUp(search, from, to, level, shift);
+        }
+
+        // Scanning a cell is cheaper than expanding one, and there are many of them.
+        @Override
+        int grain() {
+            return Math.max(search.grain, search.map.nodeCount() / (8 * search.pool.getParallelism()));
+        }
+
+        @Override
+        void expand() {
+            var distance = search.distance;
+            var map = search.map;
+            var offsets = search.map.offsets();
+            for (int cell = from; cell < to; cell++) {
+                if (distance[cell] != UNREACHED) {
+                    continue;
+                }
+                var steps = (map.moves(cell) >> shift) & 0xf;
+                while (steps != 0) {
+                    var neighbor = cell + offsets[Integer.numberOfTrailingZeros(steps)];
+                    steps &= steps - 1;
+                    if (distance[neighbor] == level) {
+                        distance[cell] = level + 1;
+                        add(cell);
+                        break;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package aoc.simd;
+
+// The plain loops behind Kernels, used when the Vector API is not available and for the arrays that are too short for
+// a vector. The reference for what VectorKernels computes.
+public final class ScalarKernels {
+
+    private ScalarKernels() {
+    }
+
+    public static boolean anyWithinManhattan(int[] xs, int[] ys, int[] radii, int x, int y) {
+        return anyWithinManhattan(xs, ys, radii, 0, x, y);
+    }
+
+    static boolean anyWithinManhattan(int[] xs, int[] ys, int[] radii, int from, int x, int y) {
+        for (int i = from; i < xs.length; i++) {
+            if (Math.abs(xs[i] - x) + Math.abs(ys[i] - y) <= radii[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static long countAndNot(long[] a, int aFrom, long[] b, int bFrom, int length) {
+        var count = 0L;
+        for (int i = 0; i < length; i++) {
+            count += Long.bitCount(a[aFrom + i] & ~b[bFrom + i]);
+        }
+        return count;
+    }
+
+    public static long countAndNotShifted(long[] a, int from, int length, int shift) {
+        var count = 0L;
+        for (int i = from; i < from + length; i++) {
+            var shifted = shift >= 0 ? a[i] << shift : a[i] >>> -shift;
+            count += Long.bitCount(a[i] & ~shifted);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,56 @@
+package aoc.simd;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// The kernels on the preferred vector shape of the CPU, e.g. 8 ints or 4 longs with AVX2, with the rest of the array
+// that does not fill a vector done by ScalarKernels. Only loaded by Kernels once it found the jdk.incubator.vector
+// module, this is the only class that refers to it.
+public final class VectorKernels {
+
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+
+    private VectorKernels() {
+    }
+
+    public static boolean anyWithinManhattan(int[] xs, int[] ys, int[] radii, int x, int y) {
+        var i = 0;
+        for (var bound = INTS.loopBound(xs.length); i < bound; i += INTS.length()) {
+            var dx = IntVector.fromArray(INTS, xs, i).sub(x).lanewise(VectorOperators.ABS);
+            var dy = IntVector.fromArray(INTS, ys, i).sub(y).lanewise(VectorOperators.ABS);
+            if (dx.add(dy).compare(VectorOperators.LE, IntVector.fromArray(INTS, radii, i)).anyTrue()) {
+                return true;
+            }
+        }
+        return ScalarKernels.anyWithinManhattan(xs, ys, radii, i, x, y);
+    }
+
+    public static long countAndNot(long[] a, int aFrom, long[] b, int bFrom, int length) {
+        var counts = LongVector.zero(LONGS);
+        var i = 0;
+        for (var bound = LONGS.loopBound(length); i < bound; i += LONGS.length()) {
+            var va = LongVector.fromArray(LONGS, a, aFrom + i);
+            var vb = LongVector.fromArray(LONGS, b, bFrom + i);
+            counts = counts.add(va.lanewise(VectorOperators.AND_NOT, vb).lanewise(VectorOperators.BIT_COUNT));
+        }
+        return counts.reduceLanes(VectorOperators.ADD)
+                + ScalarKernels.countAndNot(a, aFrom + i, b, bFrom + i, length - i);
+    }
+
+    public static long countAndNotShifted(long[] a, int from, int length, int shift) {
+        var operator = shift >= 0 ? VectorOperators.LSHL : VectorOperators.LSHR;
+        var distance = Math.abs(shift);
+        var counts = LongVector.zero(LONGS);
+        var i = 0;
+        for (var bound = LONGS.loopBound(length); i < bound; i += LONGS.length()) {
+            var va = LongVector.fromArray(LONGS, a, from + i);
+            counts = counts.add(va.lanewise(VectorOperators.AND_NOT, va.lanewise(operator, distance))
+                    .lanewise(VectorOperators.BIT_COUNT));
+        }
+        return counts.reduceLanes(VectorOperators.ADD)
+                + ScalarKernels.countAndNotShifted(a, from + i, length - i, shift);
+    }
+}
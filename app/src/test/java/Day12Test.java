@@ -0,0 +1,57 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import org.junit.After;
+import org.junit.Test;
+
+import aoc.input.Input;
+
+// Both parts on the example and on a map where E cannot be reached, with either search engine. In the default package,
+// like Day12.
+public class Day12Test {
+
+    private static final String EXAMPLE = """
+            Sabqponm
+            abcryxxl
+            accszExk
+            acctuvwj
+            abdefghi
+            """;
+
+    // S and E are separated by a wall of z, which the a on either side cannot climb.
+    private static final String UNREACHABLE = """
+            Sazbz
+            aazyE
+            """;
+
+    @After
+    public void clearEngine() {
+        System.clearProperty("aoc.search.parallel");
+    }
+
+    private static Graph parse(String text) {
+        try (var input = Input.of(text)) {
+            return new Day12().parse(input);
+        }
+    }
+
+    @Test
+    public void example() {
+        for (var parallel : new String[] {"false", "true"}) {
+            System.setProperty("aoc.search.parallel", parallel);
+            var graph = parse(EXAMPLE);
+            assertEquals(31, (int) new Day12().part1(graph));
+            assertEquals(29, (int) new Day12().part2(graph));
+        }
+    }
+
+    @Test
+    public void bothPartsRejectAnUnreachableE() {
+        for (var parallel : new String[] {"false", "true"}) {
+            System.setProperty("aoc.search.parallel", parallel);
+            var graph = parse(UNREACHABLE);
+            assertThrows(IllegalArgumentException.class, () -> new Day12().part1(graph));
+            assertThrows(IllegalArgumentException.class, () -> new Day12().part2(graph));
+        }
+    }
+}
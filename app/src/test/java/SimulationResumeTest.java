@@ -0,0 +1,139 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import aoc.Solvers;
+import aoc.report.Trace;
+import aoc.report.TraceSink;
+
+// Runs that are stopped and resumed from their latest checkpoint give the same answer as runs that are not. In the
+// default package, like the simulations. Checkpoints are taken as often as the simulations allow, and whether a run
+// resumed is told by its trace.
+public class SimulationResumeTest {
+
+    private static final long ROCKS = 2_000_000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path directory;
+
+    @Before
+    public void enableCheckpoints() throws IOException {
+        directory = folder.newFolder().toPath();
+        System.setProperty("aoc.checkpoint.dir", directory.toString());
+        System.setProperty("aoc.checkpoint.every", "0");
+    }
+
+    @After
+    public void disableCheckpoints() {
+        System.clearProperty("aoc.checkpoint.dir");
+        System.clearProperty("aoc.checkpoint.every");
+    }
+
+    @Test(timeout = 120_000)
+    public void day17ResumesWhereItWasInterrupted() throws Exception {
+        List<Day17.Direction> jets;
+        try (var input = Solvers.bundledInput(17)) {
+            jets = new Day17().parse(input);
+        }
+        var expected = Day17.simulate(jets, ROCKS);
+        assertEquals(0, checkpointFiles());
+
+        // Day 17 stops at the next sample point once it is interrupted, here after a quarter of the rocks.
+        var failure = new AtomicReference<Throwable>();
+        var run = new Thread(() -> {
+            try {
+                Day17.simulate(jets, ROCKS);
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        run.start();
+        while (run.isAlive() && savedRocks() < ROCKS / 4) {
+            Thread.sleep(1);
+        }
+        run.interrupt();
+        run.join();
+        assertTrue(String.valueOf(failure.get()), failure.get() instanceof CancellationException);
+        assertTrue(savedRocks() < ROCKS);
+
+        var answer = new long[1];
+        var trace = traced(() -> answer[0] = Day17.simulate(jets, ROCKS));
+        assertTrue(trace, trace.contains("Resumed from"));
+        assertEquals(expected, answer[0]);
+        assertEquals(0, checkpointFiles());
+    }
+
+    @Test
+    public void day23ResumesFromASavedRound() throws IOException {
+        long[] elves;
+        try (var input = Solvers.bundledInput(23)) {
+            elves = new Day23().parse(input);
+        }
+        var finished = elves.clone();
+        var expected = Day23.simulate(finished, Integer.MAX_VALUE);
+        assertEquals(0, checkpointFiles());
+
+        // The state after 100 rounds, saved as the run to the end would save it.
+        var saved = elves.clone();
+        assertEquals(100, Day23.simulate(saved, 100));
+        Day23.save(Day23.checkpoint(elves, Integer.MAX_VALUE), 100, saved);
+        assertEquals(1, checkpointFiles());
+
+        var resumed = elves.clone();
+        var answer = new int[1];
+        var trace = traced(() -> answer[0] = Day23.simulate(resumed, Integer.MAX_VALUE));
+        assertTrue(trace, trace.contains("Resumed from"));
+        assertEquals(expected, answer[0]);
+        assertArrayEquals(finished, resumed);
+        assertEquals(0, checkpointFiles());
+    }
+
+    private long checkpointFiles() throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    // The rocks of the latest checkpoint of day 17, which come first in its state after the header of 60 bytes.
+    private long savedRocks() throws IOException {
+        try (var files = Files.list(directory)) {
+            var file = files.filter(path -> path.toString().endsWith(".ckpt")).findFirst();
+            if (file.isEmpty()) {
+                return 0;
+            }
+            var bytes = Files.readAllBytes(file.get());
+            return bytes.length < 68 ? 0 : ByteBuffer.wrap(bytes).getLong(60);
+        }
+    }
+
+    // Only the first event of every kind is written, for checkpoints that is the one of resume if there is one.
+    private static String traced(Runnable simulation) {
+        var trace = new StringWriter();
+        var sink = new TraceSink(trace, 16);
+        Trace.start(sink, Long.MAX_VALUE);
+        try {
+            simulation.run();
+        } finally {
+            Trace.stop();
+            sink.close();
+        }
+        return trace.toString();
+    }
+}
@@ -0,0 +1,65 @@
+package aoc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeNotNull;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import aoc.input.Input;
+
+// The accepted answers for the bundled inputs. A null answer is skipped: day 17 part 2 does not finish, day 16
+// part 2 takes half a minute and days 21 and 22 have no part 2 yet.
+@RunWith(Parameterized.class)
+public class AnswersTest {
+
+    @Parameters(name = "day {0}")
+    public static Collection<Object[]> answers() {
+        return Arrays.asList(new Object[][] {
+                {12, "370", "363"},
+                {13, "5882", "24948"},
+                {14, "1513", "22646"},
+                {15, "5129019", "12817603219131"},
+                {16, "2265", null},
+                {17, "3055", null},
+                {18, "4310", "2466"},
+                {21, "282285213953670", null},
+                {22, "88268", null},
+                {23, "4162", "986"},
+        });
+    }
+
+    private final int day;
+    private final String part1;
+    private final String part2;
+
+    public AnswersTest(int day, String part1, String part2) {
+        this.day = day;
+        this.part1 = part1;
+        this.part2 = part2;
+    }
+
+    @Test
+    public void part1() {
+        var solver = Solvers.forDay(day);
+        assertEquals(part1, String.valueOf(solver.part1(parse(solver))));
+    }
+
+    @Test
+    public void part2() {
+        assumeNotNull(part2);
+        var solver = Solvers.forDay(day);
+        assertEquals(part2, String.valueOf(solver.part2(parse(solver))));
+    }
+
+    private Object parse(Solver<Object> solver) {
+        try (Input input = Solvers.bundledInput(day)) {
+            return solver.parse(input);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package aoc;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import aoc.generator.InputGenerator;
+import aoc.input.Input;
+
+// Wall time and allocation budgets per phase on fixed synthetic inputs, so that a change that makes a phase a lot
+// more expensive fails the build. The allocation budgets are about twice what the phases allocate today and are
+// stable across machines, they always apply. The time budgets depend on the machine and only apply when a factor for
+// them is given with -PbudgetTimeFactor=<factor>, 1 for a typical developer machine, more for slower ones.
+//
+// Every phase runs once before it is measured, so that class loading and the first JIT compilations are not counted.
+// Tighten a budget when a phase gets cheaper.
+@RunWith(Parameterized.class)
+public class BudgetTest {
+
+    private static final double SCALE = 1;
+    private static final long SEED = 7;
+    // NaN when the time budgets do not apply.
+    private static final double TIME_FACTOR = Double.parseDouble(System.getProperty("budget.timeFactor", "NaN"));
+
+    @Parameters(name = "day {0} {1}")
+    public static Collection<Object[]> budgets() {
+        // day, phase, milliseconds, kilobytes
+        return Arrays.asList(new Object[][] {
+                {12, "parse", 500, 2_048},
+                {12, "part1", 500, 24},
+                {12, "part2", 500, 24},
+                {13, "parse", 500, 2_048},
+                {13, "part1", 500, 1_024},
+                {13, "part2", 500, 1_024},
+                {14, "parse", 500, 2_048},
+                {14, "part1", 500, 1_024},
+                {14, "part2", 500, 2_048},
+                {15, "parse", 500, 2_048},
+                {15, "part1", 10_000, 1_280_000},
+                {15, "part2", 1_000, 16_384},
+                {16, "parse", 500, 2_048},
+                {16, "part1", 1_000, 2_048},
+                {16, "part2", 3_000, 61_440},
+                {17, "parse", 500, 2_048},
+                {17, "part1", 1_000, 65_536},
+                {18, "parse", 500, 2_048},
+                {18, "part1", 500, 1_024},
+                {18, "part2", 500, 2_048},
+                {21, "parse", 500, 4_096},
+                {21, "part1", 500, 1_024},
+                {22, "parse", 500, 2_048},
+                {22, "part1", 500, 2_048},
+                {23, "parse", 500, 2_048},
+                {23, "part1", 1_000, 2_048},
+                {23, "part2", 3_000, 2_048},
+        });
+    }
+
+    private final int day;
+    private final String phase;
+    private final long maxMillis;
+    private final long maxKilobytes;
+
+    public BudgetTest(int day, String phase, int maxMillis, int maxKilobytes) {
+        this.day = day;
+        this.phase = phase;
+        this.maxMillis = maxMillis;
+        this.maxKilobytes = maxKilobytes;
+    }
+
+    @Test
+    public void withinBudget() {
+        var solver = Solvers.forDay(day);
+        try (var input = Input.of(InputGenerator.generate(day, SCALE, SEED))) {
+            // Parts may change what they are given, so every run gets its own parsed input.
+            var warmup = solver.parse(input);
+            release(solver, run(solver, input, warmup));
+            solver.release(warmup);
+            var parsed = solver.parse(input);
+            var result = PhaseTimer.measure(phase, () -> run(solver, input, parsed));
+            release(solver, result.answer());
+            solver.release(parsed);
+            assertTrue(result.toString(), result.isSuccess());
+            var millis = result.wallNanos() / 1_000_000.0;
+            var kilobytes = result.allocatedBytes() / 1024.0;
+            assertTrue(String.format("Day %d %s took %.1f ms, the budget is %d ms", day, phase, millis, maxMillis),
+                    Double.isNaN(TIME_FACTOR) || millis <= maxMillis * TIME_FACTOR);
+            assertTrue(String.format("Day %d %s allocated %.1f KB, the budget is %d KB", day, phase, kilobytes,
+                    maxKilobytes), kilobytes <= maxKilobytes);
+        }
+    }
+
+    // A parse phase returns a parsed input of its own.
+    private void release(Solver<Object> solver, Object answer) {
+        if (phase.equals("parse") && answer != null) {
+            solver.release(answer);
+        }
+    }
+
+    private Object run(Solver<Object> solver, Input input, Object parsed) {
+        return switch (phase) {
+            case "parse" -> solver.parse(input);
+            case "part1" -> solver.part1(parsed);
+            case "part2" -> solver.part2(parsed);
+            default -> throw new IllegalArgumentException("Unknown phase " + phase);
+        };
+    }
+}
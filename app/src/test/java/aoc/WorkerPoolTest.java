@@ -0,0 +1,72 @@
+package aoc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class WorkerPoolTest {
+
+    // Tasks that ignore the interrupt, like most solvers, until they are released.
+    private static final class Stuck implements WorkerPool.Task {
+        private final AtomicBoolean release;
+        private final AtomicInteger started;
+        private final CountDownLatch timedOut;
+        private final CountDownLatch finished;
+
+        Stuck(AtomicBoolean release, AtomicInteger started, CountDownLatch timedOut, CountDownLatch finished) {
+            this.release = release;
+            this.started = started;
+            this.timedOut = timedOut;
+            this.finished = finished;
+        }
+
+        @Override
+        public Runnable run() {
+            started.incrementAndGet();
+            while (!release.get()) {
+                Thread.onSpinWait();
+            }
+            finished.countDown();
+            return () -> { };
+        }
+
+        @Override
+        public void timedOut(long runningNanos) {
+            timedOut.countDown();
+        }
+    }
+
+    @Test(timeout = 30_000)
+    public void abandonedWorkersAreCappedAtThePoolSize() throws InterruptedException {
+        var release = new AtomicBoolean();
+        var started = new AtomicInteger();
+        var timedOut = new CountDownLatch(2);
+        // All three, the third one may time out as well on a busy machine.
+        var finished = new CountDownLatch(3);
+        var queue = new LinkedBlockingQueue<Stuck>();
+        for (int i = 0; i < 3; i++) {
+            queue.add(new Stuck(release, started, timedOut, finished));
+        }
+        try (var pool = new WorkerPool("test", 1, Duration.ofMillis(100), queue)) {
+            timedOut.await();
+            // The first stuck task was replaced, the second is not: the third task waits in the queue.
+            Thread.sleep(300);
+            assertEquals(2, started.get());
+            assertEquals(2, pool.abandoned());
+            assertEquals(0, pool.running());
+            assertEquals(1, queue.size());
+
+            release.set(true);
+            assertTrue(finished.await(10, TimeUnit.SECONDS));
+            assertEquals(3, started.get());
+        }
+    }
+}
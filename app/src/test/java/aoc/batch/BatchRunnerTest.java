@@ -0,0 +1,67 @@
+package aoc.batch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import aoc.Solvers;
+import aoc.generator.InputGenerator;
+import aoc.input.Input;
+
+public class BatchRunnerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void manifestPathsAreRelativeToTheManifest() throws IOException {
+        var directory = folder.newFolder().toPath();
+        var manifest = directory.resolve("inputs.txt");
+        Files.writeString(manifest, "# generated\na.txt\n\n  sub/b.txt\n");
+        assertEquals(List.of(directory.resolve("a.txt"), directory.resolve("sub/b.txt")),
+                BatchRunner.inputs(manifest));
+    }
+
+    @Test
+    public void resultsAreWrittenInInputOrder() throws Exception {
+        var directory = folder.newFolder().toPath();
+        for (int seed = 0; seed < 12; seed++) {
+            InputGenerator.write(14, 0.2, seed, directory.resolve(String.format("%02d.txt", seed)));
+        }
+        var missing = directory.resolve("missing.txt");
+        var inputs = new ArrayList<>(BatchRunner.inputs(directory));
+        inputs.add(missing);
+        var file = folder.getRoot().toPath().resolve("results.csv");
+
+        BatchRunner.Summary summary;
+        try (var results = BatchResults.open(file.toString())) {
+            summary = new BatchRunner(14, 3, null).run(inputs, results);
+        }
+
+        assertEquals(13, summary.inputs());
+        assertEquals(1, summary.failed());
+        var lines = Files.readAllLines(file);
+        assertEquals(BatchResults.CSV_HEADER, lines.get(0));
+        assertEquals(14, lines.size());
+        var solver = Solvers.forDay(14);
+        for (int i = 0; i < 12; i++) {
+            var columns = lines.get(i + 1).split(",", -1);
+            assertEquals(inputs.get(i).toString(), columns[0]);
+            assertEquals("ok", columns[1]);
+            try (var input = Input.map(inputs.get(i))) {
+                var parsed = solver.parse(input);
+                assertEquals(String.valueOf(solver.part1(parsed)), columns[2]);
+                assertEquals(String.valueOf(solver.part2(parsed)), columns[3]);
+            }
+        }
+        assertTrue(lines.get(13).startsWith(missing + ",failed,"));
+    }
+}
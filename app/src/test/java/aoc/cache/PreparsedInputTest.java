@@ -0,0 +1,83 @@
+package aoc.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import aoc.Solver;
+import aoc.Solvers;
+import aoc.input.Input;
+
+public class PreparsedInputTest {
+
+    // Every day with a BinaryCodec. Part 1 is fast for all of them.
+    private static final int[] DAYS = {12, 14, 15, 16, 17, 18, 21, 23};
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void convertedInputsGiveTheSameAnswers() throws IOException {
+        for (var day : DAYS) {
+            Solver<Object> solver = Solvers.forDay(day);
+            var file = convert(day);
+            Object expected;
+            try (var text = Solvers.bundledInput(day)) {
+                assertFalse(PreparsedInput.matches(text));
+                expected = solver.part1(solver.parse(text));
+            }
+            Object parsed;
+            try (var input = Input.map(file)) {
+                assertTrue(PreparsedInput.matches(input));
+                parsed = PreparsedInput.parse(day, solver, input);
+            }
+            assertEquals("day " + day, expected, solver.part1(parsed));
+        }
+    }
+
+    @Test
+    public void rejectsOtherDays() throws IOException {
+        var file = convert(14);
+        try (var input = Input.map(file)) {
+            var e = assertThrows(IllegalArgumentException.class,
+                    () -> PreparsedInput.read(18, Solvers.forDay(18), input));
+            assertEquals("Preparsed input of day 14 cannot be used for day 18", e.getMessage());
+        }
+    }
+
+    @Test
+    public void rejectsTruncatedFiles() throws IOException {
+        var file = convert(23);
+        var bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 8));
+        try (var input = Input.map(file)) {
+            assertThrows(IllegalArgumentException.class, () -> PreparsedInput.read(23, Solvers.forDay(23), input));
+        }
+    }
+
+    @Test
+    public void daysWithoutCodecCannotBeConverted() throws IOException {
+        try (var text = Solvers.bundledInput(13)) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> PreparsedInput.convert(13, text, folder.getRoot().toPath().resolve("13.aocp")));
+        }
+    }
+
+    private Path convert(int day) throws IOException {
+        var file = folder.newFolder().toPath().resolve(day + ".aocp");
+        try (var text = Solvers.bundledInput(day)) {
+            PreparsedInput.convert(day, text, file);
+        }
+        return file;
+    }
+}
@@ -0,0 +1,73 @@
+package aoc.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import aoc.Solver;
+import aoc.Solvers;
+import aoc.input.Input;
+
+public class ResultCacheTest {
+
+    // Every entry of answers 1 and 2 takes 6 bytes: "I1\nI2\n".
+    private static final ResultCache.Answers ANSWERS = new ResultCache.Answers(1, 2);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final Solver<Object> solver = Solvers.forDay(12);
+
+    private ResultCache.Entry entry(ResultCache cache, String input) {
+        try (var text = Input.of(input)) {
+            return cache.entry(12, solver, text);
+        }
+    }
+
+    // Modification times may have a resolution of a few milliseconds.
+    private static void later() throws InterruptedException {
+        Thread.sleep(20);
+    }
+
+    @Test
+    public void leastRecentlyUsedEntriesAreEvictedBeyondTheBudget() throws Exception {
+        var cache = new ResultCache(folder.getRoot().toPath(), 20);
+        var a = entry(cache, "a");
+        var b = entry(cache, "b");
+        var c = entry(cache, "c");
+        a.storeAnswers(ANSWERS);
+        later();
+        b.storeAnswers(ANSWERS);
+        later();
+        c.storeAnswers(ANSWERS);
+        later();
+        assertNotNull(a.answers());
+        later();
+
+        var d = entry(cache, "d");
+        d.storeAnswers(ANSWERS);
+        assertNull(b.answers());
+        assertEquals(ANSWERS, a.answers());
+        assertEquals(ANSWERS, c.answers());
+        assertEquals(ANSWERS, d.answers());
+        assertEquals(18, directorySize());
+
+        // Storing the same entry again replaces it, nothing is evicted.
+        d.storeAnswers(ANSWERS);
+        assertEquals(ANSWERS, c.answers());
+        assertEquals(18, directorySize());
+    }
+
+    private long directorySize() throws IOException {
+        try (var files = Files.list(folder.getRoot().toPath())) {
+            return files.mapToLong(file -> file.toFile().length()).sum();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package aoc.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import aoc.Solvers;
+
+public class SolverVersionTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path write(Path root, String file, String content) throws IOException {
+        var path = root.resolve(file);
+        Files.createDirectories(path.getParent());
+        return Files.writeString(path, content);
+    }
+
+    // The class file of a class of the build in the default package.
+    private Path copy(Path root, String className) throws IOException {
+        try (var in = SolverVersionTest.class.getResourceAsStream("/" + className + ".class")) {
+            return Files.write(root.resolve(className + ".class"), in.readAllBytes());
+        }
+    }
+
+    // A change after the end of the class file, which leaves it readable.
+    private static void change(Path file) throws IOException {
+        Files.write(file, new byte[] {1}, StandardOpenOption.APPEND);
+    }
+
+    @Test
+    public void dependsOnEveryPackageButNotOnOtherDays() throws IOException {
+        var root = folder.getRoot().toPath();
+        copy(root, "Day12");
+        var graph = copy(root, "Graph");
+        var day13 = copy(root, "Day13");
+        var pairs = copy(root, "PairOfPackets");
+        write(root, "Day13$Packet.class", "packet, without a SourceFile attribute");
+        write(root, "aoc/input/Input.class", "input");
+        var search = write(root, "aoc/search/HeightmapSearch.class", "search");
+        var grid = write(root, "aoc/grid/ByteGrid.class", "grid");
+        var version = SolverVersion.hash("Day12", root);
+
+        change(day13);
+        change(pairs);
+        write(root, "Day13$Packet.class", "packet, changed");
+        copy(root, "Day14");
+        assertEquals(version, SolverVersion.hash("Day12", root));
+
+        change(graph);
+        assertNotEquals(version, SolverVersion.hash("Day12", root));
+        version = SolverVersion.hash("Day12", root);
+
+        Files.writeString(search, "search, changed");
+        var changedSearch = SolverVersion.hash("Day12", root);
+        assertNotEquals(version, changedSearch);
+
+        Files.writeString(grid, "grid, changed");
+        assertNotEquals(changedSearch, SolverVersion.hash("Day12", root));
+    }
+
+    @Test
+    public void helpersBelongToTheDayThatDeclaresThem() throws IOException {
+        var root = folder.getRoot().toPath();
+        assertEquals("Day13.java", SolverVersion.sourceFile(Files.readAllBytes(copy(root, "PairOfPackets"))));
+        assertEquals("Day12.java", SolverVersion.sourceFile(Files.readAllBytes(copy(root, "Graph"))));
+        assertNull(SolverVersion.sourceFile("not a class file".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void solversOfTheBuildHaveAVersion() {
+        assertEquals(64, SolverVersion.of(Solvers.forDay(12).getClass()).length());
+    }
+}
@@ -0,0 +1,65 @@
+package aoc.check;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.Test;
+
+import aoc.Solver;
+import aoc.Solvers;
+import aoc.input.Input;
+
+public class DifferentialCheckerTest {
+
+    @Test
+    public void enginesAgreeWithTheirReference() throws InterruptedException {
+        try (var checker = new DifferentialChecker(Duration.ofSeconds(30))) {
+            for (var engine : Engine.ALL) {
+                var outcomes = checker.check(engine, DifferentialChecker.cases(engine.day(), 3, 1, 0.3), o -> {
+                });
+                for (var outcome : outcomes) {
+                    assertNotEquals(outcome.toString(), DifferentialChecker.Status.MISMATCH, outcome.status());
+                }
+                assertTrue(outcomes.stream().anyMatch(o -> o.status() == DifferentialChecker.Status.MATCH));
+            }
+        }
+    }
+
+    @Test
+    public void mismatchesAreShrunk() throws InterruptedException {
+        // Wrong as soon as a droplet has more than one cube.
+        var engine = new Engine(18, "broken", () -> new Solver<>() {
+            private final Solver<Object> reference = Solvers.forDay(18);
+
+            @Override
+            public Object parse(Input input) {
+                return reference.parse(input);
+            }
+
+            @Override
+            public Object part1(Object input) {
+                var sides = (Integer) reference.part1(input);
+                return sides > 6 ? sides + 1 : sides;
+            }
+        });
+        var input = new DifferentialChecker.Case("cubes", """
+                1,1,1
+                2,1,1
+                5,5,5
+                1,1,2
+                7,7,7
+                """);
+        try (var checker = new DifferentialChecker(Duration.ofSeconds(30))) {
+            var outcomes = checker.check(engine, List.of(input), o -> {
+            });
+            assertEquals(DifferentialChecker.Status.MISMATCH, outcomes.get(0).status());
+            assertEquals(2, outcomes.get(0).shrunk().lines().count());
+            // Part 2 is not implemented by the engine.
+            assertEquals(DifferentialChecker.Status.SKIPPED, outcomes.get(1).status());
+        }
+    }
+}
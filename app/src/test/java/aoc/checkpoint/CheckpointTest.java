@@ -0,0 +1,75 @@
+package aoc.checkpoint;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CheckpointTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Checkpoint open(Path directory, long key, int version) {
+        return Checkpoint.open(directory, Duration.ZERO, "test", version, out -> out.writeLong(key));
+    }
+
+    @Test
+    public void stateIsResumedUntilTheRunIsFinished() throws IOException {
+        var directory = folder.newFolder().toPath();
+        var checkpoint = open(directory, 1, 1);
+        assertTrue(checkpoint.due());
+        assertNull(checkpoint.resume(in -> in.readInt()));
+        checkpoint.save(out -> {
+            out.writeInt(42);
+            out.write(new byte[] {1, 2, 3});
+        });
+
+        var resumed = open(directory, 1, 1).resume(in -> {
+            var bytes = new byte[3];
+            var round = in.readInt();
+            in.readFully(bytes);
+            assertArrayEquals(new byte[] {1, 2, 3}, bytes);
+            return round;
+        });
+        assertEquals(Integer.valueOf(42), resumed);
+
+        checkpoint.finish();
+        assertNull(open(directory, 1, 1).resume(in -> in.readInt()));
+    }
+
+    @Test
+    public void otherRunsAndDamagedFilesAreNotResumed() throws IOException {
+        var directory = folder.newFolder().toPath();
+        open(directory, 1, 1).save(out -> out.writeLong(7));
+        assertNull(open(directory, 2, 1).resume(in -> in.readLong()));
+        assertNull(open(directory, 1, 2).resume(in -> in.readLong()));
+
+        try (var files = Files.list(directory)) {
+            var file = files.findFirst().orElseThrow();
+            var bytes = Files.readAllBytes(file);
+            bytes[bytes.length - 1] ^= 1;
+            Files.write(file, bytes);
+        }
+        assertNull(open(directory, 1, 1).resume(in -> in.readLong()));
+    }
+
+    @Test
+    public void offWithoutADirectory() {
+        var checkpoint = Checkpoint.open("test", 1, out -> out.writeLong(1));
+        assertFalse(checkpoint.enabled());
+        assertFalse(checkpoint.due());
+        checkpoint.save(out -> out.writeLong(1));
+        assertNull(checkpoint.resume(in -> in.readLong()));
+    }
+}
@@ -0,0 +1,53 @@
+package aoc.daemon;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+public class SolverDaemonTest {
+
+    // Part 2 of day 17 never finishes. The job after it on the same input must neither wait for it nor parse again.
+    @Test(timeout = 60_000)
+    public void timedOutJobDoesNotBlockTheInput() throws Exception {
+        var socket = Files.createTempDirectory("daemon").resolve("daemon.sock");
+        try (var daemon = new SolverDaemon(1, 4, 4, Duration.ofSeconds(1))) {
+            var listening = new CountDownLatch(1);
+            var server = new Thread(() -> {
+                try {
+                    daemon.serveSocket(socket, listening::countDown);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            server.setDaemon(true);
+            server.start();
+            listening.await();
+            try (var channel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+                channel.connect(UnixDomainSocketAddress.of(socket));
+                var out = new PrintStream(Channels.newOutputStream(channel), true, StandardCharsets.UTF_8);
+                var in = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel),
+                        StandardCharsets.UTF_8));
+                out.println("a 17 2 bundled");
+                var first = in.readLine();
+                assertTrue(first, first.contains("\"id\":\"a\",\"status\":\"timeout\""));
+
+                out.println("b 17 1 bundled");
+                var second = in.readLine();
+                assertTrue(second, second.contains("\"id\":\"b\",\"status\":\"ok\",\"warm\":true"));
+                assertTrue(second, second.contains("3055"));
+            }
+        }
+    }
+}
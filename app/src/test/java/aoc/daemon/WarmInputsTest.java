@@ -0,0 +1,65 @@
+package aoc.daemon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import aoc.Solver;
+import aoc.input.Input;
+
+public class WarmInputsTest {
+
+    private final List<Object> released = new ArrayList<>();
+
+    private final Solver<Object> solver = new Solver<>() {
+        @Override
+        public Object parse(Input input) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Object part1(Object input) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void release(Object input) {
+            released.add(input);
+        }
+    };
+
+    private WarmInputs.Entry parsed(WarmInputs warm, String key, Object parsed) {
+        var entry = warm.acquire(key);
+        entry.solver = solver;
+        entry.parsed = parsed;
+        return entry;
+    }
+
+    @Test
+    public void droppedInputIsReleasedByItsLastUser() {
+        var warm = new WarmInputs(1);
+        var a = parsed(warm, "a", "parsed a");
+        assertSame(a, warm.acquire("a"));
+        warm.release(a);
+
+        // b pushes a out, which its other job still uses.
+        warm.release(parsed(warm, "b", "parsed b"));
+        assertEquals(List.of(), released);
+        warm.release(a);
+        assertEquals(List.of("parsed a"), released);
+
+        warm.clear();
+        assertEquals(List.of("parsed a", "parsed b"), released);
+    }
+
+    @Test
+    public void withoutCapacityEveryInputIsReleasedAfterItsJob() {
+        var warm = new WarmInputs(0);
+        warm.release(parsed(warm, "a", "parsed a"));
+        assertEquals(List.of("parsed a"), released);
+    }
+}
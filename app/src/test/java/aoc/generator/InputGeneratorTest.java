@@ -0,0 +1,51 @@
+package aoc.generator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import aoc.Solvers;
+import aoc.input.Input;
+
+@RunWith(Parameterized.class)
+public class InputGeneratorTest {
+
+    @Parameters(name = "day {0}")
+    public static Collection<Object[]> days() {
+        return Arrays.stream(Solvers.DAYS).mapToObj(day -> new Object[] {day}).toList();
+    }
+
+    private final int day;
+
+    public InputGeneratorTest(int day) {
+        this.day = day;
+    }
+
+    @Test
+    public void sameSeedGivesSameInput() {
+        assertEquals(InputGenerator.generate(day, 0.5, 3), InputGenerator.generate(day, 0.5, 3));
+    }
+
+    @Test
+    public void otherSeedGivesOtherInput() {
+        assertNotEquals(InputGenerator.generate(day, 0.5, 3), InputGenerator.generate(day, 0.5, 4));
+    }
+
+    @Test
+    public void inputIsSolvable() {
+        var solver = Solvers.forDay(day);
+        for (long seed = 1; seed <= 3; seed++) {
+            try (var input = Input.of(InputGenerator.generate(day, 0.5, seed))) {
+                assertNotNull(solver.part1(solver.parse(input)));
+            }
+        }
+    }
+}
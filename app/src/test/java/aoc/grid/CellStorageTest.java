@@ -0,0 +1,72 @@
+package aoc.grid;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class CellStorageTest {
+
+    @Test
+    public void everyModeStartsZeroedAndKeepsWhatIsWritten() {
+        for (var mode : CellStorage.Mode.values()) {
+            try (var storage = CellStorage.allocate(1001, mode)) {
+                assertEquals(mode, storage.mode());
+                assertEquals(1008, storage.byteSize());
+                assertEquals(0, storage.bitCount(storage.byteSize() / Long.BYTES));
+                storage.setByte(1000, (byte) 7);
+                storage.setLong(3, -1L);
+                assertEquals(7, storage.getByte(1000));
+                assertEquals(-1L, storage.getLong(3));
+                assertEquals(64 + 3, storage.bitCount(storage.byteSize() / Long.BYTES));
+            }
+        }
+    }
+
+    @Test
+    public void overlappingRowsAreCopiedLikeArraycopy() {
+        try (var grid = new ByteGrid(3, 6, CellStorage.Mode.OFF_HEAP)) {
+            for (int i = 0; i < 18; i++) {
+                grid.set(i, (byte) i);
+            }
+            grid.copyRows(1, 0, 4);
+            grid.fillRows(4, 2, (byte) 0);
+            for (int i = 0; i < 12; i++) {
+                assertEquals(i + 3, grid.get(i));
+            }
+            for (int i = 12; i < 18; i++) {
+                assertEquals(0, grid.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void autoModeMovesLargeGridsOffHeap() {
+        assertEquals(CellStorage.Mode.HEAP, CellStorage.configuredMode(CellStorage.AUTO_OFF_HEAP_BYTES - 1));
+        assertEquals(CellStorage.Mode.OFF_HEAP, CellStorage.configuredMode(CellStorage.AUTO_OFF_HEAP_BYTES));
+        try (var grid = new BitGrid(1 << 15, 1 << 13)) {
+            grid.set(1 << 14, 1 << 12);
+            grid.set(0, 0);
+            grid.clear(0, 0);
+            assertTrue(grid.get(1 << 14, 1 << 12));
+            assertFalse(grid.get(0, 0));
+            assertEquals(1, grid.cardinality());
+        }
+    }
+
+    // 2^32 cells, mapped, so that only the pages that are touched take memory.
+    @Test
+    public void byteGridsGoBeyondIntIndexes() {
+        try (var grid = new ByteGrid(1 << 16, 1 << 16, CellStorage.Mode.MAPPED)) {
+            var last = grid.index((1 << 16) - 1, (1 << 16) - 1);
+            assertEquals((1L << 32) - 1, last);
+            assertEquals((1 << 16) - 1, grid.x(last));
+            assertEquals((1 << 16) - 1, grid.y(last));
+            grid.set(last, (byte) 5);
+            assertEquals(5, grid.get((1 << 16) - 1, (1 << 16) - 1));
+            assertEquals(last - (1 << 16), grid.neighbor(last, 0));
+            assertEquals(0, grid.get(grid.neighbor(last, 0)));
+        }
+    }
+}
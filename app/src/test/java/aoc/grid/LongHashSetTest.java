@@ -0,0 +1,76 @@
+package aoc.grid;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+public class LongHashSetTest {
+
+    @Test
+    public void zeroIsAnOrdinaryKey() {
+        var set = new LongHashSet();
+        assertFalse(set.contains(0));
+        assertTrue(set.add(0));
+        assertFalse(set.add(0));
+        assertTrue(set.contains(0));
+        assertEquals(1, set.size());
+        assertTrue(set.remove(0));
+        assertTrue(set.isEmpty());
+    }
+
+    @Test
+    public void packedCoordinates() {
+        var set = new LongHashSet();
+        for (int x = -20; x <= 20; x++) {
+            for (int y = -20; y <= 20; y++) {
+                assertTrue(set.add(Coordinates.pack(x, y)));
+            }
+        }
+        assertEquals(41 * 41, set.size());
+        assertTrue(set.contains(Coordinates.pack(-20, 20)));
+        assertFalse(set.contains(Coordinates.pack(21, 0)));
+    }
+
+    // Random adds and removes in a small key range, so that removals often have to close gaps in probe sequences.
+    @Test
+    public void behavesLikeHashSet() {
+        var random = new SplittableRandom(1);
+        var set = new LongHashSet();
+        var expected = new HashSet<Long>();
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(-500, 500);
+            if (random.nextBoolean()) {
+                assertEquals(expected.add(key), set.add(key));
+            } else {
+                assertEquals(expected.remove(key), set.remove(key));
+            }
+            assertEquals(expected.size(), set.size());
+        }
+        for (long key = -500; key < 500; key++) {
+            assertEquals(expected.contains(key), set.contains(key));
+        }
+        var keys = set.toArray();
+        Arrays.sort(keys);
+        assertArrayEquals(expected.stream().mapToLong(Long::longValue).sorted().toArray(), keys);
+    }
+
+    @Test
+    public void clearKeepsWorking() {
+        var set = new LongHashSet();
+        for (long key = 0; key < 1000; key++) {
+            set.add(key);
+        }
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(500));
+        assertTrue(set.add(500));
+        assertEquals(1, set.size());
+    }
+}
@@ -0,0 +1,66 @@
+package aoc.grid;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+public class LongIntMapTest {
+
+    @Test
+    public void missingValue() {
+        var map = new LongIntMap();
+        assertEquals(-1, map.get(42, -1));
+        assertFalse(map.containsKey(42));
+        map.put(42, 7);
+        assertEquals(7, map.get(42, -1));
+        assertTrue(map.containsKey(42));
+    }
+
+    @Test
+    public void zeroIsAnOrdinaryKey() {
+        var map = new LongIntMap();
+        assertEquals(3, map.addTo(0, 3));
+        assertEquals(5, map.addTo(0, 2));
+        assertEquals(5, map.get(0, -1));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void behavesLikeHashMap() {
+        var random = new SplittableRandom(2);
+        var map = new LongIntMap();
+        var expected = new HashMap<Long, Integer>();
+        for (int i = 0; i < 100_000; i++) {
+            var key = Coordinates.pack(random.nextInt(-40, 40), random.nextInt(-40, 40));
+            var value = random.nextInt(10);
+            if (random.nextBoolean()) {
+                map.put(key, value);
+                expected.put(key, value);
+            } else {
+                assertEquals((int) expected.merge(key, value, Integer::sum), map.addTo(key, value));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        var seen = new HashMap<Long, Integer>();
+        map.forEach(seen::put);
+        assertEquals(expected, seen);
+    }
+
+    @Test
+    public void clearKeepsWorking() {
+        var map = new LongIntMap();
+        for (long key = 0; key < 1000; key++) {
+            map.put(key, (int) key);
+        }
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertEquals(-1, map.get(500, -1));
+        map.put(500, 1);
+        assertEquals(1, map.get(500, -1));
+    }
+}
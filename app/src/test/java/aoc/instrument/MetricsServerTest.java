@@ -0,0 +1,40 @@
+package aoc.instrument;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import org.junit.Test;
+
+public class MetricsServerTest {
+
+    @Test
+    public void namesFollowThePrometheusConventions() {
+        assertEquals("aoc_day23_moving_elves", MetricsServer.metricName("day23.movingElves"));
+        assertEquals("aoc_day17_rocks", MetricsServer.metricName("day17.rocks"));
+    }
+
+    @Test
+    public void servesCountersGaugesAndHeap() throws Exception {
+        Counter.register("test.units", "Units of test work");
+        Gauge.register("test.depth", "Depth of a test queue", () -> 3);
+        try (var server = MetricsServer.start(0)) {
+            var client = HttpClient.newHttpClient();
+            var response = client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + server.port()
+                    + "/metrics")).build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode());
+            assertTrue(response.headers().firstValue("Content-Type").orElseThrow().startsWith("text/plain"));
+            var body = response.body();
+            assertTrue(body, body.contains("# TYPE aoc_test_units_total counter\naoc_test_units_total "));
+            // Only the counter itself, rates depend on the scraper.
+            assertFalse(body, body.contains("per_second"));
+            assertTrue(body, body.contains("\naoc_test_depth 3\n"));
+            assertTrue(body, body.contains("\naoc_jvm_heap_used_bytes "));
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package aoc.search;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+public class GraphSearchTest {
+
+    @Test
+    public void pathOnLine() {
+        var graph = AdjacencyGraph.of(new int[][] {{1}, {2}, {3}, {}});
+        var search = new GraphSearch();
+        assertEquals(3, search.bfs(graph, 0, 3));
+        assertArrayEquals(new int[] {0, 1, 2, 3}, search.path(3));
+        assertEquals(GraphSearch.UNREACHED, search.bfs(graph, 3, 0));
+        assertArrayEquals(new int[0], search.path(0));
+    }
+
+    @Test
+    public void multipleSources() {
+        var graph = AdjacencyGraph.of(new int[][] {{1}, {2}, {3}, {4}, {}});
+        var search = new GraphSearch();
+        search.search(GraphSearch.Algorithm.BFS, graph, new int[] {0, 2}, GraphSearch.NO_TARGET, Heuristic.NONE);
+        assertEquals(0, search.distance(2));
+        assertEquals(2, search.distance(4));
+        assertEquals(5, search.settledCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroOneBfsRejectsOtherWeights() {
+        var graph = AdjacencyGraph.of(new int[][] {{1}, {}}, new int[][] {{2}, {}});
+        new GraphSearch().zeroOneBfs(graph, 0, 1);
+    }
+
+    // Random graphs against Bellman-Ford, with one engine reused for all searches.
+    @Test
+    public void matchesBellmanFord() {
+        var random = new SplittableRandom(5);
+        var search = new GraphSearch();
+        for (int graphs = 0; graphs < 300; graphs++) {
+            var n = 1 + random.nextInt(40);
+            var neighbors = new int[n][];
+            var zeroOne = new int[n][];
+            var weights = new int[n][];
+            for (int node = 0; node < n; node++) {
+                var degree = random.nextInt(4);
+                neighbors[node] = new int[degree];
+                zeroOne[node] = new int[degree];
+                weights[node] = new int[degree];
+                for (int i = 0; i < degree; i++) {
+                    neighbors[node][i] = random.nextInt(n);
+                    zeroOne[node][i] = random.nextInt(2);
+                    weights[node][i] = random.nextInt(10);
+                }
+            }
+            var source = random.nextInt(n);
+            var target = random.nextInt(n);
+
+            assertEquals(bellmanFord(neighbors, null, source, target),
+                    search.bfs(AdjacencyGraph.of(neighbors), source, target));
+            assertEquals(bellmanFord(neighbors, zeroOne, source, target),
+                    search.zeroOneBfs(AdjacencyGraph.of(neighbors, zeroOne), source, target));
+            var expected = bellmanFord(neighbors, weights, source, target);
+            var graph = AdjacencyGraph.of(neighbors, weights);
+            assertEquals(expected, search.dijkstra(graph, source, target));
+            assertEquals(expected, search.aStar(graph, source, target, Heuristic.NONE));
+            if (expected != GraphSearch.UNREACHED) {
+                var path = search.path(target);
+                assertEquals(source, path[0]);
+                assertEquals(target, path[path.length - 1]);
+            }
+        }
+    }
+
+    // The Manhattan distance guides A* on a grid, it must still find the shortest path around the walls.
+    @Test
+    public void aStarOnGrid() {
+        var size = 30;
+        var random = new SplittableRandom(3);
+        var wall = new boolean[size * size];
+        for (int i = 1; i < wall.length - 1; i++) {
+            wall[i] = random.nextInt(4) == 0;
+        }
+        IntGraph grid = new IntGraph() {
+            @Override
+            public int nodeCount() {
+                return size * size;
+            }
+
+            @Override
+            public void forEachEdge(int node, EdgeConsumer edges) {
+                var x = node % size;
+                var y = node / size;
+                if (x > 0 && !wall[node - 1]) {
+                    edges.edge(node - 1, 1);
+                }
+                if (x < size - 1 && !wall[node + 1]) {
+                    edges.edge(node + 1, 1);
+                }
+                if (y > 0 && !wall[node - size]) {
+                    edges.edge(node - size, 1);
+                }
+                if (y < size - 1 && !wall[node + size]) {
+                    edges.edge(node + size, 1);
+                }
+            }
+        };
+        var target = size * size - 1;
+        var search = new GraphSearch();
+        var expected = search.bfs(grid, 0, target);
+        var bfsSettled = search.settledCount();
+        assertEquals(expected, search.aStar(grid, 0, target, node -> 2 * (size - 1) - node % size - node / size));
+        assertTrue(search.settledCount() <= bfsSettled);
+    }
+
+    private static int bellmanFord(int[][] neighbors, int[][] weights, int source, int target) {
+        var distance = new long[neighbors.length];
+        Arrays.fill(distance, Long.MAX_VALUE / 4);
+        distance[source] = 0;
+        for (int round = 0; round < neighbors.length; round++) {
+            for (int node = 0; node < neighbors.length; node++) {
+                for (int i = 0; i < neighbors[node].length; i++) {
+                    var weight = weights == null ? 1 : weights[node][i];
+                    var to = neighbors[node][i];
+                    distance[to] = Math.min(distance[to], distance[node] + weight);
+                }
+            }
+        }
+        return distance[target] >= Long.MAX_VALUE / 4 ? GraphSearch.UNREACHED : (int) distance[target];
+    }
+}
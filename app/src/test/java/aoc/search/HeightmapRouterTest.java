@@ -0,0 +1,66 @@
+package aoc.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+public class HeightmapRouterTest {
+
+    private static Heightmap randomMap(SplittableRandom random, int width, int height) {
+        var elevations = new byte[width * height];
+        for (int i = 0; i < elevations.length; i++) {
+            elevations[i] = (byte) random.nextInt(4);
+        }
+        return new Heightmap(elevations, width);
+    }
+
+    @Test
+    public void matchesSearches() {
+        var random = new SplittableRandom(11);
+        var map = randomMap(random, 9, 7);
+        var router = new HeightmapRouter(map, 3 * 4 * 63);
+        var search = new HeightmapSearch();
+        var starts = new int[200];
+        var ends = new int[200];
+        for (int i = 0; i < starts.length; i++) {
+            starts[i] = random.nextInt(63);
+            ends[i] = random.nextInt(63);
+            var distance = search.bfs(map, starts[i], ends[i]);
+            assertEquals(distance, router.distance(starts[i], ends[i]));
+            var path = router.path(starts[i], ends[i]);
+            assertEquals(distance + 1, path.length);
+            for (int step = 1; step < path.length; step++) {
+                assertTrue(map.canStep(path[step - 1], path[step]));
+            }
+        }
+        var distances = router.distances(starts, ends);
+        for (int i = 0; i < starts.length; i++) {
+            assertEquals(search.bfs(map, starts[i], ends[i]), distances[i]);
+        }
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        var map = randomMap(new SplittableRandom(1), 4, 4);
+        var router = new HeightmapRouter(map, 2 * 4 * 16);
+        router.distance(0, 1);
+        router.distance(0, 2);
+        router.distance(0, 1);
+        router.distance(0, 3);
+        assertEquals(new HeightmapRouter.Stats(1, 3, 1, 2, 128), router.stats());
+        router.distance(5, 1);
+        router.distance(5, 2);
+        assertEquals(new HeightmapRouter.Stats(2, 4, 2, 2, 128), router.stats());
+    }
+
+    @Test
+    public void batchesFloodEveryEndOnce() {
+        var map = randomMap(new SplittableRandom(2), 5, 5);
+        var router = new HeightmapRouter(map, 0);
+        router.distances(new int[] {0, 1, 2, 3, 4, 5}, new int[] {7, 9, 7, 9, 7, 9});
+        assertEquals(new HeightmapRouter.Stats(4, 2, 0, 0, 0), router.stats());
+    }
+}
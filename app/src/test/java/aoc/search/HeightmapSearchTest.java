@@ -0,0 +1,138 @@
+package aoc.search;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+public class HeightmapSearchTest {
+
+    // The example of day 12 without S and E, which are at (0, 0) and (2, 5).
+    private static Heightmap exampleMap() {
+        var rows = new String[] {"aabqponm", "abcryxxl", "accszzxk", "acctuvwj", "abdefghi"};
+        var elevations = new byte[rows.length * 8];
+        for (int row = 0; row < rows.length; row++) {
+            for (int column = 0; column < 8; column++) {
+                elevations[row * 8 + column] = (byte) (rows[row].charAt(column) - 'a');
+            }
+        }
+        return new Heightmap(elevations, 8);
+    }
+
+    @Test
+    public void example() {
+        var map = exampleMap();
+        var search = new HeightmapSearch();
+        var end = map.index(2, 5);
+        assertEquals(31, search.bfs(map, 0, end));
+        var path = search.path(end);
+        assertEquals(32, path.length);
+        assertEquals(0, path[0]);
+        assertEquals(end, path[31]);
+        for (int i = 1; i < path.length; i++) {
+            assertTrue(map.canStep(path[i - 1], path[i]));
+        }
+    }
+
+    @Test
+    public void reverseSearchFindsTheClosestStart() {
+        var map = exampleMap();
+        var search = new HeightmapSearch();
+        var end = map.index(2, 5);
+        var start = search.nearest(map, HeightmapSearch.Direction.REVERSE, end, cell -> map.elevation(cell) == 0);
+        assertEquals(map.index(4, 0), start);
+        assertEquals(29, search.distance(start));
+        var path = search.path(start);
+        assertEquals(end, path[0]);
+        for (int i = 1; i < path.length; i++) {
+            assertTrue(map.canStep(path[i], path[i - 1]));
+        }
+        search.flood(map, HeightmapSearch.Direction.REVERSE, end);
+        assertEquals(31, search.distance(0));
+    }
+
+    // From the center of a flat 3x3 map the search reaches 7 before 3, both one step away.
+    @Test
+    public void nearestTakesTheLowestOfTheClosestMatches() {
+        var map = new Heightmap(new byte[9], 3);
+        var search = new HeightmapSearch();
+        assertEquals(3, search.nearest(map, HeightmapSearch.Direction.FORWARD, 4, cell -> cell == 7 || cell == 3));
+        assertEquals(1, search.distance(3));
+        assertEquals(7, search.nearest(map, HeightmapSearch.Direction.FORWARD, 4, cell -> cell == 7 || cell == 0));
+    }
+
+    @Test
+    public void unreachable() {
+        var map = new Heightmap(new byte[] {0, 5, 0, 0}, 2);
+        var search = new HeightmapSearch();
+        assertEquals(HeightmapSearch.UNREACHED, search.bfs(map, 0, 1));
+        assertArrayEquals(new int[0], search.path(1));
+        assertEquals(2, search.distance(3));
+        assertEquals(0, search.bfs(map, 1, 1));
+    }
+
+    @Test
+    public void movesMatchElevations() {
+        var random = new SplittableRandom(3);
+        var elevations = new byte[6 * 5];
+        for (int i = 0; i < elevations.length; i++) {
+            elevations[i] = (byte) random.nextInt(26);
+        }
+        var map = new Heightmap(elevations, 6);
+        for (int cell = 0; cell < elevations.length; cell++) {
+            for (int d = 0; d < 4; d++) {
+                var row = map.row(cell) + (d == Heightmap.UP ? -1 : d == Heightmap.DOWN ? 1 : 0);
+                var column = map.column(cell) + (d == Heightmap.LEFT ? -1 : d == Heightmap.RIGHT ? 1 : 0);
+                var inside = row >= 0 && row < 5 && column >= 0 && column < 6;
+                var neighbor = map.neighbor(cell, d);
+                var out = (map.stepsOut(cell) & 1 << d) != 0;
+                var in = (map.stepsIn(cell) & 1 << d) != 0;
+                assertEquals(inside && elevations[neighbor] - elevations[cell] <= 1, out);
+                assertEquals(inside && elevations[cell] - elevations[neighbor] <= 1, in);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rowsMustBeComplete() {
+        new Heightmap(new byte[5], 2);
+    }
+
+    // Random heightmaps against GraphSearch on the same map as an IntGraph, with one engine of each for all of them.
+    @Test
+    public void matchesGraphSearch() {
+        var random = new SplittableRandom(7);
+        var search = new HeightmapSearch();
+        var reference = new GraphSearch();
+        for (int maps = 0; maps < 300; maps++) {
+            var width = 1 + random.nextInt(12);
+            var elevations = new byte[width * (1 + random.nextInt(12))];
+            for (int i = 0; i < elevations.length; i++) {
+                elevations[i] = (byte) random.nextInt(4);
+            }
+            var map = new Heightmap(elevations, width);
+            var source = random.nextInt(elevations.length);
+            search.bfs(map, source, HeightmapSearch.NO_TARGET);
+            reference.bfs(map, source, GraphSearch.NO_TARGET);
+            for (int cell = 0; cell < elevations.length; cell++) {
+                assertEquals(reference.distance(cell), search.distance(cell));
+                var path = search.path(cell);
+                assertEquals(reference.path(cell).length, path.length);
+                for (int i = 1; i < path.length; i++) {
+                    assertTrue(map.canStep(path[i - 1], path[i]));
+                }
+            }
+            var target = random.nextInt(elevations.length);
+            assertEquals(reference.bfs(map, source, target), search.bfs(map, source, target));
+
+            // The reverse field holds the distance of every cell to the target, as a search from each would.
+            search.flood(map, HeightmapSearch.Direction.REVERSE, target);
+            for (int cell = 0; cell < elevations.length; cell++) {
+                assertEquals(reference.bfs(map, cell, target), search.distance(cell));
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package aoc.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+
+public class ParallelHeightmapSearchTest {
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    @AfterClass
+    public static void shutDown() {
+        POOL.shutdown();
+    }
+
+    private static Heightmap randomMap(SplittableRandom random, int width, int height, int elevations) {
+        var cells = new byte[width * height];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = (byte) random.nextInt(elevations);
+        }
+        return new Heightmap(cells, width);
+    }
+
+    // A grain of 1 forks every level, alpha and beta make one search mostly top-down and the other mostly bottom-up.
+    @Test
+    public void matchesTheSequentialSearch() {
+        var random = new SplittableRandom(13);
+        var sequential = new HeightmapSearch();
+        var topDown = new ParallelHeightmapSearch(POOL, 1, 1, 1);
+        var bottomUp = new ParallelHeightmapSearch(POOL, 1, 1_000_000, 1_000_000);
+        for (int maps = 0; maps < 100; maps++) {
+            var map = randomMap(random, 1 + random.nextInt(40), 1 + random.nextInt(40), 1 + random.nextInt(4));
+            var source = random.nextInt(map.nodeCount());
+            for (var direction : HeightmapSearch.Direction.values()) {
+                for (var parallel : new ParallelHeightmapSearch[] {topDown, bottomUp}) {
+                    sequential.flood(map, direction, source);
+                    parallel.flood(map, direction, source);
+                    for (int cell = 0; cell < map.nodeCount(); cell++) {
+                        assertEquals(sequential.distance(cell), parallel.distance(cell));
+                    }
+                    assertEquals(sequential.settledCount(), parallel.settledCount());
+                    var target = random.nextInt(map.nodeCount());
+                    assertEquals(sequential.bfs(map, source, target),
+                            parallel.bfs(map, HeightmapSearch.Direction.FORWARD, source, target));
+                    var nearest = parallel.nearest(map, direction, source, cell -> map.elevation(cell) == 0);
+                    var expected = sequential.nearest(map, direction, source, cell -> map.elevation(cell) == 0);
+                    // Both take the lowest of the closest matches.
+                    assertEquals(expected, nearest);
+                    if (expected != HeightmapSearch.NONE) {
+                        assertEquals(sequential.distance(expected), parallel.distance(nearest));
+                    }
+                }
+            }
+        }
+    }
+
+    // On a flat grid the frontier is a diamond, far smaller than the rest of the cells for the default alpha. With a
+    // larger one it goes bottom-up while the diamond grows and back to top-down once it shrinks at the edges.
+    @Test
+    public void switchesDirections() {
+        var map = new Heightmap(new byte[200 * 200], 200);
+        var search = new ParallelHeightmapSearch(POOL, 64, 1000, ParallelHeightmapSearch.DEFAULT_BETA);
+        search.flood(map, HeightmapSearch.Direction.FORWARD, map.index(100, 100));
+        // The last level finds nothing.
+        assertEquals(201, search.levels());
+        assertTrue(search.bottomUpLevels() > 0);
+        assertTrue(search.bottomUpLevels() < search.levels());
+        assertEquals(200, search.distance(0));
+    }
+}
@@ -0,0 +1,50 @@
+package aoc.simd;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+public class KernelsTest {
+
+    @Test
+    public void theTestsRunWithTheVectorApi() {
+        assertTrue(Kernels.VECTOR);
+    }
+
+    @Test
+    public void vectorsAgreeWithTheLoops() {
+        var random = new SplittableRandom(3);
+        // Lengths around the vector sizes, so that both the vectors and the rest are covered.
+        for (int length = 0; length <= 70; length++) {
+            var xs = new int[length];
+            var ys = new int[length];
+            var radii = new int[length];
+            var bits = new long[length + 1];
+            for (int i = 0; i < length; i++) {
+                xs[i] = random.nextInt(-100, 100);
+                ys[i] = random.nextInt(-100, 100);
+                radii[i] = random.nextInt(0, 20);
+            }
+            for (int i = 0; i < bits.length; i++) {
+                bits[i] = random.nextLong();
+            }
+            for (int point = 0; point < 50; point++) {
+                var x = random.nextInt(-120, 120);
+                var y = random.nextInt(-120, 120);
+                assertEquals(ScalarKernels.anyWithinManhattan(xs, ys, radii, x, y),
+                        VectorKernels.anyWithinManhattan(xs, ys, radii, x, y));
+            }
+            assertEquals(ScalarKernels.countAndNot(bits, 0, bits, 1, length),
+                    VectorKernels.countAndNot(bits, 0, bits, 1, length));
+            assertEquals(ScalarKernels.countAndNot(bits, 1, bits, 0, length),
+                    VectorKernels.countAndNot(bits, 1, bits, 0, length));
+            for (var shift : new int[] {1, -1, 5, -63}) {
+                assertEquals(ScalarKernels.countAndNotShifted(bits, 1, length, shift),
+                        VectorKernels.countAndNotShifted(bits, 1, length, shift));
+            }
+        }
+    }
+}